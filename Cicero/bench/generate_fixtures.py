@@ -0,0 +1,157 @@
+#!/usr/bin/env python3
+"""
+Génère les fixtures des benchmarks et des tests (Cicero/src/test/resources/fixtures/match.json et timeline.json) :
+une partie classée synthétique de 32 min au format Riot match-v5 complet, graine fixe (131).
+Relancer ce script redonne exactement les mêmes fichiers (Python 3, bibliothèque standard seule).
+
+    python3 bench/generate_fixtures.py
+"""
+import json, os, random
+rnd = random.Random(131)
+MATCH_ID = "EUW1_7000000001"
+DUR = 32*60+17
+roles = ["TOP","JUNGLE","MIDDLE","BOTTOM","UTILITY"]
+champs = {100:["Darius","Viego","Ahri","Kai'Sa","Nami"], 200:["Aatrox","Lillia","Azir","Ashe","Alistar"]}
+win_team = 100
+parts=[]
+puuids=[]
+for idx in range(10):
+    team = 100 if idx<5 else 200
+    pid = idx+1
+    role = roles[idx%5]
+    puuid = "fixture-puuid-%02d-" % pid + "x"*60
+    puuids.append(puuid)
+    k = rnd.randint(1,12); d = rnd.randint(1,9); a = rnd.randint(2,18)
+    cs = {"TOP":210,"JUNGLE":40,"MIDDLE":230,"BOTTOM":250,"UTILITY":30}[role] + rnd.randint(-30,30)
+    dmg = rnd.randint(12000, 38000)
+    parts.append({
+        "puuid": puuid, "participantId": pid, "teamId": team,
+        "championName": champs[team][idx%5], "championId": 100+idx,
+        "teamPosition": role, "individualPosition": role, "lane": role,
+        "win": team==win_team,
+        "riotIdGameName": "Fixture%d" % pid, "riotIdTagline": "EUW", "riotIdTagLine": "EUW", "summonerName": "",
+        "kills": k, "deaths": d, "assists": a, "champLevel": rnd.randint(14,18),
+        "totalDamageDealtToChampions": dmg, "totalDamageTaken": rnd.randint(15000,40000),
+        "damageDealtToObjectives": rnd.randint(1000,15000), "damageSelfMitigated": rnd.randint(5000,40000),
+        "goldEarned": rnd.randint(9000,15000), "totalMinionsKilled": cs,
+        "neutralMinionsKilled": 160 if role=="JUNGLE" else rnd.randint(0,12),
+        "totalAllyJungleMinionsKilled": 140 if role=="JUNGLE" else 0,
+        "totalEnemyJungleMinionsKilled": 20 if role=="JUNGLE" else 0,
+        "visionScore": rnd.randint(15,30) if role!="UTILITY" else rnd.randint(55,90),
+        "wardsPlaced": rnd.randint(6,40), "wardsKilled": rnd.randint(1,12),
+        "visionWardsBoughtInGame": rnd.randint(0,8),
+        "summoner1Id": 4, "summoner2Id": 11 if role=="JUNGLE" else 14,
+        **{"item%d"%i: rnd.choice([3031,3153,6672,3046,3036,3071,3053,3111,3047,3157,3089,3135,3190,3222,0]) for i in range(6)},
+        "item6": 3340,
+        "perks": {"statPerks":{"defense":5001,"flex":5008,"offense":5005},
+                  "styles":[{"description":"primaryStyle","style":8000,"selections":[{"perk":8005,"var1":0,"var2":0,"var3":0},{"perk":9111},{"perk":9104},{"perk":8014}]},
+                            {"description":"subStyle","style":8400,"selections":[{"perk":8444},{"perk":8453}]}]},
+        "challenges": {
+            "killParticipation": round(rnd.uniform(0.35,0.8),4),
+            "teamDamagePercentage": round(rnd.uniform(0.1,0.32),4),
+            "goldPerMinute": round(rnd.uniform(280,480),2),
+            "damagePerMinute": round(dmg/(DUR/60),2),
+            "damageTakenOnTeamPercentage": round(rnd.uniform(0.1,0.3),4),
+            "effectiveHealAndShielding": round(rnd.uniform(0,9000) if role=="UTILITY" else rnd.uniform(0,800),1),
+            "laningPhaseGoldExpAdvantage": rnd.choice([0,1]),
+            "maxCsAdvantageOnLaneOpponent": rnd.randint(-20,40),
+            "visionScoreAdvantageLaneOpponent": round(rnd.uniform(-0.5,0.5),3),
+            "controlWardTimeCoverageInRiverOrEnemyHalf": round(rnd.uniform(0,0.6),3),
+            "soloKills": rnd.randint(0,4), "skillshotsDodged": rnd.randint(10,90),
+            "turretPlatesTaken": rnd.randint(0,5), "laneMinionsFirst10Minutes": rnd.randint(40,85),
+            "enemyChampionImmobilizations": rnd.randint(0,40), "saveAllyFromDeath": rnd.randint(0,3),
+            "enemyJungleMonsterKills": rnd.randint(0,20) if role=="JUNGLE" else 0,
+            "epicMonsterSteals": 0, "bountyGold": rnd.randint(0,900),
+            "dragonTakedowns": rnd.randint(0,4), "baronTakedowns": rnd.randint(0,1),
+            "riftHeraldTakedowns": rnd.randint(0,1), "voidMonsterKill": rnd.randint(0,6) if role=="JUNGLE" else 0,
+            "scuttleCrabKills": rnd.randint(1,4) if role=="JUNGLE" else 0,
+            "killsOnOtherLanesEarlyJungleAsLaner": rnd.randint(0,3) if role!="JUNGLE" else 0,
+            "kda": round((k+a)/max(1,d),3), "takedowns": k+a
+        }
+    })
+teams=[]
+for t in (100,200):
+    teams.append({"teamId":t,"win":t==win_team,
+      "bans":[{"championId":rnd.randint(1,900),"pickTurn":i+1} for i in range(5)],
+      "objectives":{"baron":{"first":t==100,"kills":1 if t==100 else 0},"champion":{"first":t==100,"kills":sum(p["kills"] for p in parts if p["teamId"]==t)},
+                    "dragon":{"first":t==200,"kills":3 if t==100 else 2},"horde":{"first":t==100,"kills":4 if t==100 else 2},
+                    "inhibitor":{"first":t==100,"kills":2 if t==100 else 0},"riftHerald":{"first":t==100,"kills":1 if t==100 else 0},
+                    "tower":{"first":t==200,"kills":9 if t==100 else 4}}})
+match={"metadata":{"dataVersion":"2","matchId":MATCH_ID,"participants":puuids},
+       "info":{"endOfGameResult":"GameComplete","gameCreation":1760000000000,"gameDuration":DUR,"gameEndTimestamp":1760000000000+DUR*1000+60000,
+               "gameId":7000000001,"gameMode":"CLASSIC","gameName":"teambuilder-match-7000000001","gameStartTimestamp":1760000060000,
+               "gameType":"MATCHED_GAME","gameVersion":"15.20.712.1234","mapId":11,"platformId":"EUW1","queueId":420,
+               "participants":parts,"teams":teams,"tournamentCode":""}}
+
+# --- TIMELINE ---
+frames=[]
+nframes = DUR//60 + 2
+skill_counts={pid:[0,0,0,0] for pid in range(1,11)}
+for f in range(nframes):
+    ts = min(f*60000 + (rnd.randint(10,40) if f else 0), DUR*1000)
+    evs=[]
+    if f==0:
+        evs.append({"realTimestamp":1760000060000,"timestamp":0,"type":"PAUSE_END"})
+        for pid in range(1,11):
+            for it in (1055,2003):
+                evs.append({"itemId":it,"participantId":pid,"timestamp":rnd.randint(1000,20000),"type":"ITEM_PURCHASED"})
+    else:
+        base=(f-1)*60000
+        # Montées de sorts (~ toutes les 1,5 min)
+        for pid in range(1,11):
+            lvl=sum(skill_counts[pid])
+            if lvl<18 and rnd.random()<0.75:
+                slot = 4 if lvl in (5,10,15) else rnd.choice([1,1,2,3] if skill_counts[pid][0]<5 else [2,3])
+                skill_counts[pid][slot-1]+=1
+                evs.append({"levelUpType":"NORMAL","participantId":pid,"skillSlot":slot,"timestamp":base+rnd.randint(0,59999),"type":"SKILL_LEVEL_UP"})
+            if rnd.random()<0.5:
+                evs.append({"creatorId":pid,"timestamp":base+rnd.randint(0,59999),"type":"WARD_PLACED","wardType":"YELLOW_TRINKET"})
+            if f%4==0 and rnd.random()<0.8:
+                evs.append({"itemId":rnd.choice([3031,3153,6672,3046,3036,1038,1037,3133,3047,3111,2055]),"participantId":pid,"timestamp":base+rnd.randint(0,59999),"type":"ITEM_PURCHASED"})
+        # Kills (teamfights en fin de partie)
+        nk = 0 if f<3 else (rnd.choice([0,0,1,1,2]) if f<14 else rnd.choice([0,1,2,4,6]))
+        t0 = base+rnd.randint(0,50000)
+        for i in range(nk):
+            killer=rnd.randint(1,10); kteam=100 if killer<=5 else 200
+            victim=rnd.randint(6,10) if kteam==100 else rnd.randint(1,5)
+            assists=rnd.sample([p for p in (range(1,6) if kteam==100 else range(6,11)) if p!=killer], rnd.randint(0,3))
+            e={"bounty":300,"killStreakLength":0,"killerId":killer,"position":{"x":rnd.randint(0,14000),"y":rnd.randint(0,14000)},
+               "shutdownBounty":0,"timestamp":t0+i*rnd.randint(500,3000),"type":"CHAMPION_KILL","victimId":victim,
+               "victimDamageDealt":[],"victimDamageReceived":[]}
+            if assists: e["assistingParticipantIds"]=sorted(assists)
+            evs.append(e)
+        if f in (6,12,18,24,29):
+            kteam = 100 if f!=12 else 200
+            killer = 2 if kteam==100 else 7
+            evs.append({"bounty":0,"killerId":killer,"killerTeamId":kteam,"monsterSubType":"FIRE_DRAGON" if f<20 else "ELDER_DRAGON" if f==29 else "HEXTECH_DRAGON",
+                        "monsterType":"DRAGON","position":{"x":9866,"y":4414},"timestamp":t0+5000,"type":"ELITE_MONSTER_KILL"})
+        if f==7:
+            evs.append({"killerId":2,"killerTeamId":100,"monsterType":"HORDE","timestamp":t0+4000,"type":"ELITE_MONSTER_KILL"})
+        if f==15:
+            evs.append({"killerId":2,"killerTeamId":100,"monsterType":"RIFTHERALD","timestamp":t0+4000,"type":"ELITE_MONSTER_KILL"})
+        if f==26:
+            evs.append({"killerId":2,"killerTeamId":100,"monsterType":"BARON_NASHOR","timestamp":t0+6000,"type":"ELITE_MONSTER_KILL"})
+        if f>=12 and f%2==0:
+            team = 200 if f%6 else 100  # tourelle détruite : teamId = équipe qui PERD le bâtiment
+            evs.append({"buildingType":"TOWER_BUILDING","killerId":rnd.randint(1,5) if team==200 else rnd.randint(6,10),
+                        "laneType":rnd.choice(["TOP_LANE","MID_LANE","BOT_LANE"]),"position":{"x":5048,"y":4812},
+                        "teamId":team,"timestamp":t0+8000,"towerType":"OUTER_TURRET","type":"BUILDING_KILL",
+                        "assistingParticipantIds":[1,3]})
+    evs.sort(key=lambda e:e["timestamp"])
+    pf={}
+    for pid in range(1,11):
+        pf[str(pid)]={"championStats":{"abilityHaste":0,"armor":40+f*3,"attackDamage":60+f*4,"health":600+f*60,"healthMax":600+f*60},
+                      "currentGold":rnd.randint(0,1500),"damageStats":{"totalDamageDoneToChampions":f*900},
+                      "goldPerSecond":0,"jungleMinionsKilled":f*5 if pid in (2,7) else 0,"level":min(18,1+f//2),
+                      "minionsKilled":f*7 if pid not in (2,7,5,10) else f,"participantId":pid,
+                      "position":{"x":rnd.randint(0,14000),"y":rnd.randint(0,14000)},"timeEnemySpentControlled":0,
+                      "totalGold":500+f*rnd.randint(330,420),"xp":f*600}
+    frames.append({"events":evs,"participantFrames":pf,"timestamp":ts})
+frames[-1]["events"].append({"gameId":7000000001,"realTimestamp":1760000060000+DUR*1000,"timestamp":DUR*1000,"type":"GAME_END","winningTeam":100})
+timeline={"metadata":{"dataVersion":"2","matchId":MATCH_ID,"participants":puuids},
+          "info":{"endOfGameResult":"GameComplete","frameInterval":60000,"frames":frames,"gameId":7000000001,
+                  "participants":[{"participantId":i+1,"puuid":puuids[i]} for i in range(10)]}}
+out=os.path.join(os.path.dirname(os.path.abspath(__file__)),"..","src","test","resources","fixtures")
+for name,payload in (("match.json",match),("timeline.json",timeline)):
+    with open(os.path.join(out,name),"w",encoding="utf-8") as f:
+        json.dump(payload,f,separators=(",",":"),ensure_ascii=False)
@@ -0,0 +1,178 @@
+package org.example.bench;
+
+import org.example.service.CausalityWindow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Analyse séquentielle kill -> objectif : ancien scan "fenêtre par kill" (quadratique) vs CausalityWindow (O(n)).
+ *
+ * Timelines synthétiques de 60 minutes, graine fixe : kills répartis entre escarmouches isolées et teamfights
+ * groupés (c'est là que le scan vers l'avant explose), plus tours/inhibiteurs/monstres épiques.
+ *
+ * Lancement : mvn -f bench/pom.xml package && java -jar bench/target/benchmarks.jar CausalityWindow
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CausalityWindowBenchmark {
+
+    private static final long GAME_MS = 60 * 60_000L;
+
+    /** Nombre de kills sur la partie : partie normale, partie sanglante, ARAM-like extrême. */
+    @Param({"40", "120", "400"})
+    public int kills;
+
+    @Param({"60"})
+    public int objectives;
+
+    // Événements triés par timestamp (colonnes), comme la timeline Riot
+    long[] timestamps;
+    boolean[] isKill;
+    int[] teamIds;
+    int[] victimTeamIds;
+    int[] killerIds;
+    int[] victimIds;
+
+    @Setup
+    public void generate() {
+        Random rnd = new Random(42);
+        int n = kills + objectives;
+        long[][] rows = new long[n][];
+
+        int k = 0;
+        while (k < kills) {
+            long center = 3 * 60_000L + (long) (rnd.nextDouble() * (GAME_MS - 3 * 60_000L));
+            // Un tiers d'escarmouches isolées, le reste en teamfights de 3 à 8 kills sur ~20s
+            int burst = rnd.nextInt(3) == 0 ? 1 : 3 + rnd.nextInt(6);
+            for (int b = 0; b < burst && k < kills; b++, k++) {
+                long ts = Math.min(GAME_MS, center + rnd.nextInt(20_000));
+                int killer = 1 + rnd.nextInt(10);
+                int killerTeam = killer <= 5 ? 100 : 200;
+                int victim = killerTeam == 100 ? 6 + rnd.nextInt(5) : 1 + rnd.nextInt(5);
+                rows[k] = new long[]{ts, 1, killerTeam, killerTeam == 100 ? 200 : 100, killer, victim};
+            }
+        }
+        for (int o = 0; o < objectives; o++) {
+            long ts = 5 * 60_000L + (long) (rnd.nextDouble() * (GAME_MS - 5 * 60_000L));
+            rows[kills + o] = new long[]{ts, 0, rnd.nextBoolean() ? 100 : 200, 0, 0, 0};
+        }
+        Arrays.sort(rows, (a, b) -> Long.compare(a[0], b[0]));
+
+        timestamps = new long[n];
+        isKill = new boolean[n];
+        teamIds = new int[n];
+        victimTeamIds = new int[n];
+        killerIds = new int[n];
+        victimIds = new int[n];
+        for (int i = 0; i < n; i++) {
+            timestamps[i] = rows[i][0];
+            isKill[i] = rows[i][1] == 1;
+            teamIds[i] = (int) rows[i][2];
+            victimTeamIds[i] = (int) rows[i][3];
+            killerIds[i] = (int) rows[i][4];
+            victimIds[i] = (int) rows[i][5];
+        }
+    }
+
+    @Benchmark
+    public int[] legacyForwardScan() {
+        // Comme l'ancien CausalityConsumer : un objet KeyEvent (et sa liste d'assists) par événement
+        List<KeyEvent> events = new ArrayList<>();
+        for (int i = 0; i < timestamps.length; i++) {
+            KeyEvent e = new KeyEvent(timestamps[i], isKill[i], killerIds[i], teamIds[i]);
+            e.victimId = victimIds[i];
+            e.victimTeamId = victimTeamIds[i];
+            events.add(e);
+        }
+        return legacy(events);
+    }
+
+    @Benchmark
+    public CausalityWindow.Result twoPointerSweep() {
+        // Le remplissage fait partie du coût mesuré, des deux côtés
+        CausalityWindow window = new CausalityWindow(timestamps.length);
+        for (int i = 0; i < timestamps.length; i++) {
+            if (isKill[i]) window.addKill(timestamps[i], killerIds[i], teamIds[i], victimIds[i], victimTeamIds[i]);
+            else window.addObjective(timestamps[i], teamIds[i]);
+        }
+        return window.analyze();
+    }
+
+    private static class KeyEvent {
+        final long timestamp;
+        final boolean kill;
+        final int killerId;
+        final int teamId;
+        final List<Integer> assistingParticipantIds = new ArrayList<>();
+        int victimId;
+        int victimTeamId;
+
+        KeyEvent(long timestamp, boolean kill, int killerId, int teamId) {
+            this.timestamp = timestamp;
+            this.kill = kill;
+            this.killerId = killerId;
+            this.teamId = teamId;
+        }
+    }
+
+    /**
+     * Copie fidèle de l'ancienne boucle "ANALYSE SÉQUENTIELLE" de MatchDataExtractor (référence de comparaison).
+     * @return [clutch, unforced, sacrificial, pickOffs] x 11 participants, à plat
+     */
+    static int[] legacy(List<KeyEvent> allEvents) {
+        int[] out = new int[4 * 11];
+        for (int i = 0; i < allEvents.size(); i++) {
+            KeyEvent current = allEvents.get(i);
+            if (!current.kill) continue;
+            boolean objectiveTakenAfter = false;
+            boolean objectiveLostAfter = false;
+            long dynamicWindowMs = CausalityWindow.windowMs(current.timestamp);
+            int weight = (current.timestamp > 1800000) ? 2 : 1;
+
+            for (int j = i + 1; j < allEvents.size(); j++) {
+                KeyEvent future = allEvents.get(j);
+                if (future.timestamp - current.timestamp > dynamicWindowMs) break;
+                if (!future.kill) {
+                    if (future.teamId == current.teamId) objectiveTakenAfter = true;
+                    else if (future.teamId == current.victimTeamId) objectiveLostAfter = true;
+                }
+            }
+            if (objectiveTakenAfter) out[current.killerId] += weight;
+            if (objectiveLostAfter) {
+                if (!objectiveTakenAfter) out[11 + current.victimId] += weight;
+                else out[22 + current.victimId] += weight;
+            }
+
+            boolean isIsolated = true;
+            for (int j = Math.max(0, i - 5); j < Math.min(allEvents.size(), i + 5); j++) {
+                if (i == j) continue;
+                KeyEvent other = allEvents.get(j);
+                if (other.kill && Math.abs(other.timestamp - current.timestamp) < 10000) {
+                    isIsolated = false;
+                    break;
+                }
+            }
+            if (isIsolated) out[33 + current.killerId] += weight;
+        }
+        return out;
+    }
+}
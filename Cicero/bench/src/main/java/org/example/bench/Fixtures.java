@@ -0,0 +1,53 @@
+package org.example.bench;
+
+import org.example.MatchStore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Payloads Riot (match-v5 + timeline) rejoués par les benchmarks.
+ *
+ * Par défaut : la paire de src/test/resources/fixtures (embarquée dans benchmarks.jar), une partie classée de 32 min
+ * synthétique au format Riot complet : frames minute par minute, achats, montées de sorts, kills, objectifs.
+ * Produite par bench/generate_fixtures.py (graine fixe : le relancer redonne les mêmes fichiers).
+ * Pour mesurer sur de vraies parties enregistrées, pointer vers le MatchStore du bot :
+ *   -Dcicero.fixtures.store=match_store.db -Dcicero.fixtures.match=EUW1_1234567890
+ */
+public final class Fixtures {
+    static final String STORE_PROPERTY = "cicero.fixtures.store";
+    static final String MATCH_PROPERTY = "cicero.fixtures.match";
+
+    public final String matchId;
+    public final String matchJson;
+    public final String timelineJson;
+
+    private Fixtures(String matchId, String matchJson, String timelineJson) {
+        this.matchId = matchId;
+        this.matchJson = matchJson;
+        this.timelineJson = timelineJson;
+    }
+
+    public static Fixtures load() throws IOException {
+        String storePath = System.getProperty(STORE_PROPERTY);
+        String matchId = System.getProperty(MATCH_PROPERTY);
+        if (storePath != null && matchId != null) {
+            MatchStore store = new MatchStore(storePath, Long.MAX_VALUE);
+            String match = store.load(matchId, MatchStore.KIND_MATCH);
+            String timeline = store.load(matchId, MatchStore.KIND_TIMELINE);
+            if (match == null || timeline == null) {
+                throw new IllegalStateException("Match " + matchId + " absent du MatchStore " + storePath);
+            }
+            return new Fixtures(matchId, match, timeline);
+        }
+        return new Fixtures("EUW1_7000000001", resource("/fixtures/match.json"), resource("/fixtures/timeline.json"));
+    }
+
+    private static String resource(String path) throws IOException {
+        try (InputStream is = Fixtures.class.getResourceAsStream(path)) {
+            if (is == null) throw new IllegalStateException("Fixture introuvable : " + path);
+            return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
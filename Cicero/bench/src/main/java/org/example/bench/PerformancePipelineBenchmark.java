@@ -0,0 +1,136 @@
+package org.example.bench;
+
+import org.example.service.BenchmarkService;
+import org.example.service.BenchmarkTable;
+import org.example.service.MatchDataExtractor;
+import org.example.service.MatchDataProcessor;
+import org.example.service.MatchNarrator;
+import org.example.service.ScoreCalculator;
+import org.example.service.match.MatchRecord;
+import org.example.service.match.ParticipantRecord;
+import org.example.service.match.TimelineData;
+import org.example.service.match.TimelineParser;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Étapes CPU de /performance, une à une puis de bout en bout (réseau, Discord et IA exclus),
+ * sur une paire match/timeline synthétique au format Riot, ou une vraie partie du MatchStore (voir Fixtures).
+ *
+ * Lancement : mvn -f bench/pom.xml package && java -jar bench/target/benchmarks.jar PerformancePipeline
+ * (BenchmarkRunner ajoute le profileur GC : alloc rate en Mo/s et en octets par opération).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PerformancePipelineBenchmark {
+
+    private static final String TIER = "GOLD";
+
+    Fixtures fixtures;
+    BenchmarkTable benchmarks;
+    MatchDataProcessor processor;
+
+    // Entrées déjà décodées, pour isoler chaque étape
+    MatchRecord match;
+    TimelineData timeline;
+    ParticipantRecord target;
+    MatchDataExtractor.FullContext fullContext;
+    ScoreCalculator.MatchScores scores;
+
+    @Setup
+    public void load() throws IOException {
+        fixtures = Fixtures.load();
+        benchmarks = new BenchmarkService().getTable();
+        processor = new MatchDataProcessor();
+
+        match = MatchRecord.fromJson(new JSONObject(fixtures.matchJson));
+        timeline = TimelineParser.parse(fixtures.timelineJson);
+        target = match.participants().get(0);
+        fullContext = MatchDataExtractor.extractAll(match, timeline);
+        scores = ScoreCalculator.scoreMatch(fullContext, TIER, benchmarks);
+    }
+
+    // --- DÉCODAGE ---
+
+    @Benchmark
+    public MatchRecord parseMatch() {
+        return MatchRecord.fromJson(new JSONObject(fixtures.matchJson));
+    }
+
+    @Benchmark
+    public TimelineData parseTimeline() throws IOException {
+        return TimelineParser.parse(fixtures.timelineJson);
+    }
+
+    // --- ANALYSE ---
+
+    @Benchmark
+    public MatchDataExtractor.FullContext extractAll() {
+        return MatchDataExtractor.extractAll(match, timeline);
+    }
+
+    @Benchmark
+    public JSONObject buildDeepAnalysisJson() {
+        return processor.buildDeepAnalysisJson(match, timeline, target.puuid());
+    }
+
+    @Benchmark
+    public JSONObject analyzePlayer() {
+        return ScoreCalculator.scoreParticipant(fullContext, target, TIER, benchmarks).toJson();
+    }
+
+    @Benchmark
+    public ScoreCalculator.MatchScores scoreMatch() {
+        return ScoreCalculator.scoreMatch(fullContext, TIER, benchmarks);
+    }
+
+    @Benchmark
+    public void buildPlayerDigests(Blackhole bh) {
+        for (ParticipantRecord p : match.participants()) {
+            bh.consume(MatchNarrator.buildPlayerDigest(p, scores.context(p), scores.opponent(p)));
+        }
+    }
+
+    // --- DE BOUT EN BOUT ---
+
+    /** Ce que fait /performance entre la réception des payloads Riot et l'envoi du premier embed. */
+    @Benchmark
+    public JSONArray performancePipeline() throws IOException {
+        MatchRecord m = MatchRecord.fromJson(new JSONObject(fixtures.matchJson));
+        TimelineData t = TimelineParser.parse(fixtures.timelineJson);
+        ParticipantRecord me = m.participants().get(0);
+
+        MatchDataProcessor.SkillOrderConsumer skills = new MatchDataProcessor.SkillOrderConsumer(me.participantId());
+        MatchDataProcessor.BuildPathConsumer build = new MatchDataProcessor.BuildPathConsumer(me.participantId());
+        MatchDataExtractor.FullContext context = MatchDataExtractor.extractAll(m, t, skills, build);
+        ScoreCalculator.MatchScores matchScores = ScoreCalculator.scoreMatch(context, TIER, benchmarks);
+
+        JSONArray playersJson = new JSONArray();
+        for (ParticipantRecord p : m.participants()) {
+            JSONObject json = p == me ? MatchDataProcessor.buildTargetPlayerJson(p, skills, build) : MatchDataProcessor.buildPlayerJson(p);
+            ScoreCalculator.ScoreResult result = matchScores.get(p);
+            if (result != null) json.put("ai_context", result.toJson());
+            json.put("factual_digest", MatchNarrator.buildPlayerDigest(p, matchScores.context(p), matchScores.opponent(p)));
+            playersJson.put(json);
+        }
+        return playersJson;
+    }
+}
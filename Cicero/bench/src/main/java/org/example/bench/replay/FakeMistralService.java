@@ -0,0 +1,62 @@
+package org.example.bench.replay;
+
+import org.example.service.MistralService;
+import org.example.service.RiotService;
+import org.example.service.TavilyService;
+import org.example.service.ai.Records.AnalystAdjustment;
+import org.example.service.ai.Records.MatchAnalysisResult;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mistral hors-ligne pour le pipeline /performance : sorties déterministes dérivées de l'entrée
+ * (l'Analyste reprend la note mathématique, le Caster renvoie un commentaire par joueur).
+ * Les appels passent toujours par le llmLimiter, avec une latence simulée : la file d'attente
+ * devant Mistral pèse sur les percentiles exactement comme en production.
+ */
+public class FakeMistralService extends MistralService {
+    private final long analystLatencyMs;
+    private final long casterLatencyMs;
+
+    public FakeMistralService(RiotService riotService, TavilyService tavilyService, long analystLatencyMs, long casterLatencyMs) {
+        super(riotService, tavilyService, "replay");
+        this.analystLatencyMs = analystLatencyMs;
+        this.casterLatencyMs = casterLatencyMs;
+    }
+
+    @Override
+    public MatchAnalysisResult runPerformanceAnalyst(String enrichedMatchJson) {
+        return getLlmLimiter().supply(() -> {
+            Latency.sleep(analystLatencyMs);
+            JSONArray players = new JSONObject(enrichedMatchJson).getJSONArray("players");
+            List<AnalystAdjustment> adjustments = new ArrayList<>(players.length());
+            for (int i = 0; i < players.length(); i++) {
+                JSONObject p = players.getJSONObject(i);
+                int score = p.optInt("score", 50);
+                adjustments.add(new AnalystAdjustment(p.optString("champion"), p.optString("role"), score,
+                        "RAS", "RAS", "Aucun", score, "Note mathématique conservée (rejeu)."));
+            }
+            return new MatchAnalysisResult(adjustments);
+        });
+    }
+
+    @Override
+    public String runPerformanceCaster(MatchAnalysisResult analystResult) {
+        return getLlmLimiter().supply(() -> {
+            Latency.sleep(casterLatencyMs);
+            JSONArray comments = new JSONArray();
+            for (AnalystAdjustment adj : analystResult.adjustments()) {
+                comments.put(new JSONObject()
+                        .put("name", adj.champion())
+                        .put("champion", adj.champion())
+                        .put("role", adj.role())
+                        .put("score", adj.adjusted_score())
+                        .put("comment", adj.champion() + " : " + adj.adjusted_score() + "/100."));
+            }
+            return comments.toString();
+        });
+    }
+}
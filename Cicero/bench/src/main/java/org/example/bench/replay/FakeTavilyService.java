@@ -0,0 +1,28 @@
+package org.example.bench.replay;
+
+import org.example.service.TavilyService;
+
+/** Tavily hors-ligne : réponse fixe après une latence simulée. */
+public class FakeTavilyService extends TavilyService {
+    private final long latencyMs;
+
+    public FakeTavilyService(long latencyMs) {
+        super("replay");
+        this.latencyMs = latencyMs;
+    }
+
+    @Override
+    public String searchEsport(String query) {
+        return answer(query);
+    }
+
+    @Override
+    public String searchMeta(String query) {
+        return answer(query);
+    }
+
+    private String answer(String query) {
+        Latency.sleep(latencyMs);
+        return "Résumé : aucune information externe pertinente pour \"" + query + "\" (rejeu hors-ligne).";
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.bench.replay;
+
+/** Latence simulée des doublures (Riot, Mistral, Tavily). */
+final class Latency {
+    private Latency() {}
+
+    static void sleep(long ms) {
+        if (ms <= 0) return;
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.example.bench.replay;
+
+import org.example.bench.Fixtures;
+import org.example.service.BenchmarkService;
+import org.example.service.MistralService;
+import org.example.service.PerformanceService;
+import org.example.service.RiotService;
+import org.example.service.match.MatchRecord;
+import org.example.service.match.ParticipantRecord;
+import org.example.util.ExecutorFactory;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test de charge hors-ligne de /performance : Riot servi par RiotStubServer, Mistral et Tavily remplacés
+ * par des doublures déterministes. N requêtes, dont au plus C simultanées, chacune déroulant le pipeline
+ * de PerformanceCommand (PerformanceService, hors Discord et base de données) ; affiche les percentiles de latence et le débit.
+ *
+ * Lancement : mvn -f bench/pom.xml package && java -cp bench/target/benchmarks.jar org.example.bench.replay.ReplayDriver \
+ *     --requests 500 --concurrency 32 --riot-ms 40 --analyst-ms 1500 --caster-ms 800
+ */
+public class ReplayDriver {
+
+    private static final String REGION = "euw1";
+
+    private final PerformanceService performanceService;
+
+    ReplayDriver(PerformanceService performanceService) {
+        this.performanceService = performanceService;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+        int requests = Integer.parseInt(options.getOrDefault("requests", "200"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "16"));
+        long riotMs = Long.parseLong(options.getOrDefault("riot-ms", "30"));
+        long analystMs = Long.parseLong(options.getOrDefault("analyst-ms", "1000"));
+        long casterMs = Long.parseLong(options.getOrDefault("caster-ms", "500"));
+        long tavilyMs = Long.parseLong(options.getOrDefault("tavily-ms", "300"));
+
+        Fixtures fixtures = Fixtures.load();
+        List<String> puuids = new ArrayList<>();
+        for (ParticipantRecord p : MatchRecord.fromJson(new JSONObject(fixtures.matchJson)).participants()) puuids.add(p.puuid());
+
+        try (RiotStubServer stub = new RiotStubServer(fixtures, riotMs)) {
+            RiotService riotService = new RiotService("replay", null, stub.baseUrl());
+            MistralService mistralService = new FakeMistralService(riotService, new FakeTavilyService(tavilyMs), analystMs, casterMs);
+            ReplayDriver driver = new ReplayDriver(new PerformanceService(riotService, mistralService, new BenchmarkService()));
+
+            System.out.println("Rejeu /performance : " + requests + " requêtes, " + concurrency + " simultanées"
+                    + " (Riot " + riotMs + " ms, Analyste " + analystMs + " ms, Caster " + casterMs + " ms)");
+
+            // Échauffement (JIT, Data Dragon en cache) hors mesure
+            driver.runPerformance(puuids.get(0));
+
+            ExecutorService executor = ExecutorFactory.newTaskExecutor("replay", concurrency);
+            long[] firstEmbedNanos = new long[requests];
+            long[] totalNanos = new long[requests];
+            AtomicInteger errors = new AtomicInteger();
+            List<CompletableFuture<Void>> pending = new ArrayList<>(requests);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < requests; i++) {
+                int index = i;
+                String puuid = puuids.get(i % puuids.size());
+                pending.add(CompletableFuture.runAsync(() -> {
+                    long t0 = System.nanoTime();
+                    try {
+                        long firstEmbed = driver.runPerformance(puuid);
+                        firstEmbedNanos[index] = firstEmbed - t0;
+                        totalNanos[index] = System.nanoTime() - t0;
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                        firstEmbedNanos[index] = -1;
+                        totalNanos[index] = -1;
+                        System.err.println("Requête " + index + " en échec : " + e.getMessage());
+                    }
+                }, executor));
+            }
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+            double wallSec = (System.nanoTime() - start) / 1e9;
+            executor.shutdown();
+
+            int ok = requests - errors.get();
+            System.out.printf("%nTerminé en %.1f s : %d OK, %d erreurs, %.2f req/s, %d appels Riot servis%n",
+                    wallSec, ok, errors.get(), ok / wallSec, stub.servedRequests());
+            report("Premier embed (Riot + calcul)", firstEmbedNanos);
+            report("Analyse complète (+ IA)", totalNanos);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Le pipeline de PerformanceCommand (PerformanceService), sans Discord ni persistance.
+     * @return instant (System.nanoTime) où le premier embed serait envoyé
+     */
+    long runPerformance(String puuid) throws Exception {
+        PerformanceService.Report report = performanceService.scoreLastMatch(puuid, REGION);
+        long firstEmbed = System.nanoTime();
+        performanceService.runAi(report);
+        return firstEmbed;
+    }
+
+    private static void report(String label, long[] nanos) {
+        long[] sorted = Arrays.stream(nanos).filter(n -> n >= 0).sorted().toArray();
+        if (sorted.length == 0) {
+            System.out.println(label + " : aucune mesure");
+            return;
+        }
+        System.out.printf("%-32s p50 %7.1f ms | p90 %7.1f ms | p99 %7.1f ms | max %7.1f ms%n", label,
+                percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99), sorted[sorted.length - 1] / 1e6);
+    }
+
+    /** Méthode "nearest rank" sur un tableau trié, en millisecondes. */
+    private static double percentile(long[] sorted, double p) {
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))] / 1e6;
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) throw new IllegalArgumentException("Option attendue : " + args[i]);
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,118 @@
+package org.example.bench.replay;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.example.bench.Fixtures;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serveur Riot / Data Dragon local pour le rejeu hors-ligne (RiotService construit avec redirectBaseUrl).
+ * Chemins reçus : /{hôte d'origine}/{chemin d'origine}, ex: /europe.api.riotgames.com/lol/match/v5/matches/EUW1_1.
+ *
+ * Sert la paire match/timeline des Fixtures pour n'importe quel matchId ; chaque historique demandé
+ * renvoie un nouvel identifiant, pour que les caches du bot ne masquent pas le coût réel d'un /performance.
+ * Renvoie les headers de quota d'une clé de production (le RiotRateLimiter se recalibre dessus).
+ */
+public class RiotStubServer implements AutoCloseable {
+
+    private static final String APP_RATE_LIMIT = "500:10,30000:600";
+    private static final String METHOD_RATE_LIMIT = "2000:10";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Fixtures fixtures;
+    private final long latencyMs;
+    private final AtomicInteger nextMatch = new AtomicInteger();
+    private final AtomicLong served = new AtomicLong();
+
+    /** @param latencyMs latence simulée de chaque réponse (réseau + Riot) */
+    public RiotStubServer(Fixtures fixtures, long latencyMs) throws IOException {
+        this.fixtures = fixtures;
+        this.latencyMs = latencyMs;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 256);
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "riot-stub");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public long servedRequests() {
+        return served.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            served.incrementAndGet();
+            if (latencyMs > 0) Thread.sleep(latencyMs);
+
+            String path = exchange.getRequestURI().getPath();
+            String body = route(path);
+            if (body == null) {
+                send(exchange, 404, "{\"status\":{\"message\":\"Data not found\",\"status_code\":404}}");
+                return;
+            }
+            exchange.getResponseHeaders().set("X-App-Rate-Limit", APP_RATE_LIMIT);
+            exchange.getResponseHeaders().set("X-Method-Rate-Limit", METHOD_RATE_LIMIT);
+            send(exchange, 200, body);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String route(String path) {
+        // --- DATA DRAGON ---
+        if (path.endsWith("/api/versions.json")) return "[\"15.20.1\",\"15.19.1\"]";
+        if (path.endsWith("/item.json")) {
+            return "{\"data\":{\"1055\":{\"name\":\"Lame de Doran\"},\"3031\":{\"name\":\"Lame d'infini\"},"
+                    + "\"3153\":{\"name\":\"Lame du roi déchu\"},\"6672\":{\"name\":\"Tueur de krakens\"},"
+                    + "\"3340\":{\"name\":\"Totem furtif\"}}}";
+        }
+        if (path.endsWith("/runesReforged.json")) {
+            return "[{\"id\":8000,\"name\":\"Précision\",\"slots\":[{\"runes\":[{\"id\":8005,\"name\":\"Attaque soutenue\"}]}]},"
+                    + "{\"id\":8400,\"name\":\"Volonté\",\"slots\":[{\"runes\":[{\"id\":8444,\"name\":\"Second souffle\"}]}]}]";
+        }
+
+        // --- RIOT API ---
+        if (path.contains("/lol/match/v5/matches/by-puuid/")) {
+            return "[\"EUW1_" + (7_000_000_000L + nextMatch.incrementAndGet()) + "\"]";
+        }
+        if (path.contains("/lol/match/v5/matches/")) {
+            return path.endsWith("/timeline") ? fixtures.timelineJson : fixtures.matchJson;
+        }
+        if (path.contains("/lol/league/v4/entries/by-puuid/")) {
+            return "[{\"queueType\":\"RANKED_SOLO_5x5\",\"tier\":\"GOLD\",\"rank\":\"II\",\"leaguePoints\":42,\"wins\":61,\"losses\":55}]";
+        }
+        return null;
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json;charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
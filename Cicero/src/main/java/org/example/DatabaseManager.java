@@ -2,24 +2,51 @@ package org.example;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
-import org.json.JSONArray;
-import org.sqlite.SQLiteConfig;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.example.util.Metrics;
+import org.example.util.TokenEstimator;
 
 public class DatabaseManager {
     private final String url = "jdbc:sqlite:lolbot.db";
     private static final long SESSION_TIMEOUT_MS = 20 * 60 * 1000; // 20 minutes
+    private static final long SWEEP_INTERVAL_MINUTES = 5;
+    private static final int READER_CONNECTIONS = 4; // Lectures simultanées (WAL) ; les écritures passent par une connexion unique
+
+    private final SqlitePool pool;
+    // Toutes les écritures passent par là : l'appelant n'attend pas SQLite, sauf s'il join() le futur renvoyé
+    private final WriteBehindQueue writer;
+    // Table users en mémoire : getUser / getAllUsers ne touchent jamais le disque
+    private final UserRegistry users;
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "chat-sweeper");
+        t.setDaemon(true);
+        return t;
+    });
 
     public DatabaseManager() {
+        try {
+            this.pool = new SqlitePool(url, "lolbot", READER_CONNECTIONS);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Impossible d'ouvrir lolbot.db: " + e.getMessage(), e);
+        }
         createTables();
-    }
+        try {
+            // Sans ses joueurs le bot les croirait tous non liés (et réinjecterait les comptes par défaut) : on s'arrête
+            this.users = new UserRegistry(loadAllUsers());
+        } catch (SQLException e) {
+            throw new IllegalStateException("Impossible de charger les utilisateurs: " + e.getMessage(), e);
+        }
+        Metrics.gauge("user_registry_size", users::size);
+        this.writer = new WriteBehindQueue(pool, "lolbot");
 
-    private Connection connect() throws SQLException {
-        SQLiteConfig config = new SQLiteConfig();
-        config.setBusyTimeout(5000); // Attendre jusqu'à 5000ms si la DB est verrouillée
-        config.setJournalMode(SQLiteConfig.JournalMode.WAL); // Write-Ahead Logging pour meilleure concurrence
-        config.setSynchronous(SQLiteConfig.SynchronousMode.NORMAL);
-        return DriverManager.getConnection(url, config.toProperties());
+        sweeper.scheduleAtFixedRate(this::sweepExpiredSessions, 0, SWEEP_INTERVAL_MINUTES, TimeUnit.MINUTES);
     }
 
     private void createTables() {
@@ -31,10 +58,24 @@ public class DatabaseManager {
                 "last_audit TEXT" +
                 ");";
 
-        String sqlSessions = "CREATE TABLE IF NOT EXISTS chat_sessions (" +
+        // Conversation /ask et /analyze : un message par ligne, ajout seul (seq croissant par joueur)
+        String sqlChatMessages = "CREATE TABLE IF NOT EXISTS chat_messages (" +
+                "discord_id TEXT NOT NULL, " +
+                "seq INTEGER NOT NULL, " +
+                "role TEXT NOT NULL, " +
+                "content TEXT NOT NULL, " +
+                "tokens INTEGER NOT NULL, " +
+                "created_at INTEGER NOT NULL, " +
+                "PRIMARY KEY(discord_id, seq)" +
+                ");";
+
+        // Résumé des anciens tours d'une session (compaction) : couvre les messages seq <= covered_seq
+        String sqlChatDigests = "CREATE TABLE IF NOT EXISTS chat_digests (" +
                 "discord_id TEXT PRIMARY KEY, " +
-                "history TEXT NOT NULL, " +
-                "last_updated INTEGER NOT NULL" +
+                "digest TEXT NOT NULL, " +
+                "covered_seq INTEGER NOT NULL, " +
+                "tokens INTEGER NOT NULL, " +
+                "updated_at INTEGER NOT NULL" +
                 ");";
 
         String sqlSnapshots = "CREATE TABLE IF NOT EXISTS user_snapshots (" +
@@ -62,53 +103,78 @@ public class DatabaseManager {
                 "PRIMARY KEY(discord_id, date)" +
                 ");";
 
-        try (Connection conn = this.connect();
-             Statement stmt = conn.createStatement()) {
-            stmt.execute(sqlUsers);
-            stmt.execute(sqlSessions);
-            stmt.execute(sqlSnapshots);
-            stmt.execute(sqlConfig);
-            stmt.execute(sqlDailyPerformances);
-
-            // Migrations pour les anciennes bases de données
-            try {
-                stmt.execute("ALTER TABLE users ADD COLUMN region TEXT DEFAULT 'euw1'");
-            } catch (SQLException ignored) {
-                // La colonne existe déjà
-            }
+        // Note de chaque match d'un joueur suivi, calculée une seule fois (par /performance ou au fil de l'eau)
+        String sqlMatchScores = "CREATE TABLE IF NOT EXISTS match_scores (" +
+                "match_id TEXT, " +
+                "puuid TEXT, " +
+                "game_creation INTEGER, " +
+                "win INTEGER, " +
+                "champion TEXT, " +
+                "role TEXT, " +
+                "tier TEXT, " +
+                "math_score REAL, " +
+                "pillars TEXT, " +
+                "adjusted_score REAL, " +
+                "scored_at INTEGER, " +
+                "PRIMARY KEY(match_id, puuid)" +
+                ");";
 
-            try {
-                stmt.execute("ALTER TABLE users ADD COLUMN last_audit TEXT");
-            } catch (SQLException ignored) {
-                // La colonne existe déjà
-            }
+        try {
+            pool.write(conn -> {
+                try (Statement stmt = conn.connection().createStatement()) {
+                    stmt.execute(sqlUsers);
+                    stmt.execute(sqlChatMessages);
+                    stmt.execute(sqlChatDigests);
+                    stmt.execute(sqlSnapshots);
+                    stmt.execute(sqlConfig);
+                    stmt.execute(sqlDailyPerformances);
+                    stmt.execute(sqlMatchScores);
+                    stmt.execute("CREATE INDEX IF NOT EXISTS idx_match_scores_puuid_time ON match_scores(puuid, game_creation)");
+
+                    // Migrations pour les anciennes bases de données
+                    try {
+                        stmt.execute("ALTER TABLE users ADD COLUMN region TEXT DEFAULT 'euw1'");
+                    } catch (SQLException ignored) {
+                        // La colonne existe déjà
+                    }
+
+                    try {
+                        stmt.execute("ALTER TABLE users ADD COLUMN last_audit TEXT");
+                    } catch (SQLException ignored) {
+                        // La colonne existe déjà
+                    }
+
+                    // Ancien stockage du chat (tout l'historique en un blob JSON) : sessions de 20 min, rien à conserver
+                    stmt.execute("DROP TABLE IF EXISTS chat_sessions");
+                }
+                return null;
+            });
         } catch (SQLException e) {
             System.out.println("Erreur init BDD: " + e.getMessage());
         }
     }
 
     // --- GESTION AUDITS PERFORMANCE (Utilisé par PerformanceCommand) ---
-    public synchronized void updateLastAudit(String discordId, String audit) {
+    public CompletableFuture<Void> updateLastAudit(String discordId, String audit) {
         String sql = "UPDATE users SET last_audit = ? WHERE discord_id = ?";
-        try (Connection conn = this.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return writer.submit("sauvegarde audit", conn -> {
+            PreparedStatement pstmt = conn.prepare(sql);
             pstmt.setString(1, audit);
             pstmt.setString(2, discordId);
-            pstmt.executeUpdate();
-        } catch (SQLException e) {
-            System.out.println("Erreur sauvegarde audit: " + e.getMessage());
-        }
+            return pstmt.executeUpdate();
+        });
     }
 
     public String getLastAudit(String discordId) {
         String sql = "SELECT last_audit FROM users WHERE discord_id = ?";
-        try (Connection conn = this.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, discordId);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return rs.getString("last_audit");
-            }
+        try {
+            return pool.read(conn -> {
+                PreparedStatement pstmt = conn.prepare(sql);
+                pstmt.setString(1, discordId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? rs.getString("last_audit") : null;
+                }
+            });
         } catch (SQLException e) {
             System.out.println("Erreur lecture audit: " + e.getMessage());
         }
@@ -116,27 +182,26 @@ public class DatabaseManager {
     }
 
     // --- GESTION CONFIGURATION ---
-    public synchronized void saveConfig(String key, String value) {
+    public CompletableFuture<Void> saveConfig(String key, String value) {
         String sql = "INSERT OR REPLACE INTO config(key, value) VALUES(?, ?)";
-        try (Connection conn = this.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return writer.submit("sauvegarde config", conn -> {
+            PreparedStatement pstmt = conn.prepare(sql);
             pstmt.setString(1, key);
             pstmt.setString(2, value);
-            pstmt.executeUpdate();
-        } catch (SQLException e) {
-            System.out.println("Erreur sauvegarde config: " + e.getMessage());
-        }
+            return pstmt.executeUpdate();
+        });
     }
 
     public String getConfig(String key) {
         String sql = "SELECT value FROM config WHERE key = ?";
-        try (Connection conn = this.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, key);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return rs.getString("value");
-            }
+        try {
+            return pool.read(conn -> {
+                PreparedStatement pstmt = conn.prepare(sql);
+                pstmt.setString(1, key);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? rs.getString("value") : null;
+                }
+            });
         } catch (SQLException e) {
             System.out.println("Erreur lecture config: " + e.getMessage());
         }
@@ -144,42 +209,36 @@ public class DatabaseManager {
     }
 
     // --- GESTION UTILISATEURS ---
-    public synchronized void saveUser(String discordId, String puuid, String summonerName, String region) {
+    public CompletableFuture<Void> saveUser(String discordId, String puuid, String summonerName, String region) {
         String sql = "INSERT OR REPLACE INTO users(discord_id, riot_puuid, summoner_name, region) VALUES(?, ?, ?, ?)";
-        try (Connection conn = this.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        UserRecord user = new UserRecord(discordId, puuid, summonerName, region);
+        UserRecord previous = users.put(user); // Visible tout de suite, écrit en base dans la foulée
+        CompletableFuture<Void> written = writer.submit("sauvegarde user", conn -> {
+            PreparedStatement pstmt = conn.prepare(sql);
             pstmt.setString(1, discordId);
             pstmt.setString(2, puuid);
             pstmt.setString(3, summonerName);
             pstmt.setString(4, region != null ? region : "euw1");
-            pstmt.executeUpdate();
-        } catch (SQLException e) {
-            System.out.println("Erreur sauvegarde user: " + e.getMessage());
-        }
+            return pstmt.executeUpdate();
+        });
+        // Écriture refusée : la mémoire ne doit pas promettre ce que la base n'a pas
+        written.whenComplete((v, e) -> {
+            if (e != null) users.rollback(user, previous);
+        });
+        return written;
     }
 
-    public void saveUser(String discordId, String puuid, String summonerName) {
-        saveUser(discordId, puuid, summonerName, "euw1");
+    public CompletableFuture<Void> saveUser(String discordId, String puuid, String summonerName) {
+        return saveUser(discordId, puuid, summonerName, "euw1");
     }
 
     public UserRecord getUser(String discordId) {
-        String sql = "SELECT riot_puuid, summoner_name, region FROM users WHERE discord_id = ?";
-        try (Connection conn = this.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, discordId);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return new UserRecord(
-                        discordId,
-                        rs.getString("riot_puuid"),
-                        rs.getString("summoner_name"),
-                        rs.getString("region")
-                );
-            }
-        } catch (SQLException e) {
-            System.out.println("Erreur lecture user: " + e.getMessage());
-        }
-        return null;
+        return users.byDiscordId(discordId);
+    }
+
+    /** Joueur suivi lié à ce compte Riot, null si personne ne l'a lié. */
+    public UserRecord getUserByPuuid(String puuid) {
+        return users.byPuuid(puuid);
     }
 
     public String getPuuid(String discordId) {
@@ -188,109 +247,207 @@ public class DatabaseManager {
     }
 
     public List<UserRecord> getAllUsers() {
-        List<UserRecord> users = new ArrayList<>();
+        return users.all();
+    }
+
+    private List<UserRecord> loadAllUsers() throws SQLException {
         String sql = "SELECT discord_id, riot_puuid, summoner_name, region FROM users";
-        try (Connection conn = this.connect();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                users.add(new UserRecord(
-                        rs.getString("discord_id"),
-                        rs.getString("riot_puuid"),
-                        rs.getString("summoner_name"),
-                        rs.getString("region")
-                ));
+        return pool.read(conn -> {
+            List<UserRecord> users = new ArrayList<>();
+            try (ResultSet rs = conn.prepare(sql).executeQuery()) {
+                while (rs.next()) {
+                    users.add(new UserRecord(
+                            rs.getString("discord_id"),
+                            rs.getString("riot_puuid"),
+                            rs.getString("summoner_name"),
+                            rs.getString("region")
+                    ));
+                }
             }
-        } catch (SQLException e) {
-            System.out.println("Erreur lecture liste users: " + e.getMessage());
-        }
-        return users;
+            return users;
+        });
     }
 
     // --- GESTION SESSION CHAT ---
-    public synchronized JSONArray getChatHistory(String discordId) {
-        String sql = "SELECT history, last_updated FROM chat_sessions WHERE discord_id = ?";
-
-        try (Connection conn = this.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, discordId);
-            ResultSet rs = pstmt.executeQuery();
+    // Une session = les messages d'un joueur, en ajout seul ; elle expire SESSION_TIMEOUT_MS après son dernier message.
+
+    /**
+     * Session de chat : résumé des anciens tours (chat_digests) + messages qu'il ne couvre pas encore,
+     * du plus ancien au plus récent (au plus maxMessages). Session vide si expirée.
+     */
+    public ChatSessionRecord getChatSession(String discordId, int maxMessages) {
+        String sqlDigest = "SELECT digest, covered_seq FROM chat_digests WHERE discord_id = ?";
+        String sqlMessages = "SELECT seq, role, content, tokens, created_at FROM chat_messages WHERE discord_id = ? AND seq > ? ORDER BY seq DESC LIMIT ?";
+        long cutoff = System.currentTimeMillis() - SESSION_TIMEOUT_MS;
+        try {
+            return pool.read(conn -> {
+                String digest = null;
+                long coveredSeq = 0;
+                PreparedStatement digestStmt = conn.prepare(sqlDigest);
+                digestStmt.setString(1, discordId);
+                try (ResultSet rs = digestStmt.executeQuery()) {
+                    if (rs.next()) {
+                        digest = rs.getString("digest");
+                        coveredSeq = rs.getLong("covered_seq");
+                    }
+                }
 
-            if (rs.next()) {
-                long lastUpdated = rs.getLong("last_updated");
-                if (System.currentTimeMillis() - lastUpdated > SESSION_TIMEOUT_MS) {
-                    deleteSessionInternal(conn, discordId);
-                    return new JSONArray();
+                PreparedStatement pstmt = conn.prepare(sqlMessages);
+                pstmt.setString(1, discordId);
+                pstmt.setLong(2, coveredSeq);
+                pstmt.setInt(3, maxMessages);
+                List<ChatMessageRecord> messages = new ArrayList<>();
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        messages.add(new ChatMessageRecord(rs.getLong("seq"), rs.getString("role"), rs.getString("content"),
+                                rs.getInt("tokens"), rs.getLong("created_at")));
+                    }
                 }
-                return new JSONArray(rs.getString("history"));
-            }
-        } catch (Exception e) {
+                // Le plus récent en tête : s'il est trop vieux, toute la session a expiré (le balayeur la supprimera).
+                // Le résumé ne couvre jamais les derniers messages : pas de message, pas de session.
+                if (messages.isEmpty() || messages.get(0).createdAt < cutoff) return ChatSessionRecord.EMPTY;
+                Collections.reverse(messages);
+                return new ChatSessionRecord(digest, coveredSeq, messages);
+            });
+        } catch (SQLException e) {
             System.out.println("Erreur lecture chat: " + e.getMessage());
         }
-        return new JSONArray();
+        return ChatSessionRecord.EMPTY;
     }
 
-    public synchronized void updateChatHistory(String discordId, JSONArray history) {
-        String sql = "INSERT OR REPLACE INTO chat_sessions(discord_id, history, last_updated) VALUES(?, ?, ?)";
-        try (Connection conn = this.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, discordId);
-            pstmt.setString(2, history.toString());
-            pstmt.setLong(3, System.currentTimeMillis());
-            pstmt.executeUpdate();
+    /** Messages de la session dans ]afterSeq, upToSeq], du plus ancien au plus récent (au plus limit) : la page à résumer. */
+    public List<ChatMessageRecord> getChatMessagesBetween(String discordId, long afterSeq, long upToSeq, int limit) {
+        String sql = "SELECT seq, role, content, tokens, created_at FROM chat_messages WHERE discord_id = ? AND seq > ? AND seq <= ? ORDER BY seq ASC LIMIT ?";
+        try {
+            return pool.read(conn -> {
+                PreparedStatement pstmt = conn.prepare(sql);
+                pstmt.setString(1, discordId);
+                pstmt.setLong(2, afterSeq);
+                pstmt.setLong(3, upToSeq);
+                pstmt.setInt(4, limit);
+                List<ChatMessageRecord> messages = new ArrayList<>();
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        messages.add(new ChatMessageRecord(rs.getLong("seq"), rs.getString("role"), rs.getString("content"),
+                                rs.getInt("tokens"), rs.getLong("created_at")));
+                    }
+                }
+                return messages;
+            });
         } catch (SQLException e) {
-            System.out.println("Erreur sauvegarde chat: " + e.getMessage());
+            System.out.println("Erreur lecture chat: " + e.getMessage());
         }
+        return new ArrayList<>();
     }
 
-    public synchronized void clearChatHistory(String discordId) {
-        try (Connection conn = this.connect()) {
-            deleteSessionInternal(conn, discordId);
-        } catch (SQLException e) {
-            System.out.println("Erreur suppression chat: " + e.getMessage());
-        }
+    /** Remplace le résumé de la session, sauf si un résumé couvrant déjà plus de messages a été écrit entre-temps. */
+    public CompletableFuture<Void> saveChatDigest(String discordId, String digest, long coveredSeq) {
+        String sql = "INSERT INTO chat_digests(discord_id, digest, covered_seq, tokens, updated_at) VALUES(?, ?, ?, ?, ?) " +
+                     "ON CONFLICT(discord_id) DO UPDATE SET digest = excluded.digest, covered_seq = excluded.covered_seq, " +
+                     "tokens = excluded.tokens, updated_at = excluded.updated_at WHERE excluded.covered_seq > chat_digests.covered_seq";
+        long now = System.currentTimeMillis();
+        return writer.submit("sauvegarde résumé chat", conn -> {
+            PreparedStatement pstmt = conn.prepare(sql);
+            pstmt.setString(1, discordId);
+            pstmt.setString(2, digest);
+            pstmt.setLong(3, coveredSeq);
+            pstmt.setInt(4, TokenEstimator.estimate(digest));
+            pstmt.setLong(5, now);
+            return pstmt.executeUpdate();
+        });
     }
 
-    private void deleteSessionInternal(Connection conn, String discordId) throws SQLException {
-        String sql = "DELETE FROM chat_sessions WHERE discord_id = ?";
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+    /** Ajoute la question et la réponse à la session (deux INSERT, quelle que soit la longueur de la conversation). */
+    public CompletableFuture<Void> appendChatExchange(String discordId, String question, String answer) {
+        long now = System.currentTimeMillis();
+        return writer.submit("sauvegarde chat", conn -> {
+            // Session expirée mais pas encore balayée : on repart de zéro plutôt que de la prolonger
+            PreparedStatement expire = conn.prepare("DELETE FROM chat_messages WHERE discord_id = ? AND " +
+                    "(SELECT created_at FROM chat_messages WHERE discord_id = ? ORDER BY seq DESC LIMIT 1) < ?");
+            expire.setString(1, discordId);
+            expire.setString(2, discordId);
+            expire.setLong(3, now - SESSION_TIMEOUT_MS);
+            if (expire.executeUpdate() > 0) deleteChatDigest(conn, discordId);
+
+            insertChatMessage(conn, discordId, "user", question, now);
+            return insertChatMessage(conn, discordId, "assistant", answer, now);
+        });
+    }
+
+    private int insertChatMessage(SqlitePool.PooledConnection conn, String discordId, String role, String content, long createdAt) throws SQLException {
+        // seq calculé par l'écrivain unique : pas de course entre deux ajouts
+        String sql = "INSERT INTO chat_messages(discord_id, seq, role, content, tokens, created_at) " +
+                     "VALUES(?, COALESCE((SELECT MAX(seq) FROM chat_messages WHERE discord_id = ?), 0) + 1, ?, ?, ?, ?)";
+        PreparedStatement pstmt = conn.prepare(sql);
+        pstmt.setString(1, discordId);
+        pstmt.setString(2, discordId);
+        pstmt.setString(3, role);
+        pstmt.setString(4, content);
+        pstmt.setInt(5, TokenEstimator.estimate(content));
+        pstmt.setLong(6, createdAt);
+        return pstmt.executeUpdate();
+    }
+
+    public CompletableFuture<Void> clearChatHistory(String discordId) {
+        return writer.submit("suppression chat", conn -> {
+            PreparedStatement pstmt = conn.prepare("DELETE FROM chat_messages WHERE discord_id = ?");
             pstmt.setString(1, discordId);
-            pstmt.executeUpdate();
-        }
+            deleteChatDigest(conn, discordId);
+            return pstmt.executeUpdate();
+        });
+    }
+
+    private int deleteChatDigest(SqlitePool.PooledConnection conn, String discordId) throws SQLException {
+        PreparedStatement pstmt = conn.prepare("DELETE FROM chat_digests WHERE discord_id = ?");
+        pstmt.setString(1, discordId);
+        return pstmt.executeUpdate();
+    }
+
+    /** Supprime les sessions dont le dernier message a plus de SESSION_TIMEOUT_MS. */
+    private void sweepExpiredSessions() {
+        long cutoff = System.currentTimeMillis() - SESSION_TIMEOUT_MS;
+        writer.submit("balayage sessions chat", conn -> {
+            PreparedStatement pstmt = conn.prepare("DELETE FROM chat_messages WHERE discord_id IN " +
+                    "(SELECT discord_id FROM chat_messages GROUP BY discord_id HAVING MAX(created_at) < ?)");
+            pstmt.setLong(1, cutoff);
+            int deleted = pstmt.executeUpdate();
+            conn.prepare("DELETE FROM chat_digests WHERE discord_id NOT IN (SELECT DISTINCT discord_id FROM chat_messages)").executeUpdate();
+            if (deleted > 0) System.out.println("Sessions chat expirées : " + deleted + " messages supprimés.");
+            return deleted;
+        });
     }
 
     // --- GESTION SNAPSHOTS ---
-    public synchronized void saveSnapshot(String discordId, String tier, String rank, int lp) {
+    public CompletableFuture<Void> saveSnapshot(String discordId, String tier, String rank, int lp) {
         String sql = "INSERT OR REPLACE INTO user_snapshots(discord_id, tier, rank, lp, timestamp) VALUES(?, ?, ?, ?, ?)";
-        try (Connection conn = this.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return writer.submit("sauvegarde snapshot", conn -> {
+            PreparedStatement pstmt = conn.prepare(sql);
             pstmt.setString(1, discordId);
             pstmt.setString(2, tier);
             pstmt.setString(3, rank);
             pstmt.setInt(4, lp);
             pstmt.setLong(5, System.currentTimeMillis());
-            pstmt.executeUpdate();
-        } catch (SQLException e) {
-            System.out.println("Erreur sauvegarde snapshot: " + e.getMessage());
-        }
+            return pstmt.executeUpdate();
+        });
     }
 
     public SnapshotRecord getSnapshot(String discordId) {
         String sql = "SELECT tier, rank, lp, timestamp FROM user_snapshots WHERE discord_id = ?";
-        try (Connection conn = this.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, discordId);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return new SnapshotRecord(
-                        discordId,
-                        rs.getString("tier"),
-                        rs.getString("rank"),
-                        rs.getInt("lp"),
-                        rs.getLong("timestamp")
-                );
-            }
+        try {
+            return pool.read(conn -> {
+                PreparedStatement pstmt = conn.prepare(sql);
+                pstmt.setString(1, discordId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (!rs.next()) return null;
+                    return new SnapshotRecord(
+                            discordId,
+                            rs.getString("tier"),
+                            rs.getString("rank"),
+                            rs.getInt("lp"),
+                            rs.getLong("timestamp")
+                    );
+                }
+            });
         } catch (SQLException e) {
             System.out.println("Erreur lecture snapshot: " + e.getMessage());
         }
@@ -298,10 +455,10 @@ public class DatabaseManager {
     }
 
     // --- GESTION DAILY PERFORMANCES ---
-    public synchronized void saveDailyPerformance(String discordId, String date, int gamesPlayed, int wins, double averageScore, int lpDiff, double mvpScore, String aiSummary) {
+    public CompletableFuture<Void> saveDailyPerformance(String discordId, String date, int gamesPlayed, int wins, double averageScore, int lpDiff, double mvpScore, String aiSummary) {
         String sql = "INSERT OR REPLACE INTO daily_performances(discord_id, date, games_played, wins, average_score, lp_diff, mvp_score, ai_summary) VALUES(?, ?, ?, ?, ?, ?, ?, ?)";
-        try (Connection conn = this.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return writer.submit("sauvegarde daily performance", conn -> {
+            PreparedStatement pstmt = conn.prepare(sql);
             pstmt.setString(1, discordId);
             pstmt.setString(2, date);
             pstmt.setInt(3, gamesPlayed);
@@ -310,68 +467,153 @@ public class DatabaseManager {
             pstmt.setInt(6, lpDiff);
             pstmt.setDouble(7, mvpScore);
             pstmt.setString(8, aiSummary);
-            pstmt.executeUpdate();
-        } catch (SQLException e) {
-            System.out.println("Erreur sauvegarde daily performance: " + e.getMessage());
-        }
+            return pstmt.executeUpdate();
+        });
     }
 
     public List<String> getBestPlayersOfPeriod(String fromDateString) {
-        List<String> bestDiscordIds = new ArrayList<>();
         String sql = "SELECT discord_id, AVG(mvp_score) as final_score FROM daily_performances WHERE date >= ? AND games_played > 0 GROUP BY discord_id ORDER BY final_score DESC";
 
-        try (Connection conn = this.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, fromDateString);
-            ResultSet rs = pstmt.executeQuery();
-
-            double bestScore = -1.0;
-            boolean first = true;
-
-            while (rs.next()) {
-                double score = rs.getDouble("final_score");
-                String discordId = rs.getString("discord_id");
-
-                if (first) {
-                    bestScore = score;
-                    bestDiscordIds.add(discordId);
-                    first = false;
-                } else {
-                    if (Double.compare(score, bestScore) == 0) {
-                        bestDiscordIds.add(discordId);
-                    } else {
-                        break;
+        try {
+            return pool.read(conn -> {
+                List<String> bestDiscordIds = new ArrayList<>();
+                PreparedStatement pstmt = conn.prepare(sql);
+                pstmt.setString(1, fromDateString);
+
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    double bestScore = -1.0;
+                    boolean first = true;
+
+                    while (rs.next()) {
+                        double score = rs.getDouble("final_score");
+                        String discordId = rs.getString("discord_id");
+
+                        if (first) {
+                            bestScore = score;
+                            bestDiscordIds.add(discordId);
+                            first = false;
+                        } else {
+                            if (Double.compare(score, bestScore) == 0) {
+                                bestDiscordIds.add(discordId);
+                            } else {
+                                break;
+                            }
+                        }
                     }
                 }
-            }
+                return bestDiscordIds;
+            });
         } catch (SQLException e) {
             System.out.println("Erreur calcul meilleurs joueurs: " + e.getMessage());
         }
-        return bestDiscordIds;
+        return new ArrayList<>();
     }
 
     public PeriodStats getPlayerPeriodStats(String discordId, String fromDateString) {
         String sql = "SELECT SUM(games_played) as total_games, SUM(wins) as total_wins, AVG(average_score) as avg_score, AVG(mvp_score) as avg_mvp " +
                      "FROM daily_performances WHERE discord_id = ? AND date >= ?";
-        try (Connection conn = connect(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, discordId);
-            pstmt.setString(2, fromDateString);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next() && rs.getInt("total_games") > 0) {
-                PeriodStats stats = new PeriodStats();
-                stats.totalGames = rs.getInt("total_games");
-                stats.totalWins = rs.getInt("total_wins");
-                stats.avgScore = rs.getDouble("avg_score");
-                stats.avgMvpScore = rs.getDouble("avg_mvp");
-                return stats;
-            }
+        try {
+            return pool.read(conn -> {
+                PreparedStatement pstmt = conn.prepare(sql);
+                pstmt.setString(1, discordId);
+                pstmt.setString(2, fromDateString);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (!rs.next() || rs.getInt("total_games") <= 0) return null;
+                    PeriodStats stats = new PeriodStats();
+                    stats.totalGames = rs.getInt("total_games");
+                    stats.totalWins = rs.getInt("total_wins");
+                    stats.avgScore = rs.getDouble("avg_score");
+                    stats.avgMvpScore = rs.getDouble("avg_mvp");
+                    return stats;
+                }
+            });
         } catch (SQLException e) {
             System.out.println("Erreur getPlayerPeriodStats: " + e.getMessage());
         }
         return null;
     }
 
+    // --- GESTION MATCH SCORES (Récap incrémental) ---
+    public CompletableFuture<Void> saveMatchScore(MatchScoreRecord score) {
+        // Un nouveau calcul mathématique ne doit pas effacer la note ajustée par l'Analyste
+        String sql = "INSERT INTO match_scores(match_id, puuid, game_creation, win, champion, role, tier, math_score, pillars, adjusted_score, scored_at) " +
+                     "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+                     "ON CONFLICT(match_id, puuid) DO UPDATE SET game_creation = excluded.game_creation, win = excluded.win, " +
+                     "champion = excluded.champion, role = excluded.role, tier = excluded.tier, math_score = excluded.math_score, " +
+                     "pillars = excluded.pillars, adjusted_score = COALESCE(excluded.adjusted_score, match_scores.adjusted_score), " +
+                     "scored_at = excluded.scored_at";
+        return writer.submit("sauvegarde match score", conn -> {
+            PreparedStatement pstmt = conn.prepare(sql);
+            pstmt.setString(1, score.matchId);
+            pstmt.setString(2, score.puuid);
+            pstmt.setLong(3, score.gameCreation);
+            pstmt.setInt(4, score.win ? 1 : 0);
+            pstmt.setString(5, score.champion);
+            pstmt.setString(6, score.role);
+            pstmt.setString(7, score.tier);
+            pstmt.setDouble(8, score.mathScore);
+            pstmt.setString(9, score.pillars);
+            if (score.adjustedScore != null) pstmt.setDouble(10, score.adjustedScore);
+            else pstmt.setNull(10, Types.REAL);
+            pstmt.setLong(11, System.currentTimeMillis());
+            return pstmt.executeUpdate();
+        });
+    }
+
+    public CompletableFuture<Void> updateAdjustedScore(String matchId, String puuid, double adjustedScore) {
+        String sql = "UPDATE match_scores SET adjusted_score = ? WHERE match_id = ? AND puuid = ?";
+        return writer.submit("sauvegarde note ajustée", conn -> {
+            PreparedStatement pstmt = conn.prepare(sql);
+            pstmt.setDouble(1, adjustedScore);
+            pstmt.setString(2, matchId);
+            pstmt.setString(3, puuid);
+            return pstmt.executeUpdate();
+        });
+    }
+
+    /** Parmi matchIds, ceux déjà notés pour ce joueur. */
+    public Set<String> getScoredMatchIds(String puuid, List<String> matchIds) {
+        if (matchIds.isEmpty()) return new HashSet<>();
+        // Pas de filtre sur la date : un vieux match déjà noté ne doit pas être re-noté (avec le rang actuel)
+        String sql = "SELECT match_id FROM match_scores WHERE puuid = ? AND match_id IN ("
+                + String.join(",", Collections.nCopies(matchIds.size(), "?")) + ")";
+        try {
+            return pool.read(conn -> {
+                Set<String> ids = new HashSet<>();
+                PreparedStatement pstmt = conn.prepare(sql);
+                pstmt.setString(1, puuid);
+                for (int i = 0; i < matchIds.size(); i++) pstmt.setString(i + 2, matchIds.get(i));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) ids.add(rs.getString("match_id"));
+                }
+                return ids;
+            });
+        } catch (SQLException e) {
+            System.out.println("Erreur lecture match scores: " + e.getMessage());
+        }
+        return new HashSet<>();
+    }
+
+    /** Agrégat des matchs notés depuis sinceMillis : c'est l'entrée de daily_performances. */
+    public MatchScoreStats getMatchScoreStats(String puuid, long sinceMillis) {
+        String sql = "SELECT COUNT(*) as games, COALESCE(SUM(win), 0) as wins, COALESCE(AVG(math_score), 0) as avg_score " +
+                     "FROM match_scores WHERE puuid = ? AND game_creation >= ?";
+        try {
+            MatchScoreStats stats = pool.read(conn -> {
+                PreparedStatement pstmt = conn.prepare(sql);
+                pstmt.setString(1, puuid);
+                pstmt.setLong(2, sinceMillis);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? new MatchScoreStats(rs.getInt("games"), rs.getInt("wins"), rs.getDouble("avg_score")) : null;
+                }
+            });
+            if (stats != null) return stats;
+        } catch (SQLException e) {
+            System.out.println("Erreur agrégat match scores: " + e.getMessage());
+        }
+        return new MatchScoreStats(0, 0, 0.0);
+    }
+
     public static class UserRecord {
         public String discordId;
         public String puuid;
@@ -391,6 +633,42 @@ public class DatabaseManager {
         }
     }
 
+    public static class ChatMessageRecord {
+        public long seq;
+        public String role;      // "user" ou "assistant"
+        public String content;
+        public int tokens;       // Estimation (TokenEstimator)
+        public long createdAt;
+
+        public ChatMessageRecord(long seq, String role, String content, int tokens, long createdAt) {
+            this.seq = seq;
+            this.role = role;
+            this.content = content;
+            this.tokens = tokens;
+            this.createdAt = createdAt;
+        }
+    }
+
+    public static class ChatSessionRecord {
+        public static final ChatSessionRecord EMPTY = new ChatSessionRecord(null, 0, List.of());
+
+        public String digest;                    // null tant qu'aucune compaction n'a eu lieu
+        public long coveredSeq;                  // Dernier message couvert par le résumé
+        public List<ChatMessageRecord> messages; // Messages non résumés, du plus ancien au plus récent
+
+        public ChatSessionRecord(String digest, long coveredSeq, List<ChatMessageRecord> messages) {
+            this.digest = digest;
+            this.coveredSeq = coveredSeq;
+            this.messages = messages;
+        }
+
+        public int messageTokens() {
+            int total = 0;
+            for (ChatMessageRecord message : messages) total += message.tokens;
+            return total;
+        }
+    }
+
     public static class SnapshotRecord {
         public String discordId;
         public String tier;
@@ -435,4 +713,42 @@ public class DatabaseManager {
         public double avgScore;
         public double avgMvpScore;
     }
-}
\ No newline at end of file
+
+    public static class MatchScoreRecord {
+        public String matchId;
+        public String puuid;
+        public long gameCreation;
+        public boolean win;
+        public String champion;
+        public String role;
+        public String tier;
+        public double mathScore;
+        public String pillars;        // JSON des piliers du ScoreCalculator
+        public Double adjustedScore;  // Note de l'Analyste IA, null tant qu'il n'est pas passé
+
+        public MatchScoreRecord(String matchId, String puuid, long gameCreation, boolean win, String champion, String role, String tier, double mathScore, String pillars, Double adjustedScore) {
+            this.matchId = matchId;
+            this.puuid = puuid;
+            this.gameCreation = gameCreation;
+            this.win = win;
+            this.champion = champion;
+            this.role = role;
+            this.tier = tier;
+            this.mathScore = mathScore;
+            this.pillars = pillars;
+            this.adjustedScore = adjustedScore;
+        }
+    }
+
+    public static class MatchScoreStats {
+        public int games;
+        public int wins;
+        public double averageScore;
+
+        public MatchScoreStats(int games, int wins, double averageScore) {
+            this.games = games;
+            this.wins = wins;
+            this.averageScore = averageScore;
+        }
+    }
+}
@@ -9,9 +9,13 @@ import net.dv8tion.jda.api.utils.MemberCachePolicy;
 import io.github.cdimascio.dotenv.Dotenv;
 import org.example.command.*;
 import org.example.service.*;
+import org.example.util.ExecutorFactory;
+import org.example.util.Metrics;
+import org.example.util.MetricsServer;
+import org.example.util.TimedExecutor;
 
+import java.io.IOException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class LolBot extends ListenerAdapter {
 
@@ -19,19 +23,25 @@ public class LolBot extends ListenerAdapter {
         Dotenv dotenv = Dotenv.load();
 
         // Initialisation des services
-        ExecutorService executor = Executors.newFixedThreadPool(10);
+        // EXECUTOR_MODE=virtual : un thread virtuel par commande, la concurrence est bornée par ressource (Mistral, Tavily...)
+        ExecutorService executor = new TimedExecutor("command", ExecutorFactory.newTaskExecutor("command", 10), true);
         DatabaseManager db = new DatabaseManager();
-        RiotService riotService = new RiotService(dotenv.get("RIOT_API_KEY"));
+        MatchStore matchStore = new MatchStore();
+        // RIOT_API_BASE_URL (optionnel) : serveur Riot de substitution pour le rejeu hors-ligne
+        RiotService riotService = new RiotService(dotenv.get("RIOT_API_KEY"), matchStore, dotenv.get("RIOT_API_BASE_URL"));
         TavilyService tavilyService = new TavilyService();
         MistralService mistralService = new MistralService(riotService, tavilyService);
         AiContextService aiContextService = new AiContextService(db, riotService);
         BenchmarkService benchmarkService = new BenchmarkService();
+        MatchScoreService matchScoreService = new MatchScoreService(db, riotService, benchmarkService);
+        PerformanceService performanceService = new PerformanceService(riotService, mistralService, benchmarkService);
+        ChatMemoryService chatMemoryService = new ChatMemoryService(db, mistralService);
 
         // Injection des utilisateurs par défaut
         injectDefaultUsers(db, riotService);
 
         // Création du contexte global
-        BotContext context = new BotContext(db, riotService, mistralService, aiContextService, benchmarkService, executor);
+        BotContext context = new BotContext(db, riotService, mistralService, aiContextService, benchmarkService, matchScoreService, performanceService, chatMemoryService, executor);
 
         // Gestionnaire de commandes
         CommandManager commandManager = new CommandManager(context);
@@ -48,6 +58,7 @@ public class LolBot extends ListenerAdapter {
         commandManager.addCommand(new SetRecapChannelCommand());
         commandManager.addCommand(new PerformanceDetailsCommand());
         commandManager.addCommand(new PerformanceTestCommand());
+        commandManager.addCommand(new MetricsCommand());
 
 
         // Démarrage du bot
@@ -65,7 +76,26 @@ public class LolBot extends ListenerAdapter {
         ).queue();
         
         // Démarrage du service de récap quotidien
-        new DailyRecapService(db, riotService, jda, mistralService);
+        new DailyRecapService(db, riotService, jda, mistralService, matchScoreService);
+
+        // Ingestion continue : les matchs sont notés dès qu'ils tombent
+        new MatchIngestionService(db, riotService, matchScoreService).start();
+
+        // Rapport de métriques dans les logs (METRICS_DUMP_MINUTES=0 pour désactiver)
+        Metrics.startPeriodicDump(Long.parseLong(dotenv.get("METRICS_DUMP_MINUTES", "15").trim()));
+
+        // Point de collecte Prometheus (METRICS_PORT=0 pour désactiver).
+        // Local par défaut : l'exposer sur le réseau (METRICS_HOST=0.0.0.0) doit être un choix explicite
+        int metricsPort = Integer.parseInt(dotenv.get("METRICS_PORT", "9464").trim());
+        if (metricsPort > 0) {
+            String metricsHost = dotenv.get("METRICS_HOST", "127.0.0.1").trim();
+            try {
+                new MetricsServer(metricsHost, metricsPort);
+                System.out.println("Métriques Prometheus : http://" + metricsHost + ":" + metricsPort + "/metrics");
+            } catch (IOException e) {
+                System.err.println("Serveur de métriques non démarré : " + e.getMessage());
+            }
+        }
 
         System.out.println("Bot démarré !");
     }
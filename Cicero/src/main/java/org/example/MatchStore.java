@@ -0,0 +1,208 @@
+package org.example;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.sqlite.SQLiteConfig;
+
+/**
+ * Stockage durable des JSON bruts de Riot (match & timeline).
+ * Une partie terminée ne change plus : une fois téléchargée, on ne la redemande jamais à l'API.
+ * Les payloads sont compressés en GZIP et la taille totale est bornée (les parties les moins
+ * consultées récemment sont supprimées en premier).
+ */
+public class MatchStore {
+    public static final String KIND_MATCH = "match";
+    public static final String KIND_TIMELINE = "timeline";
+
+    private static final long DEFAULT_MAX_BYTES = 512L * 1024 * 1024; // 512 Mo compressés
+    private static final double EVICTION_TARGET = 0.9; // On redescend à 90% pour ne pas purger à chaque insertion
+
+    private final String url;
+    private final long maxBytes;
+    private final AtomicLong storedBytes = new AtomicLong(0);
+
+    public MatchStore() {
+        this("match_store.db", DEFAULT_MAX_BYTES);
+    }
+
+    public MatchStore(String path, long maxBytes) {
+        this.url = "jdbc:sqlite:" + path;
+        this.maxBytes = maxBytes;
+        createTables();
+    }
+
+    private Connection connect() throws SQLException {
+        // Base séparée de lolbot.db : les gros blobs n'alourdissent pas les requêtes utilisateurs
+        SQLiteConfig config = new SQLiteConfig();
+        config.setBusyTimeout(5000);
+        config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        config.setSynchronous(SQLiteConfig.SynchronousMode.NORMAL);
+        return DriverManager.getConnection(url, config.toProperties());
+    }
+
+    private void createTables() {
+        String sqlPayloads = "CREATE TABLE IF NOT EXISTS match_payloads (" +
+                "match_id TEXT NOT NULL, " +
+                "kind TEXT NOT NULL, " +
+                "payload BLOB NOT NULL, " +
+                "raw_size INTEGER NOT NULL, " +
+                "stored_size INTEGER NOT NULL, " +
+                "last_access INTEGER NOT NULL, " +
+                "PRIMARY KEY(match_id, kind)" +
+                ");";
+
+        try (Connection conn = this.connect();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute(sqlPayloads);
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_match_payloads_access ON match_payloads(last_access)");
+
+            ResultSet rs = stmt.executeQuery("SELECT COALESCE(SUM(stored_size), 0) FROM match_payloads");
+            if (rs.next()) storedBytes.set(rs.getLong(1));
+        } catch (SQLException e) {
+            System.out.println("Erreur init MatchStore: " + e.getMessage());
+        }
+    }
+
+    /** @return le JSON brut, ou null s'il n'a jamais été stocké (ou a été purgé). */
+    public String load(String matchId, String kind) {
+        byte[] compressed = loadCompressed(matchId, kind);
+        if (compressed == null) return null;
+        try {
+            return decompress(compressed);
+        } catch (IOException e) {
+            System.out.println("Payload corrompu pour " + matchId + "/" + kind + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** Flux décompressé à la volée, pour les lecteurs en streaming (null si absent). */
+    public InputStream openStream(String matchId, String kind) {
+        byte[] compressed = loadCompressed(matchId, kind);
+        if (compressed == null) return null;
+        try {
+            return new GZIPInputStream(new ByteArrayInputStream(compressed));
+        } catch (IOException e) {
+            System.out.println("Payload corrompu pour " + matchId + "/" + kind + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private byte[] loadCompressed(String matchId, String kind) {
+        String sql = "SELECT payload FROM match_payloads WHERE match_id = ? AND kind = ?";
+        byte[] compressed = null;
+        try (Connection conn = this.connect();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, matchId);
+            pstmt.setString(2, kind);
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) compressed = rs.getBytes("payload");
+
+            if (compressed != null) {
+                try (PreparedStatement touch = conn.prepareStatement(
+                        "UPDATE match_payloads SET last_access = ? WHERE match_id = ? AND kind = ?")) {
+                    touch.setLong(1, System.currentTimeMillis());
+                    touch.setString(2, matchId);
+                    touch.setString(3, kind);
+                    touch.executeUpdate();
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println("Erreur lecture MatchStore: " + e.getMessage());
+            return null;
+        }
+        return compressed;
+    }
+
+    public void save(String matchId, String kind, String json) {
+        save(matchId, kind, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** @param raw JSON brut en UTF-8 */
+    public synchronized void save(String matchId, String kind, byte[] raw) {
+        byte[] compressed;
+        try {
+            compressed = compress(raw);
+        } catch (IOException e) {
+            System.out.println("Erreur compression MatchStore: " + e.getMessage());
+            return;
+        }
+
+        String sql = "INSERT OR REPLACE INTO match_payloads(match_id, kind, payload, raw_size, stored_size, last_access) " +
+                "VALUES(?, ?, ?, ?, ?, ?)";
+        try (Connection conn = this.connect()) {
+            long previousSize = 0;
+            try (PreparedStatement sizeStmt = conn.prepareStatement(
+                    "SELECT stored_size FROM match_payloads WHERE match_id = ? AND kind = ?")) {
+                sizeStmt.setString(1, matchId);
+                sizeStmt.setString(2, kind);
+                ResultSet rs = sizeStmt.executeQuery();
+                if (rs.next()) previousSize = rs.getLong(1);
+            }
+
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, matchId);
+                pstmt.setString(2, kind);
+                pstmt.setBytes(3, compressed);
+                pstmt.setInt(4, raw.length);
+                pstmt.setInt(5, compressed.length);
+                pstmt.setLong(6, System.currentTimeMillis());
+                pstmt.executeUpdate();
+            }
+            storedBytes.addAndGet(compressed.length - previousSize);
+
+            if (storedBytes.get() > maxBytes) evict(conn);
+        } catch (SQLException e) {
+            System.out.println("Erreur sauvegarde MatchStore: " + e.getMessage());
+        }
+    }
+
+    public long getStoredBytes() {
+        return storedBytes.get();
+    }
+
+    // --- RÉTENTION ---
+
+    private void evict(Connection conn) throws SQLException {
+        long target = (long) (maxBytes * EVICTION_TARGET);
+        int removed = 0;
+        try (PreparedStatement select = conn.prepareStatement(
+                     "SELECT match_id, kind, stored_size FROM match_payloads ORDER BY last_access ASC");
+             PreparedStatement delete = conn.prepareStatement(
+                     "DELETE FROM match_payloads WHERE match_id = ? AND kind = ?")) {
+            ResultSet rs = select.executeQuery();
+            while (storedBytes.get() > target && rs.next()) {
+                delete.setString(1, rs.getString("match_id"));
+                delete.setString(2, rs.getString("kind"));
+                delete.addBatch();
+                storedBytes.addAndGet(-rs.getLong("stored_size"));
+                removed++;
+            }
+            rs.close();
+            if (removed > 0) delete.executeBatch();
+        }
+        System.out.println("MatchStore : " + removed + " payload(s) purgé(s), " + (storedBytes.get() / 1024) + " Ko restants.");
+    }
+
+    // --- COMPRESSION ---
+
+    private static byte[] compress(byte[] raw) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(raw.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bos)) {
+            gzip.write(raw);
+        }
+        return bos.toByteArray();
+    }
+
+    private static String decompress(byte[] compressed) throws IOException {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package org.example;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.example.util.Metrics;
+import org.sqlite.SQLiteConfig;
+
+/**
+ * Connexions SQLite ouvertes une fois pour toutes : un seul écrivain (SQLite n'en accepte qu'un à la fois)
+ * et N lecteurs qui, en WAL, lisent sans jamais attendre l'écrivain.
+ * Chaque connexion garde ses PreparedStatement : une requête déjà vue n'est plus recompilée.
+ *
+ * Les statements rendus par PooledConnection.prepare() appartiennent au pool : ne pas les fermer
+ * (fermer seulement les ResultSet).
+ */
+public class SqlitePool implements AutoCloseable {
+
+    private static final int STATEMENT_CACHE_SIZE = 64; // Par connexion : largement plus que le nombre de requêtes distinctes
+    private static final long ACQUIRE_TIMEOUT_MS = 10_000;
+
+    @FunctionalInterface
+    public interface SqlWork<T> {
+        T run(PooledConnection conn) throws SQLException;
+    }
+
+    private final String url;
+    private final String name;
+    private final PooledConnection writer;
+    private final ReentrantLock writeLock = new ReentrantLock(true);
+    private final BlockingQueue<PooledConnection> readers;
+
+    public SqlitePool(String url, String name, int readerCount) throws SQLException {
+        this.url = url;
+        this.name = name;
+        // L'écrivain d'abord : c'est lui qui passe la base en WAL avant que les lecteurs ne l'ouvrent
+        this.writer = new PooledConnection(open());
+        this.readers = new ArrayBlockingQueue<>(Math.max(1, readerCount));
+        for (int i = 0; i < Math.max(1, readerCount); i++) {
+            readers.add(new PooledConnection(open()));
+        }
+    }
+
+    private Connection open() throws SQLException {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setBusyTimeout(5000); // Attendre jusqu'à 5000ms si la DB est verrouillée
+        config.setJournalMode(SQLiteConfig.JournalMode.WAL); // Write-Ahead Logging pour meilleure concurrence
+        config.setSynchronous(SQLiteConfig.SynchronousMode.NORMAL);
+        return DriverManager.getConnection(url, config.toProperties());
+    }
+
+    /** Lecture sur une connexion lectrice (attend qu'une se libère si toutes sont prises). */
+    public <T> T read(SqlWork<T> work) throws SQLException {
+        long start = System.nanoTime();
+        PooledConnection conn;
+        try {
+            conn = readers.poll(ACQUIRE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrompu en attente d'une connexion " + name, e);
+        }
+        if (conn == null) throw new SQLException("Aucune connexion de lecture libre (" + name + ")");
+        Metrics.timer("db_pool_wait", "db", name, "mode", "read").recordNanos(System.nanoTime() - start);
+
+        try {
+            return work.run(conn);
+        } catch (SQLException e) {
+            conn.reopenIfBroken();
+            throw e;
+        } finally {
+            readers.add(conn);
+        }
+    }
+
+    /** Écriture (ou lecture suivie d'écriture) sur la connexion unique de l'écrivain, en autocommit. */
+    public <T> T write(SqlWork<T> work) throws SQLException {
+        lockWriter();
+        try {
+            return work.run(writer);
+        } catch (SQLException e) {
+            writer.reopenIfBroken();
+            throw e;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /** Plusieurs écritures dans une seule transaction (un seul fsync) ; annulée en bloc si l'une échoue. */
+    public <T> T transaction(SqlWork<T> work) throws SQLException {
+        lockWriter();
+        try {
+            Connection c = writer.connection;
+            c.setAutoCommit(false);
+            try {
+                T result = work.run(writer);
+                c.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            writer.reopenIfBroken();
+            throw e;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void lockWriter() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            if (!writeLock.tryLock(ACQUIRE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Écrivain " + name + " occupé depuis plus de " + ACQUIRE_TIMEOUT_MS + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrompu en attente de l'écrivain " + name, e);
+        }
+        Metrics.timer("db_pool_wait", "db", name, "mode", "write").recordNanos(System.nanoTime() - start);
+    }
+
+    @Override
+    public void close() {
+        writer.close();
+        readers.forEach(PooledConnection::close);
+    }
+
+    /** Connexion du pool + ses statements préparés (LRU). Utilisée par un seul thread à la fois. */
+    public final class PooledConnection {
+        private Connection connection;
+        private final Map<String, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= STATEMENT_CACHE_SIZE) return false;
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        /** Statement préparé mis en cache, paramètres remis à zéro. Ne pas le fermer. */
+        public PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement pstmt = statements.get(sql);
+            if (pstmt == null || pstmt.isClosed()) {
+                pstmt = connection.prepareStatement(sql);
+                statements.put(sql, pstmt);
+            } else {
+                pstmt.clearParameters();
+            }
+            return pstmt;
+        }
+
+        /** Accès direct (DDL, Statement ponctuel) ; ne pas la fermer. */
+        public Connection connection() {
+            return connection;
+        }
+
+        private void reopenIfBroken() {
+            try {
+                if (!connection.isClosed()) return;
+            } catch (SQLException ignored) {
+                // On la considère perdue
+            }
+            statements.clear();
+            try {
+                connection = open();
+                System.out.println("Connexion " + name + " rouverte.");
+            } catch (SQLException e) {
+                System.out.println("Réouverture connexion " + name + " impossible: " + e.getMessage());
+            }
+        }
+
+        private void close() {
+            statements.values().forEach(SqlitePool::closeQuietly);
+            statements.clear();
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+                // Fermeture en fin de vie du bot
+            }
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement pstmt) {
+        try {
+            pstmt.close();
+        } catch (SQLException ignored) {
+            // Statement déjà invalide
+        }
+    }
+}
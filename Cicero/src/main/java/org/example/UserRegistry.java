@@ -0,0 +1,65 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.example.DatabaseManager.UserRecord;
+
+/**
+ * Copie en mémoire de la table users, chargée une fois au démarrage puis tenue à jour par saveUser
+ * (write-through) : résoudre un joueur ne touche plus le disque.
+ * Les UserRecord rendus sont partagés : ne pas les modifier.
+ */
+class UserRegistry {
+
+    private final Map<String, UserRecord> byDiscordId = new ConcurrentHashMap<>();
+    private final Map<String, UserRecord> byPuuid = new ConcurrentHashMap<>();
+
+    UserRegistry(List<UserRecord> users) {
+        users.forEach(this::put);
+    }
+
+    UserRecord byDiscordId(String discordId) {
+        return discordId != null ? byDiscordId.get(discordId) : null;
+    }
+
+    UserRecord byPuuid(String puuid) {
+        return puuid != null ? byPuuid.get(puuid) : null;
+    }
+
+    /** Même ordre d'un appel à l'autre (par Discord ID), comme une lecture de la table. */
+    List<UserRecord> all() {
+        List<UserRecord> users = new ArrayList<>(byDiscordId.values());
+        users.sort(Comparator.comparing(u -> u.discordId));
+        return users;
+    }
+
+    int size() {
+        return byDiscordId.size();
+    }
+
+    /** @return l'enregistrement remplacé (null si nouveau joueur) */
+    synchronized UserRecord put(UserRecord user) {
+        UserRecord previous = byDiscordId.put(user.discordId, user);
+        // Compte Riot changé (/link) : l'ancien PUUID ne doit plus pointer vers ce joueur
+        if (previous != null && !previous.puuid.equals(user.puuid)) {
+            byPuuid.remove(previous.puuid, previous);
+        }
+        byPuuid.put(user.puuid, user);
+        return previous;
+    }
+
+    /** Annule put(failed) si rien ne l'a remplacé depuis (écriture en base échouée). */
+    synchronized void rollback(UserRecord failed, UserRecord previous) {
+        if (byDiscordId.get(failed.discordId) != failed) return;
+        byPuuid.remove(failed.puuid, failed);
+        if (previous == null) {
+            byDiscordId.remove(failed.discordId);
+        } else {
+            byDiscordId.put(previous.discordId, previous);
+            byPuuid.put(previous.puuid, previous);
+        }
+    }
+}
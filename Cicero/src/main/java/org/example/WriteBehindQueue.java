@@ -0,0 +1,123 @@
+package org.example;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.example.util.Metrics;
+
+/**
+ * Écrivain unique de lolbot.db : les écritures sont mises en file et appliquées par un thread dédié,
+ * regroupées en transactions (un seul commit pour tout ce qui s'est accumulé pendant le précédent).
+ * L'appelant ne bloque plus sur SQLite ; il récupère un futur s'il a besoin de savoir la donnée écrite.
+ * L'ordre de soumission est conservé (FIFO).
+ */
+class WriteBehindQueue implements AutoCloseable {
+
+    private static final int MAX_BATCH = 128;
+    private static final int CAPACITY = 10_000; // Au-delà, submit() bloque : l'appelant ralentit au lieu de saturer la mémoire
+
+    private record WriteOp(String label, SqlitePool.SqlWork<?> work, CompletableFuture<Void> done) {}
+
+    private final SqlitePool pool;
+    private final String name;
+    private final BlockingQueue<WriteOp> queue = new LinkedBlockingQueue<>(CAPACITY);
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    WriteBehindQueue(SqlitePool pool, String name) {
+        this.pool = pool;
+        this.name = name;
+        Metrics.gauge("db_write_queue", queue::size, "db", name);
+
+        this.thread = new Thread(this::loop, name + "-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+        // Les écritures encore en file sont appliquées avant l'arrêt de la JVM
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, name + "-writer-flush"));
+    }
+
+    /** @param label utilisé dans le log en cas d'échec ("sauvegarde user"...) */
+    CompletableFuture<Void> submit(String label, SqlitePool.SqlWork<?> work) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        if (!running) {
+            done.completeExceptionally(new SQLException("Écrivain " + name + " arrêté"));
+            return done;
+        }
+        try {
+            queue.put(new WriteOp(label, work, done));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            done.completeExceptionally(e);
+        }
+        return done;
+    }
+
+    private void loop() {
+        List<WriteOp> batch = new ArrayList<>(MAX_BATCH);
+        while (running || !queue.isEmpty()) {
+            try {
+                WriteOp first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                apply(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                System.out.println("Erreur écrivain " + name + ": " + e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void apply(List<WriteOp> batch) {
+        long start = System.nanoTime();
+        try {
+            pool.transaction(conn -> {
+                for (WriteOp op : batch) op.work().run(conn);
+                return null;
+            });
+            batch.forEach(op -> op.done().complete(null));
+        } catch (SQLException | RuntimeException e) {
+            // Une écriture invalide ne doit pas faire perdre les autres : on rejoue une par une
+            for (WriteOp op : batch) applyAlone(op);
+        }
+        Metrics.timer("db_write_batch", "db", name).recordNanos(System.nanoTime() - start);
+    }
+
+    private void applyAlone(WriteOp op) {
+        try {
+            pool.write(op.work());
+            op.done().complete(null);
+        } catch (SQLException | RuntimeException e) {
+            System.out.println("Erreur " + op.label() + ": " + e.getMessage());
+            Metrics.increment("db_write_errors", "db", name);
+            op.done().completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Arrête l'écrivain après avoir appliqué tout ce qui est en file.
+     * Pas d'interrupt() : il ferait échouer l'écriture en cours (attente du verrou, driver SQLite).
+     */
+    @Override
+    public synchronized void close() {
+        if (!running) return;
+        running = false;
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Soumises pendant l'arrêt : appliquées ici plutôt que perdues
+        List<WriteOp> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) apply(rest);
+    }
+}
@@ -6,9 +6,8 @@ import net.dv8tion.jda.api.interactions.commands.build.CommandData;
 import net.dv8tion.jda.api.interactions.commands.build.Commands;
 import org.example.DatabaseManager;
 import org.example.service.AiContextService;
+import org.example.service.ChatMemoryService;
 import org.example.service.ai.PromptRegistry;
-import org.json.JSONArray;
-import org.json.JSONObject;
 
 public class AnalyzeCommand implements SlashCommand {
 
@@ -54,21 +53,19 @@ public class AnalyzeCommand implements SlashCommand {
                 // (Normalement AiContextService ne l'ajoute plus, donc on l'ajoute ici)
                 fullContext.append(PromptRegistry.ANALYZE_COMMAND_CONTEXT);
 
-                // 3. Récupération de l'historique
-                JSONArray history = ctx.db().getChatHistory(discordId);
+                // 3. Mémoire de la conversation : résumé des anciens tours + derniers messages
+                ChatMemoryService.Conversation conversation = ctx.chatMemoryService().load(discordId);
 
                 // 4. Appel au service Mistral
                 String aiResponse = ctx.mistralService().chatWithHistory(
-                        history,
+                        conversation.digest(),
+                        conversation.recentHistory(),
                         fullContext.toString(),
                         userQuestion
                 );
 
                 // 5. Sauvegarde de l'échange
-                JSONObject userMsg = new JSONObject().put("role", "user").put("content", userQuestion);
-                JSONObject aiMsg = new JSONObject().put("role", "assistant").put("content", aiResponse);
-                history.put(userMsg).put(aiMsg);
-                ctx.db().updateChatHistory(discordId, history);
+                ctx.chatMemoryService().recordExchange(discordId, userQuestion, aiResponse);
 
                 sendLongMessage(event, aiResponse);
 
@@ -6,9 +6,8 @@ import net.dv8tion.jda.api.interactions.commands.build.CommandData;
 import net.dv8tion.jda.api.interactions.commands.build.Commands;
 import org.example.DatabaseManager;
 import org.example.service.AiContextService;
+import org.example.service.ChatMemoryService;
 import org.example.service.ai.PromptRegistry;
-import org.json.JSONArray;
-import org.json.JSONObject;
 
 import java.util.Arrays;
 import java.util.List;
@@ -67,21 +66,19 @@ public class AskCommand implements SlashCommand {
                     fullContext.append("Va droit au but. Résume l'essentiel. Pas de blabla inutile.\n");
                 }
 
-                // 3. Récupération et mise à jour de l'historique local (JSON)
-                JSONArray history = ctx.db().getChatHistory(discordId);
+                // 3. Mémoire de la conversation : résumé des anciens tours + derniers messages
+                ChatMemoryService.Conversation conversation = ctx.chatMemoryService().load(discordId);
 
-                // 4. Appel au service Mistral (Signature v1.10.0 : 3 paramètres)
+                // 4. Appel au service Mistral
                 String aiResponse = ctx.mistralService().chatWithHistory(
-                        history,
+                        conversation.digest(),
+                        conversation.recentHistory(),
                         fullContext.toString(),
                         question
                 );
 
-                // 5. Sauvegarde de l'échange dans la DB
-                JSONObject userMsg = new JSONObject().put("role", "user").put("content", question);
-                JSONObject aiMsg = new JSONObject().put("role", "assistant").put("content", aiResponse);
-                history.put(userMsg).put(aiMsg);
-                ctx.db().updateChatHistory(discordId, history);
+                // 5. Sauvegarde de l'échange dans la DB (ajout des deux messages, l'historique n'est pas réécrit)
+                ctx.chatMemoryService().recordExchange(discordId, question, aiResponse);
 
                 // 6. Envoi de la réponse (découpage intelligent)
                 sendLongMessage(event, aiResponse);
@@ -3,7 +3,10 @@ package org.example.command;
 import org.example.DatabaseManager;
 import org.example.service.AiContextService;
 import org.example.service.BenchmarkService;
+import org.example.service.ChatMemoryService;
+import org.example.service.MatchScoreService;
 import org.example.service.MistralService;
+import org.example.service.PerformanceService;
 import org.example.service.RiotService;
 import java.util.concurrent.ExecutorService;
 
@@ -13,5 +16,8 @@ public record BotContext(
     MistralService mistralService,
     AiContextService aiContextService,
     BenchmarkService benchmarkService,
+    MatchScoreService matchScoreService,
+    PerformanceService performanceService,
+    ChatMemoryService chatMemoryService,
     ExecutorService executor
 ) {}
\ No newline at end of file
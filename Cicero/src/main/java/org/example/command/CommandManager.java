@@ -3,6 +3,8 @@ package org.example.command;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
 import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import org.example.util.Metrics;
+import org.example.util.TimedExecutor;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -36,9 +38,12 @@ public class CommandManager extends ListenerAdapter {
         SlashCommand command = commands.get(commandName);
 
         if (command != null) {
+            long start = System.nanoTime();
+            TimedExecutor.CommandScope previous = TimedExecutor.enter(commandName, start);
             try {
                 command.execute(event, context);
             } catch (Exception e) {
+                Metrics.increment("command_errors", "command", commandName);
                 e.printStackTrace();
                 // Si l'interaction n'a pas encore été répondue (ACK), on le fait ici pour éviter le "Délai dépassé"
                 if (!event.isAcknowledged()) {
@@ -46,6 +51,10 @@ public class CommandManager extends ListenerAdapter {
                          .setEphemeral(true)
                          .queue();
                 }
+            } finally {
+                TimedExecutor.exit(previous);
+                // Partie synchrone (jusqu'au deferReply) ; la fin du travail asynchrone est mesurée par TimedExecutor
+                Metrics.timer("command_latency", "command", commandName, "phase", "dispatch").recordNanos(System.nanoTime() - start);
             }
         }
     }
@@ -42,6 +42,9 @@ public class HelpCommand implements SlashCommand {
         embed.addField("🛠️ `/trace` & `/trace-tavily`",
                 "Télécharge les fichiers de logs (debug) de la dernière interaction IA.", false);
 
+        embed.addField("📊 `/metrics`",
+                "Latences (commandes, Riot, Mistral), taux de hit des caches et files d'attente (debug).", false);
+
         embed.setFooter("Bot développé par Kronos pour les invocateurs.");
         
         event.replyEmbeds(embed.build()).queue();
@@ -5,6 +5,8 @@ import net.dv8tion.jda.api.interactions.commands.OptionType;
 import net.dv8tion.jda.api.interactions.commands.build.CommandData;
 import net.dv8tion.jda.api.interactions.commands.build.Commands;
 
+import java.util.concurrent.CompletableFuture;
+
 public class LinkCommand implements SlashCommand {
 
     @Override
@@ -35,10 +37,13 @@ public class LinkCommand implements SlashCommand {
                 }
 
                 // Sauvegarde du nouveau compte
-                ctx.db().saveUser(event.getUser().getId(), puuid, riotIdInput);
+                CompletableFuture<Void> saved = ctx.db().saveUser(event.getUser().getId(), puuid, riotIdInput);
                 
                 // IMPORTANT : On efface l'historique de chat pour éviter les confusions avec l'ancien compte
-                ctx.db().clearChatHistory(event.getUser().getId());
+                CompletableFuture<Void> cleared = ctx.db().clearChatHistory(event.getUser().getId());
+
+                // On ne confirme qu'une fois écrit : la commande suivante doit trouver le compte
+                CompletableFuture.allOf(saved, cleared).join();
                 
                 event.getHook().sendMessage("Compte lié avec succès : " + riotIdInput + " (Mémoire IA réinitialisée)").queue();
             } catch (Exception e) {
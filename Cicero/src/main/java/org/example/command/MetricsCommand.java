@@ -0,0 +1,28 @@
+package org.example.command;
+
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import net.dv8tion.jda.api.interactions.commands.build.Commands;
+import net.dv8tion.jda.api.utils.FileUpload;
+import org.example.util.Metrics;
+
+import java.nio.charset.StandardCharsets;
+
+public class MetricsCommand implements SlashCommand {
+    private static final int MAX_INLINE_LENGTH = 1900; // Limite Discord : 2000 caractères par message
+
+    @Override
+    public CommandData getCommandData() {
+        return Commands.slash("metrics", "Latences des commandes, de Riot et de Mistral, caches et files d'attente (Debug)");
+    }
+
+    @Override
+    public void execute(SlashCommandInteractionEvent event, BotContext ctx) {
+        String report = Metrics.report();
+        if (report.length() <= MAX_INLINE_LENGTH) {
+            event.reply("```\n" + report + "```").setEphemeral(true).queue();
+            return;
+        }
+        event.replyFiles(FileUpload.fromData(report.getBytes(StandardCharsets.UTF_8), "metrics.txt")).setEphemeral(true).queue();
+    }
+}
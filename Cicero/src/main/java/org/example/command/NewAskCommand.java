@@ -14,7 +14,10 @@ public class NewAskCommand implements SlashCommand {
     @Override
     public void execute(SlashCommandInteractionEvent event, BotContext ctx) {
         String discordId = event.getUser().getId();
-        ctx.db().clearChatHistory(discordId);
-        event.reply("🧠 Mémoire effacée ! On repart sur de nouvelles bases.").setEphemeral(true).queue();
+        event.deferReply(true).queue();
+        // Réponse une fois l'effacement écrit : un /ask lancé juste après ne doit plus voir l'ancienne conversation
+        ctx.db().clearChatHistory(discordId).whenComplete((v, e) -> event.getHook().sendMessage(e == null
+                ? "🧠 Mémoire effacée ! On repart sur de nouvelles bases."
+                : "Erreur lors de l'effacement de la mémoire.").queue());
     }
 }
\ No newline at end of file
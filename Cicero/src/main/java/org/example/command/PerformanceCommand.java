@@ -8,19 +8,14 @@ import net.dv8tion.jda.api.interactions.commands.OptionType;
 import net.dv8tion.jda.api.interactions.commands.build.CommandData;
 import net.dv8tion.jda.api.interactions.commands.build.Commands;
 import org.example.DatabaseManager;
-import org.example.service.MatchDataExtractor;
-import org.example.service.MatchNarrator;
-import org.example.service.RiotService;
-import org.example.service.ScoreCalculator;
+import org.example.service.PerformanceService;
 import org.example.service.ai.Records.AnalystAdjustment;
-import org.example.service.ai.Records.MatchAnalysisResult;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -55,62 +50,13 @@ public class PerformanceCommand implements SlashCommand {
 
         ctx.executor().submit(() -> {
             try {
-                String lastMatchId = ctx.riotService().getLastMatchId(dbUser.puuid, dbUser.region);
-                String matchJsonStr = ctx.riotService().getMatchAnalysis(lastMatchId, dbUser.puuid, dbUser.region);
-                JSONObject fullMatchData = new JSONObject(matchJsonStr);
-
-                // CORRECTION ICI : Utilisation de FullContext
-                MatchDataExtractor.FullContext fullContext = ctx.riotService().getMatchContext(lastMatchId, dbUser.region);
-                Map<String, MatchDataExtractor.PlayerContext> globalContext = fullContext.players;
-                MatchDataExtractor.TeamCompositionProfile enemyComp = fullContext.redTeamComp; // Par défaut
-
-                RiotService.RankInfo rankInfo = ctx.riotService().getRank(dbUser.puuid, dbUser.region);
-                String gameTier = (rankInfo != null && rankInfo.tier != null) ? rankInfo.tier : "GOLD";
-                JSONObject benchmarks = ctx.benchmarkService().getBenchmarks();
-                double durationMin = fullMatchData.getJSONObject("metadata").optLong("duration_sec", 1800) / 60.0;
-
-                JSONArray allies = fullMatchData.getJSONArray("allies");
-                JSONArray enemies = fullMatchData.getJSONArray("enemies");
-                JSONObject target = fullMatchData.getJSONObject("target_player");
-
-                JSONArray playersToAnalyze = new JSONArray();
-                playersToAnalyze.put(target);
-                for (int i = 0; i < allies.length(); i++) playersToAnalyze.put(allies.get(i));
-                for (int i = 0; i < enemies.length(); i++) playersToAnalyze.put(enemies.get(i));
-
-                Map<String, JSONObject> javaPlayerMap = new HashMap<>();
-                for (int i = 0; i < playersToAnalyze.length(); i++) {
-                    JSONObject p = playersToAnalyze.getJSONObject(i);
-                    String champName = p.getString("champion").toUpperCase();
-                    String role = p.optString("role", "TOP");
-
-                    MatchDataExtractor.PlayerContext pCtx = globalContext.get(champName);
-                    MatchDataExtractor.PlayerContext oppCtx = null;
-                    if (pCtx != null) {
-                        // Détermination de l'équipe ennemie pour l'analyse contextuelle
-                        enemyComp = (pCtx.teamId == 100) ? fullContext.redTeamComp : fullContext.blueTeamComp;
-                        
-                        for (MatchDataExtractor.PlayerContext other : globalContext.values()) {
-                            if (other.teamId != pCtx.teamId && other.role.equals(pCtx.role)) {
-                                oppCtx = other; break;
-                            }
-                        }
-                    }
-
-                    String champClass = ScoreCalculator.getChampionClass(champName, role);
-                    p.put("champion_class", champClass);
-
-                    // Appel avec la nouvelle signature
-                    JSONObject mathResult = ScoreCalculator.analyzePlayer(p, benchmarks, gameTier, durationMin, pCtx, oppCtx, enemyComp);
-                    p.put("ai_context", mathResult);
-                    p.put("score", mathResult.getInt("math_score"));
-                    p.put("comment", "⏱️ *Analyse IA en cours...*");
-
-                    // Sauvegarde du KDA formaté pour l'affichage
-                    p.put("kda_display", p.optInt("k", 0) + "/" + p.optInt("d", 0) + "/" + p.optInt("a", 0));
-
-                    p.put("factual_digest", MatchNarrator.buildPlayerDigest(p, pCtx, oppCtx));
-                    javaPlayerMap.put(champName, p);
+                PerformanceService.Report report = ctx.performanceService().scoreLastMatch(dbUser.puuid, dbUser.region);
+                String lastMatchId = report.matchId();
+                String gameTier = report.tier();
+                Map<String, JSONObject> javaPlayerMap = report.playerMap();
+                if (report.targetScore() != null) {
+                    // Note persistée : le récap de minuit n'aura pas à retélécharger ce match
+                    ctx.matchScoreService().save(report.fullContext(), report.target(), gameTier, report.targetScore());
                 }
 
                 EmbedBuilder fastEmbed = buildDiscordEmbed(javaPlayerMap, finalTargetUser, lastMatchId, gameTier, true);
@@ -118,23 +64,10 @@ public class PerformanceCommand implements SlashCommand {
 
                     ctx.executor().submit(() -> {
                         try {
-                            JSONObject aiPayload = new JSONObject().put("match_duration", durationMin).put("players", playersToAnalyze);
-
-                            MatchAnalysisResult analystResult = ctx.mistralService().runPerformanceAnalyst(aiPayload.toString());
-                            Map<String, AnalystAdjustment> adjMap = new HashMap<>();
-                            for(AnalystAdjustment adj : analystResult.adjustments()) {
-                                JSONObject p = javaPlayerMap.get(adj.champion().toUpperCase());
-                                if(p != null) p.put("score", adj.adjusted_score());
-                                adjMap.put(adj.champion().toUpperCase(), adj);
-                            }
-
-                            String casterJson = ctx.mistralService().runPerformanceCaster(analystResult);
-                            JSONArray casterComments = new JSONArray(casterJson.replace("```json", "").replace("```", "").trim());
-
-                            for (int i = 0; i < casterComments.length(); i++) {
-                                JSONObject c = casterComments.getJSONObject(i);
-                                JSONObject p = javaPlayerMap.get(c.getString("champion").toUpperCase());
-                                if(p != null) p.put("comment", c.optString("comment", "Sans commentaire."));
+                            Map<String, AnalystAdjustment> adjMap = ctx.performanceService().runAi(report);
+                            AnalystAdjustment targetAdj = adjMap.get(report.target().championName().toUpperCase());
+                            if (targetAdj != null) {
+                                ctx.matchScoreService().saveAdjustedScore(lastMatchId, dbUser.puuid, targetAdj.adjusted_score());
                             }
 
                             StringBuilder audit = new StringBuilder();
@@ -8,10 +8,13 @@ import net.dv8tion.jda.api.interactions.commands.build.CommandData;
 import net.dv8tion.jda.api.interactions.commands.build.Commands;
 import net.dv8tion.jda.api.utils.FileUpload;
 import org.example.DatabaseManager;
+import org.example.service.BenchmarkTable;
 import org.example.service.MatchDataExtractor;
+import org.example.service.MatchDataProcessor;
 import org.example.service.RiotService;
 import org.example.service.ScoreCalculator;
-import org.json.JSONArray;
+import org.example.service.match.MatchRecord;
+import org.example.service.match.ParticipantRecord;
 import org.json.JSONObject;
 
 import java.awt.*;
@@ -56,66 +59,44 @@ public class PerformanceTestCommand implements SlashCommand {
                 globalAudit.append("=== AUDIT CALIBRAGE MATHÉMATICIEN ===\n\n");
 
                 for (String matchId : matchIds) {
-                    // 1. Données brutes et contexte causal (exactement comme PerformanceCommand)
-                    String matchJsonStr = ctx.riotService().getMatchAnalysis(matchId, user.puuid, user.region);
-                    JSONObject fullMatchData = new JSONObject(matchJsonStr);
-                    
-                    // CORRECTION ICI : On récupère le FullContext et on extrait la map des joueurs
+                    // 1. Match typé et contexte causal (exactement comme PerformanceCommand)
                     MatchDataExtractor.FullContext fullContext = ctx.riotService().getMatchContext(matchId, user.region);
-                    Map<String, MatchDataExtractor.PlayerContext> globalContext = fullContext.players;
-                    MatchDataExtractor.TeamCompositionProfile enemyComp = fullContext.redTeamComp; // Par défaut, on ajustera dans la boucle
+                    if (fullContext == null) {
+                        globalAudit.append("MATCH ID: ").append(matchId).append(" -> indisponible\n\n");
+                        continue;
+                    }
+                    MatchRecord match = fullContext.match;
 
                     RiotService.RankInfo rankInfo = ctx.riotService().getRank(user.puuid, user.region);
                     String gameTier = (rankInfo != null && rankInfo.tier != null) ? rankInfo.tier : "GOLD";
-                    JSONObject benchmarks = ctx.benchmarkService().getBenchmarks();
-                    double durationMin = fullMatchData.getJSONObject("metadata").optLong("duration_sec", 1800) / 60.0;
-
-                    JSONArray playersToAnalyze = new JSONArray();
-                    playersToAnalyze.put(fullMatchData.getJSONObject("target_player"));
-                    fullMatchData.getJSONArray("allies").forEach(p -> playersToAnalyze.put(p));
-                    fullMatchData.getJSONArray("enemies").forEach(p -> playersToAnalyze.put(p));
+                    BenchmarkTable benchmarks = ctx.benchmarkService().getTable();
+                    // Même chemin que PerformanceCommand : les dix notes en une passe
+                    ScoreCalculator.MatchScores scores = ScoreCalculator.scoreMatch(fullContext, gameTier, benchmarks);
 
                     Map<String, JSONObject> javaPlayerMap = new HashMap<>();
                     globalAudit.append("MATCH ID: ").append(matchId).append("\n");
 
                     // 2. Boucle du Mathématicien (Copie conforme de PerformanceCommand)
-                    for (int i = 0; i < playersToAnalyze.length(); i++) {
-                        JSONObject p = playersToAnalyze.getJSONObject(i);
-                        String champName = p.getString("champion").toUpperCase();
-                        MatchDataExtractor.PlayerContext pCtx = globalContext.get(champName);
-
-                        MatchDataExtractor.PlayerContext oppCtx = null;
-                        if (pCtx != null) {
-                            // Détermination de l'équipe ennemie pour l'analyse contextuelle
-                            enemyComp = (pCtx.teamId == 100) ? fullContext.redTeamComp : fullContext.blueTeamComp;
-                            
-                            for (MatchDataExtractor.PlayerContext other : globalContext.values()) {
-                                if (other.teamId != pCtx.teamId && other.role.equals(pCtx.role)) {
-                                    oppCtx = other; break;
-                                }
-                            }
+                    for (ParticipantRecord player : match.participants()) {
+                        JSONObject p = MatchDataProcessor.buildPlayerJson(player);
+                        String champName = player.championName().toUpperCase();
+                        // Variante typée : l'audit texte n'a pas besoin du payload JSON de l'Analyste
+                        ScoreCalculator.ScoreResult score = scores.get(player);
+                        if (score == null) {
+                            globalAudit.append("  [").append(champName).append("] contexte introuvable\n");
+                            continue;
                         }
-
-                        // Appel avec la nouvelle signature (ajout de enemyComp)
-                        JSONObject mathResult = ScoreCalculator.analyzePlayer(p, benchmarks, gameTier, durationMin, pCtx, oppCtx, enemyComp);
-                        p.put("ai_context", mathResult);
-                        p.put("score", mathResult.getInt("math_score"));
+                        p.put("score", score.mathScore());
                         p.put("comment", "Note Mathématique Pure");
                         javaPlayerMap.put(champName, p);
 
                         // On log le détail dans le fichier TXT
-                        globalAudit.append("  [").append(champName).append("] Score: ").append(p.getInt("score")).append("\n");
-                        
-                        // Correction : ScoreCalculator renvoie "pillars" et "synergies", pas "score_breakdown"
-                        JSONArray pillars = mathResult.getJSONArray("pillars");
-                        for(int j=0; j<pillars.length(); j++) {
-                            JSONObject pillar = pillars.getJSONObject(j);
-                            globalAudit.append("    > ").append(pillar.getString("name")).append(": ").append(pillar.getInt("score")).append("\n");
+                        globalAudit.append("  [").append(champName).append("] Score: ").append(score.mathScore()).append("\n");
+                        for (ScoreCalculator.Pillar pillar : score.pillars) {
+                            globalAudit.append("    > ").append(pillar.name()).append(": ").append(pillar.score()).append("\n");
                         }
-                        JSONArray synergies = mathResult.getJSONArray("synergies");
-                        for(int j=0; j<synergies.length(); j++) {
-                            JSONObject syn = synergies.getJSONObject(j);
-                            globalAudit.append("    + ").append(syn.getString("reason")).append(" (").append(syn.getDouble("points")).append(")\n");
+                        for (ScoreCalculator.Synergy syn : score.synergies) {
+                            globalAudit.append("    + ").append(syn.reason()).append(" (").append(syn.points()).append(")\n");
                         }
                     }
                     globalAudit.append("\n");
@@ -33,8 +33,9 @@ public class SetRecapChannelCommand implements SlashCommand {
         TextChannel channel = event.getOption("salon").getAsChannel().asTextChannel();
         String channelId = channel.getId();
 
-        ctx.db().saveConfig("RECAP_CHANNEL_ID", channelId);
-
-        event.reply("✅ Le salon de récapitulatif a été défini sur " + channel.getAsMention()).queue();
+        event.deferReply().queue();
+        ctx.db().saveConfig("RECAP_CHANNEL_ID", channelId).whenComplete((v, e) -> event.getHook().sendMessage(e == null
+                ? "✅ Le salon de récapitulatif a été défini sur " + channel.getAsMention()
+                : "Erreur lors de l'enregistrement du salon.").queue());
     }
 }
\ No newline at end of file
@@ -8,43 +8,46 @@ import java.util.Scanner;
 
 public class BenchmarkService {
 
-    private JSONObject benchmarksCache;
+    // Compilé une seule fois : le scoring n'indexe plus que des tableaux
+    private volatile BenchmarkTable table;
+    private volatile boolean loaded = false;
 
     public BenchmarkService() {
         loadBenchmarks();
     }
 
     /**
-     * Charge le fichier JSON en mémoire depuis le dossier src/main/resources au démarrage du bot.
+     * Charge le fichier JSON depuis le dossier src/main/resources au démarrage du bot et le compile en BenchmarkTable.
      */
     private void loadBenchmarks() {
         // Le ClassLoader va chercher directement à la racine du dossier resources/
         try (InputStream is = getClass().getClassLoader().getResourceAsStream("benchmarks.json")) {
             if (is == null) {
-                System.err.println("❌ Fichier benchmarks.json introuvable dans le dossier resources ! Le ScoreCalculator risque de planter.");
-                this.benchmarksCache = new JSONObject();
+                System.err.println("❌ Fichier benchmarks.json introuvable dans le dossier resources ! Le ScoreCalculator utilisera les valeurs par défaut.");
+                this.table = BenchmarkTable.defaults();
                 return;
             }
 
             // Lecture du flux de données (InputStream) vers une String
             try (Scanner scanner = new Scanner(is, StandardCharsets.UTF_8.name())) {
                 String content = scanner.useDelimiter("\\A").hasNext() ? scanner.next() : "";
-                this.benchmarksCache = new JSONObject(content);
+                this.table = BenchmarkTable.compile(new JSONObject(content));
+                this.loaded = true;
                 System.out.println("✅ Benchmarks chargés avec succès en mémoire !");
             }
         } catch (Exception e) {
             System.err.println("❌ Erreur lors de la lecture des benchmarks : " + e.getMessage());
-            this.benchmarksCache = new JSONObject();
+            this.table = BenchmarkTable.defaults();
         }
     }
 
     /**
-     * Retourne l'objet JSON contenant toutes les statistiques de référence par Élo.
+     * Retourne la table des statistiques de référence par rôle, Élo et métrique.
      */
-    public JSONObject getBenchmarks() {
-        if (benchmarksCache == null || benchmarksCache.isEmpty()) {
-            loadBenchmarks();
+    public BenchmarkTable getTable() {
+        if (!loaded) {
+            loadBenchmarks(); // Nouvelle tentative si le chargement initial avait échoué
         }
-        return benchmarksCache;
+        return table;
     }
 }
\ No newline at end of file
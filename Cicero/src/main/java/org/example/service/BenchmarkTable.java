@@ -0,0 +1,113 @@
+package org.example.service;
+
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * benchmarks.json compilé une fois pour toutes en tableau dense double[rôle][tier][métrique].
+ * Le scoring lit ses attentes par indexation (ordinal des enums) au lieu de chaînes optJSONObject/optDouble.
+ * Immuable : partagé entre tous les threads.
+ */
+public final class BenchmarkTable {
+
+    /** Rôles tels que nommés dans benchmarks.json. */
+    public enum Role {
+        TOP, JUNGLE, MID, ADC, SUPPORT;
+
+        /** Rôle interne du ScoreCalculator (TOP, JUNGLE, MIDDLE, BOTTOM, SUPPORT) ; null si inconnu. */
+        public static Role fromInternalRole(String internalRole) {
+            return switch (internalRole) {
+                case "TOP" -> TOP;
+                case "JUNGLE" -> JUNGLE;
+                case "MIDDLE" -> MID;
+                case "BOTTOM" -> ADC;
+                case "SUPPORT" -> SUPPORT;
+                default -> null;
+            };
+        }
+    }
+
+    public enum Tier {
+        IRON, BRONZE, SILVER, GOLD, PLATINUM, EMERALD, DIAMOND, MASTER, GRANDMASTER, CHALLENGER;
+
+        private static final Map<String, Tier> BY_NAME = new HashMap<>();
+        static {
+            for (Tier t : values()) BY_NAME.put(t.name(), t);
+        }
+
+        /** Tier Riot ("GOLD", "gold"...). Non classé ou absent => GOLD ; tier inconnu => null (valeurs par défaut). */
+        public static Tier fromRank(String rankTier) {
+            if (rankTier == null || rankTier.isEmpty() || rankTier.equalsIgnoreCase("UNRANKED")) return GOLD;
+            return BY_NAME.get(rankTier.toUpperCase());
+        }
+    }
+
+    /** Métriques attendues, avec la valeur utilisée quand benchmarks.json ne la fournit pas. */
+    public enum Metric {
+        CS_PER_MIN("cs_per_min", 5.0),
+        VISION_PER_MIN("vision_per_min", 1.0),
+        CONTROL_WARDS("control_wards", 1.0),
+        KDA("kda", 2.5),
+        SKILLSHOTS_DODGED_PER_MIN("skillshots_dodged_per_min", 1.0),
+        SOLO_KILLS("solo_kills", 1.0),
+        TURRET_PLATES("turret_plates", 2.0),
+        EXPECTED_DPM("expected_dpm", 400.0);
+
+        public final String jsonKey;
+        public final double defaultValue;
+
+        Metric(String jsonKey, double defaultValue) {
+            this.jsonKey = jsonKey;
+            this.defaultValue = defaultValue;
+        }
+    }
+
+    private static final Role[] ROLES = Role.values();
+    private static final Tier[] TIERS = Tier.values();
+    private static final Metric[] METRICS = Metric.values();
+    private static final double[] DEFAULTS = new double[METRICS.length];
+    static {
+        for (Metric m : METRICS) DEFAULTS[m.ordinal()] = m.defaultValue;
+    }
+
+    private final double[][][] values; // [role][tier][metric]
+
+    private BenchmarkTable(double[][][] values) {
+        this.values = values;
+    }
+
+    /** Table vide : toutes les attentes valent leur valeur par défaut. */
+    public static BenchmarkTable defaults() {
+        return compile(new JSONObject());
+    }
+
+    public static BenchmarkTable compile(JSONObject json) {
+        double[][][] values = new double[ROLES.length][TIERS.length][METRICS.length];
+        for (Role role : ROLES) {
+            JSONObject roleJson = json.optJSONObject(role.name());
+            for (Tier tier : TIERS) {
+                double[] row = values[role.ordinal()][tier.ordinal()];
+                for (Metric metric : METRICS) {
+                    JSONObject metricJson = roleJson != null ? roleJson.optJSONObject(metric.jsonKey) : null;
+                    row[metric.ordinal()] = metricJson != null ? metricJson.optDouble(tier.name(), metric.defaultValue) : metric.defaultValue;
+                }
+            }
+        }
+        return new BenchmarkTable(values);
+    }
+
+    public double get(Role role, Tier tier, Metric metric) {
+        return row(role, tier)[metric.ordinal()];
+    }
+
+    /**
+     * Toutes les métriques d'un couple (rôle, tier), indexées par Metric.ordinal().
+     * Tableau partagé : ne pas modifier. Rôle ou tier inconnu (null) => valeurs par défaut.
+     */
+    public double[] row(Role role, Tier tier) {
+        if (role == null || tier == null) return DEFAULTS;
+        return values[role.ordinal()][tier.ordinal()];
+    }
+}
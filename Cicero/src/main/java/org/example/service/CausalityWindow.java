@@ -0,0 +1,213 @@
+package org.example.service;
+
+import java.util.Arrays;
+
+/**
+ * Analyse séquentielle kill -> objectif en un seul balayage linéaire.
+ *
+ * Pour chaque kill, on regarde les objectifs pris dans la fenêtre "death timer" qui suit.
+ * La fin de cette fenêtre (timestamp + durée) ne recule jamais quand on avance dans la partie :
+ * un second pointeur suffit donc, et des sommes préfixes d'objectifs par équipe donnent
+ * en O(1) le nombre d'objectifs alliés/ennemis dans la fenêtre. Le pick-off (kill isolé)
+ * se lit sur le kill précédent/suivant (troisième pointeur). Total : O(n), quelle que soit la densité de kills.
+ */
+public final class CausalityWindow {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final long LATE_GAME_MS = 1_800_000; // > 30 minutes = double impact
+    private static final long PICK_OFF_WINDOW_MS = 10_000;
+    private static final int PICK_OFF_NEIGHBOURS = 5; // Voisinage (en nombre d'événements) de l'ancien scan ±5
+
+    private long[] timestamps;
+    private boolean[] kills;
+    private int[] teamIds;       // Équipe qui réalise l'action (killer / objectif)
+    private int[] victimTeamIds; // Kills uniquement
+    private int[] killerIds;
+    private int[] victimIds;
+    private int size = 0;
+    private int maxParticipantId = 0;
+
+    public CausalityWindow() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /** @param expectedEvents estimation du nombre de kills + objectifs (évite les réallocations) */
+    public CausalityWindow(int expectedEvents) {
+        int capacity = Math.max(8, expectedEvents);
+        timestamps = new long[capacity];
+        kills = new boolean[capacity];
+        teamIds = new int[capacity];
+        victimTeamIds = new int[capacity];
+        killerIds = new int[capacity];
+        victimIds = new int[capacity];
+    }
+
+    public void addKill(long timestamp, int killerId, int killerTeamId, int victimId, int victimTeamId) {
+        int i = append(timestamp, true, killerTeamId);
+        victimTeamIds[i] = victimTeamId;
+        killerIds[i] = killerId;
+        victimIds[i] = victimId;
+        maxParticipantId = Math.max(maxParticipantId, Math.max(killerId, victimId));
+    }
+
+    public void addObjective(long timestamp, int teamId) {
+        append(timestamp, false, teamId);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Durée de la fenêtre de causalité après un kill (Death Timer approximatif).
+     * Early game (~15s) -> Late game (~60-70s).
+     */
+    public static long windowMs(long timestamp) {
+        double gameMinutes = timestamp / 60000.0;
+        if (gameMinutes < 15) {
+            return 15000 + (long) (gameMinutes * 1000); // 15s -> 30s
+        } else if (gameMinutes < 30) {
+            return 30000 + (long) ((gameMinutes - 15) * 2000); // 30s -> 60s
+        }
+        return 60000 + (long) ((gameMinutes - 30) * 1000); // 60s -> 70s+
+    }
+
+    public Result analyze() {
+        ensureSorted();
+        int n = size;
+        Result result = new Result(maxParticipantId);
+
+        // Sommes préfixes : objectifs pris par chaque équipe parmi les événements [0, k)
+        int[] blueObjectives = new int[n + 1];
+        int[] redObjectives = new int[n + 1];
+        for (int k = 0; k < n; k++) {
+            blueObjectives[k + 1] = blueObjectives[k] + (!kills[k] && teamIds[k] == 100 ? 1 : 0);
+            redObjectives[k + 1] = redObjectives[k] + (!kills[k] && teamIds[k] == 200 ? 1 : 0);
+        }
+
+        int windowEnd = 0;     // Premier événement hors de la fenêtre du kill courant (ne recule jamais)
+        int previousKill = -1;
+        int following = 0;     // Kill suivant le kill courant (ne recule jamais non plus)
+        for (int i = 0; i < n; i++) {
+            if (!kills[i]) continue;
+
+            long windowLimit = timestamps[i] + windowMs(timestamps[i]);
+            if (windowEnd <= i) windowEnd = i + 1;
+            while (windowEnd < n && timestamps[windowEnd] <= windowLimit) windowEnd++;
+
+            int team = teamIds[i];
+            int victimTeam = victimTeamIds[i];
+            boolean objectiveTakenAfter = objectivesBetween(team, blueObjectives, redObjectives, i + 1, windowEnd) > 0;
+            boolean objectiveLostAfter = victimTeam != team
+                    && objectivesBetween(victimTeam, blueObjectives, redObjectives, i + 1, windowEnd) > 0;
+
+            int weight = timestamps[i] > LATE_GAME_MS ? 2 : 1;
+
+            // A. CLUTCH KILL (Kill -> Objectif)
+            if (objectiveTakenAfter) result.clutchKills[killerIds[i]] += weight;
+
+            // B. UNFORCED ERROR / THROW (Mort -> Perte d'Objectif), sauf trade (l'équipe de la victime a AUSSI pris un objectif)
+            if (objectiveLostAfter) {
+                if (!objectiveTakenAfter) result.unforcedErrorDeaths[victimIds[i]] += weight;
+                else result.sacrificialDeaths[victimIds[i]] += weight;
+            }
+
+            // C. PICK-OFF : aucun autre kill à moins de 10s parmi les voisins immédiats
+            boolean isolated = true;
+            if (previousKill >= 0 && i - previousKill <= PICK_OFF_NEIGHBOURS
+                    && timestamps[i] - timestamps[previousKill] < PICK_OFF_WINDOW_MS) {
+                isolated = false;
+            }
+            if (following <= i) following = i + 1;
+            while (following < n && !kills[following]) following++;
+            if (following < n && following - i < PICK_OFF_NEIGHBOURS
+                    && timestamps[following] - timestamps[i] < PICK_OFF_WINDOW_MS) {
+                isolated = false;
+            }
+            if (isolated) result.pickOffs[killerIds[i]] += weight;
+
+            previousKill = i;
+        }
+        return result;
+    }
+
+    private static int objectivesBetween(int team, int[] blue, int[] red, int from, int to) {
+        if (team == 100) return blue[to] - blue[from];
+        if (team == 200) return red[to] - red[from];
+        return 0;
+    }
+
+    private int append(long timestamp, boolean kill, int teamId) {
+        if (size == timestamps.length) grow();
+        int i = size++;
+        timestamps[i] = timestamp;
+        kills[i] = kill;
+        teamIds[i] = teamId;
+        return i;
+    }
+
+    private void grow() {
+        int capacity = timestamps.length * 2;
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        kills = Arrays.copyOf(kills, capacity);
+        teamIds = Arrays.copyOf(teamIds, capacity);
+        victimTeamIds = Arrays.copyOf(victimTeamIds, capacity);
+        killerIds = Arrays.copyOf(killerIds, capacity);
+        victimIds = Arrays.copyOf(victimIds, capacity);
+    }
+
+    /** La timeline Riot est chronologique ; on ne trie (tri stable) que si ce n'est exceptionnellement pas le cas. */
+    private void ensureSorted() {
+        boolean sorted = true;
+        for (int k = 1; k < size && sorted; k++) sorted = timestamps[k - 1] <= timestamps[k];
+        if (sorted) return;
+
+        Integer[] order = new Integer[size];
+        for (int k = 0; k < size; k++) order[k] = k;
+        Arrays.sort(order, (a, b) -> Long.compare(timestamps[a], timestamps[b]));
+
+        long[] ts = new long[timestamps.length];
+        boolean[] kl = new boolean[kills.length];
+        int[] tm = new int[teamIds.length], vt = new int[victimTeamIds.length];
+        int[] ki = new int[killerIds.length], vi = new int[victimIds.length];
+        for (int k = 0; k < size; k++) {
+            int from = order[k];
+            ts[k] = timestamps[from];
+            kl[k] = kills[from];
+            tm[k] = teamIds[from];
+            vt[k] = victimTeamIds[from];
+            ki[k] = killerIds[from];
+            vi[k] = victimIds[from];
+        }
+        timestamps = ts;
+        kills = kl;
+        teamIds = tm;
+        victimTeamIds = vt;
+        killerIds = ki;
+        victimIds = vi;
+    }
+
+    /** Compteurs pondérés, indexés par participantId. */
+    public static final class Result {
+        final int[] clutchKills;
+        final int[] unforcedErrorDeaths;
+        final int[] sacrificialDeaths;
+        final int[] pickOffs;
+
+        Result(int maxParticipantId) {
+            clutchKills = new int[maxParticipantId + 1];
+            unforcedErrorDeaths = new int[maxParticipantId + 1];
+            sacrificialDeaths = new int[maxParticipantId + 1];
+            pickOffs = new int[maxParticipantId + 1];
+        }
+
+        public int clutchKills(int participantId) { return at(clutchKills, participantId); }
+        public int unforcedErrorDeaths(int participantId) { return at(unforcedErrorDeaths, participantId); }
+        public int sacrificialDeaths(int participantId) { return at(sacrificialDeaths, participantId); }
+        public int pickOffs(int participantId) { return at(pickOffs, participantId); }
+
+        private static int at(int[] counts, int participantId) {
+            return participantId >= 0 && participantId < counts.length ? counts[participantId] : 0;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.service;
+
+import org.example.DatabaseManager;
+import org.example.DatabaseManager.ChatMessageRecord;
+import org.example.DatabaseManager.ChatSessionRecord;
+import org.example.util.ExecutorFactory;
+import org.example.util.Metrics;
+import org.example.util.TimedExecutor;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Mémoire des conversations /ask et /analyze, de taille bornée.
+ * L'agent reçoit le résumé des anciens tours + les messages pas encore résumés. Quand ces derniers dépassent
+ * TOKEN_BUDGET, les plus anciens (tous sauf les KEEP_RECENT_MESSAGES derniers) sont fondus dans le résumé,
+ * en arrière-plan après la réponse : le coût d'un tour reste le même quelle que soit la longueur de la conversation.
+ */
+public class ChatMemoryService {
+    private static final int TOKEN_BUDGET = 1500;         // Tokens (estimés) de messages non résumés avant compaction
+    private static final int KEEP_RECENT_MESSAGES = 6;    // Les 3 derniers échanges restent mot pour mot
+    private static final int MAX_MESSAGES = 60;           // Garde-fou si la compaction échoue plusieurs fois de suite
+
+    private final DatabaseManager db;
+    private final MistralService mistralService;
+    private final ExecutorService compactionExecutor = new TimedExecutor("chat-compaction", ExecutorFactory.newTaskExecutor("chat-compaction", 1));
+    private final Set<String> compacting = ConcurrentHashMap.newKeySet();
+
+    public ChatMemoryService(DatabaseManager db, MistralService mistralService) {
+        this.db = db;
+        this.mistralService = mistralService;
+    }
+
+    /** Ce qu'on transmet à MistralService.chatWithHistory. */
+    public record Conversation(String digest, JSONArray recentHistory) {}
+
+    public Conversation load(String discordId) {
+        ChatSessionRecord session = db.getChatSession(discordId, MAX_MESSAGES);
+        JSONArray history = new JSONArray();
+        for (ChatMessageRecord message : session.messages) {
+            history.put(new JSONObject().put("role", message.role).put("content", message.content));
+        }
+        return new Conversation(session.digest, history);
+    }
+
+    /** Enregistre l'échange puis, s'il fait déborder le budget, lance la compaction en arrière-plan. */
+    public CompletableFuture<Void> recordExchange(String discordId, String question, String answer) {
+        CompletableFuture<Void> written = db.appendChatExchange(discordId, question, answer);
+        written.thenRun(() -> scheduleCompaction(discordId));
+        return written;
+    }
+
+    private void scheduleCompaction(String discordId) {
+        if (!compacting.add(discordId)) return; // Une seule compaction à la fois par session
+        try {
+            compactionExecutor.execute(() -> RequestPriority.BACKGROUND.run(() -> {
+                try {
+                    compact(discordId);
+                } catch (Exception e) {
+                    System.err.println("Erreur compaction chat " + discordId + " : " + e.getMessage());
+                } finally {
+                    compacting.remove(discordId);
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            compacting.remove(discordId);
+        }
+    }
+
+    private void compact(String discordId) {
+        ChatSessionRecord session = db.getChatSession(discordId, MAX_MESSAGES);
+        if (session.messageTokens() <= TOKEN_BUDGET || session.messages.size() <= KEEP_RECENT_MESSAGES) return;
+
+        // Page lue depuis covered_seq (les plus anciens d'abord) : après des compactions ratées, plus de MAX_MESSAGES
+        // messages peuvent attendre ; le reste sera absorbé aux compactions suivantes, sans trou dans le résumé
+        long lastToSummarize = session.messages.get(session.messages.size() - KEEP_RECENT_MESSAGES - 1).seq;
+        List<ChatMessageRecord> toSummarize = db.getChatMessagesBetween(discordId, session.coveredSeq, lastToSummarize, MAX_MESSAGES);
+        if (toSummarize.isEmpty()) return;
+        String digest = mistralService.summarizeConversation(session.digest, transcript(toSummarize));
+        if (digest == null || digest.isBlank()) return;
+
+        db.saveChatDigest(discordId, digest.trim(), toSummarize.get(toSummarize.size() - 1).seq);
+        Metrics.increment("chat_compactions");
+    }
+
+    private static String transcript(List<ChatMessageRecord> messages) {
+        StringBuilder sb = new StringBuilder();
+        for (ChatMessageRecord message : messages) {
+            sb.append("user".equalsIgnoreCase(message.role) ? "Utilisateur: " : "IA: ").append(message.content).append("\n");
+        }
+        return sb.toString();
+    }
+}
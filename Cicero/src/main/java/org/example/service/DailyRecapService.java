@@ -10,13 +10,12 @@ import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
 import net.dv8tion.jda.api.utils.FileUpload;
 import org.example.DatabaseManager;
 import org.example.service.RiotService.RankInfo;
+import org.example.util.Metrics;
 import org.example.util.RankUtils;
 import org.json.JSONArray;
-import org.json.JSONObject;
 
 import java.awt.*;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.ZoneId;
@@ -26,8 +25,9 @@ import java.time.temporal.TemporalAdjusters;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 public class DailyRecapService {
@@ -35,19 +35,22 @@ public class DailyRecapService {
     private final RiotService riotService;
     private final JDA jda;
     private final MistralService mistralService;
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(3);
-    private JSONObject benchmarks;
+    private final MatchScoreService matchScoreService;
+    // Tout ce qui tourne sur ce scheduler n'utilise que le quota Riot laissé libre par les commandes
+    private final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(3,
+            task -> new Thread(() -> RequestPriority.BACKGROUND.run(task), "daily-recap"));
 
     private static final String RECAP_BANNER = "https://images.contentstack.io/v3/assets/blt731acb42bb3d1659/bltacc406a1643cf5cd/5e98753f18a3221d65d69303/2020_Worlds_Trophy_Header.jpg";
     private static final String ROLE_WEEKLY_MVP = "1468270322061938769";
     private static final String ROLE_MONTHLY_MVP = "1468270819728691291";
 
-    public DailyRecapService(DatabaseManager db, RiotService riotService, JDA jda, MistralService mistralService) {
+    public DailyRecapService(DatabaseManager db, RiotService riotService, JDA jda, MistralService mistralService, MatchScoreService matchScoreService) {
         this.db = db;
         this.riotService = riotService;
         this.jda = jda;
         this.mistralService = mistralService;
-        loadBenchmarks();
+        this.matchScoreService = matchScoreService;
+        registerGauges();
         scheduleDailyRecap();
         
         // --- TEST AU DÉMARRAGE ---
@@ -55,9 +58,17 @@ public class DailyRecapService {
         //runStartupTests("1465328163210002574");
     }
 
+    // La file du scheduler contient aussi les récaps planifiées pour plus tard : seules les tâches échues attendent vraiment
+    private void registerGauges() {
+        Metrics.gauge("executor_queued", () -> scheduler.getQueue().stream()
+                .filter(r -> r instanceof Delayed d && d.getDelay(TimeUnit.MILLISECONDS) <= 0).count(), "pool", "daily-recap");
+        Metrics.gauge("executor_scheduled", () -> scheduler.getQueue().size(), "pool", "daily-recap");
+        Metrics.gauge("executor_active", scheduler::getActiveCount, "pool", "daily-recap");
+    }
+
     private void runStartupTests(String testChannelId) {
         // On utilise un thread séparé pour ne pas bloquer le constructeur
-        new Thread(() -> {
+        new Thread(() -> RequestPriority.BACKGROUND.run(() -> {
             try {
                 // Attendre que JDA soit prêt
                 jda.awaitReady();
@@ -94,22 +105,7 @@ public class DailyRecapService {
                 System.err.println("Erreur lors des tests de démarrage : " + e.getMessage());
                 e.printStackTrace();
             }
-        }).start();
-    }
-
-    private void loadBenchmarks() {
-        try (InputStream is = getClass().getResourceAsStream("/benchmarks.json")) {
-            if (is == null) {
-                System.err.println("Impossible de charger benchmarks.json");
-                this.benchmarks = new JSONObject();
-                return;
-            }
-            String jsonText = new String(is.readAllBytes(), StandardCharsets.UTF_8);
-            this.benchmarks = new JSONObject(jsonText);
-        } catch (Exception e) {
-            System.err.println("Erreur chargement benchmarks: " + e.getMessage());
-            this.benchmarks = new JSONObject();
-        }
+        })).start();
     }
 
     private void scheduleDailyRecap() {
@@ -284,147 +280,83 @@ public class DailyRecapService {
         List<UserRecapData> recapList = new ArrayList<>();
         String todayDateString = ZonedDateTime.now(ZoneId.of("Europe/Paris")).format(DateTimeFormatter.ISO_LOCAL_DATE);
 
+        // --- 1. RIOT : rang + IDs des matchs des 24h de TOUS les joueurs en parallèle ---
+        // Plus de temporisation manuelle : le RiotRateLimiter fait attendre chaque appel juste ce qu'il faut.
+        // Les requêtes partent toutes de ce thread (priorité BACKGROUND), leurs réponses arrivent en parallèle.
+        List<UserDay> days = new ArrayList<>(users.size());
         for (DatabaseManager.UserRecord user : users) {
-            try {
-                // Temporisation pour éviter le Rate Limit (1.5s entre chaque requête utilisateur)
-                Thread.sleep(1500);
-
-                // 1. Récupérer le rang actuel
-                RankInfo currentRank = riotService.getRank(user.puuid, user.region);
-                if (currentRank == null) continue;
+            UserDay day = new UserDay(user);
+            day.rank = riotService.getRankAsync(user.puuid, user.region).exceptionally(e -> {
+                System.out.println("Erreur récap (rang) pour " + user.summonerName + ": " + e.getMessage());
+                return null;
+            });
+            day.matchIds = riotService.getMatchIdsLast24hAsync(user.puuid, user.region).exceptionally(e -> {
+                System.err.println("Erreur getMatchIdsLast24h pour " + user.summonerName + ": " + e.getMessage());
+                return List.of();
+            });
+            days.add(day);
+        }
 
-                // 2. Récupérer le snapshot précédent
-                DatabaseManager.SnapshotRecord snapshot = db.getSnapshot(user.discordId);
-                
-                // Calcul des LP gagnés/perdus
-                int lpDiff = 0;
-                boolean sameTierRank = false;
-                boolean hasSnapshot = (snapshot != null);
-                
-                if (hasSnapshot) {
-                    if (currentRank.tier.equals(snapshot.tier) && currentRank.rank.equals(snapshot.rank)) {
-                        lpDiff = currentRank.lp - snapshot.lp;
-                        sameTierRank = true;
-                    }
-                }
+        // --- 2. RIOT : seuls les matchs pas encore notés (par /performance ou un récap précédent) sont téléchargés ---
+        // Calcul de la date limite (24h avant maintenant)
+        long oneDayAgo = System.currentTimeMillis() - (24 * 60 * 60 * 1000);
+        for (UserDay day : days) {
+            RankInfo currentRank = day.rank.join();
+            if (currentRank == null) continue;
+            day.catchUp = matchScoreService.catchUp(day.user, currentRank.tier, day.matchIds.join());
+        }
 
-                // 3. Récupérer UNIQUEMENT les matchs des dernières 24h
-                List<String> matchIds = riotService.getMatchIdsLast24h(user.puuid, user.region);
-                int wins = 0;
-                int losses = 0;
-                double totalScore = 0.0;
-                int gamesPlayed = 0;
-                
-                // Calcul de la date limite (24h avant maintenant)
-                long oneDayAgo = System.currentTimeMillis() - (24 * 60 * 60 * 1000);
+        // --- 3. AGRÉGATION SQL sur match_scores ---
+        List<UserRecapData> toChronicle = new ArrayList<>();
+        List<String> chronicleContexts = new ArrayList<>();
+        for (UserDay day : days) {
+            try {
+                RankInfo currentRank = day.rank.join();
+                if (currentRank == null) continue;
+                // Attend aussi l'écriture des notes : sinon l'agrégat ci-dessous pourrait passer avant elles
+                int newlyScored = day.catchUp.join();
+                if (newlyScored > 0) System.out.println("Récap : " + newlyScored + " match(s) noté(s) à la volée pour " + day.user.summonerName);
 
-                for (String matchId : matchIds) {
-                    try {
-                        Thread.sleep(3000); // Anti-Rate Limit
-                        
-                        // Vérification de la date de la game
-                        long gameCreation = riotService.getGameCreationTime(matchId, user.region);
-                        if (gameCreation > 0 && gameCreation < oneDayAgo) {
-                            System.out.println("Fin des games de 24h pour " + user.summonerName);
-                            break; // On stoppe l'analyse de ce joueur, on a fini sa journée !
-                        }
-
-                        MatchDataExtractor.FullContext fullContext = riotService.getMatchContext(matchId, user.region);
-                        while (fullContext == null) {
-                            System.out.println("⚠️ Quota atteint ou erreur sur " + matchId + ". Pause de 2 minutes...");
-                            Thread.sleep(125000);
-                            fullContext = riotService.getMatchContext(matchId, user.region);
-                        }
-                        String analysisStr = riotService.getMatchAnalysis(matchId, user.puuid, user.region);
-                        if (analysisStr == null || analysisStr.startsWith("[")) continue; 
-                        
-                        JSONObject analysis = new JSONObject(analysisStr);
-                        
-                        // CORRECTION DU BUG : On ne cherche plus l'objet "info", il n'existe pas ici !
-                        if (!analysis.has("target_player")) continue;
-                        
-                        JSONObject targetPlayer = analysis.getJSONObject("target_player");
-                        gamesPlayed++;
-                        boolean win = targetPlayer.optBoolean("win", false);
-                        if (win) wins++; else losses++;
-                        String champName = targetPlayer.optString("champion", "").toUpperCase();
-                        MatchDataExtractor.PlayerContext myPlayerCtx = fullContext.players.get(champName);
-                        if (myPlayerCtx == null) {
-                            System.err.println("PlayerContext introuvable pour le champion: " + champName);
-                            continue;
-                        }
-                        
-                        MatchDataExtractor.PlayerContext oppPlayerCtx = null;
-                        for (MatchDataExtractor.PlayerContext p : fullContext.players.values()) {
-                            if (p.teamId != myPlayerCtx.teamId && p.role.equals(myPlayerCtx.role)) {
-                                oppPlayerCtx = p;
-                                break;
-                            }
-                        }
-                        if (oppPlayerCtx == null) oppPlayerCtx = new MatchDataExtractor.PlayerContext();
-                        
-                        MatchDataExtractor.TeamCompositionProfile enemyComp = (myPlayerCtx.teamId == 100) ? fullContext.redTeamComp : fullContext.blueTeamComp;
-                        
-                        // CORRECTION DU BUG : La durée est dans "metadata" -> "duration_sec" dans ce JSON spécifique
-                        double durationMin = analysis.getJSONObject("metadata").optLong("duration_sec", 1800) / 60.0;
-                        
-                        JSONObject playerJsonForCalc = analysis.getJSONObject("target_player");
-                        playerJsonForCalc.put("k", playerJsonForCalc.optInt("kills"));
-                        playerJsonForCalc.put("d", playerJsonForCalc.optInt("deaths"));
-                        playerJsonForCalc.put("a", playerJsonForCalc.optInt("assists"));
-                        
-                        JSONObject scoreResult = ScoreCalculator.analyzePlayer(
-                            playerJsonForCalc, 
-                            benchmarks, 
-                            currentRank.tier, 
-                            durationMin, 
-                            myPlayerCtx, 
-                            oppPlayerCtx, 
-                            enemyComp
-                        );
-                        
-                        totalScore += scoreResult.getInt("math_score");
+                UserRecapData data = buildDay(day.user, currentRank, db.getMatchScoreStats(day.user.puuid, oneDayAgo));
+                recapList.add(data);
 
-                    } catch (Exception e) {
-                        System.err.println("Erreur analyse match " + matchId + ": " + e.getMessage());
-                    }
+                if (data.getTotalGames() > 0) {
+                    toChronicle.add(data);
+                    chronicleContexts.add("Joueur: " + data.user.summonerName + " | Games: " + data.getTotalGames() + " (" + data.wins + "W/" + data.losses + "L) | LP Diff: " + data.lpDiff + " | Note moyenne IA: " + String.format("%.1f", data.averageScore) + "/100");
                 }
-                
-                double averageScore = (gamesPlayed > 0) ? (totalScore / gamesPlayed) : 0.0;
-                double winrate = (gamesPlayed > 0) ? ((double)wins / gamesPlayed * 100.0) : 0.0;
-                
-                // Calcul du MVP Score
-                double mvpScore = (averageScore * 0.60) + (winrate * 0.30) + (Math.min(gamesPlayed, 5) * 2.0);
+            } catch (Exception e) {
+                System.out.println("Erreur récap pour " + day.user.summonerName + ": " + e.getMessage());
+            }
+        }
 
-                // Appel à l'IA pour le résumé
-                String aiSummary = "";
-                if (gamesPlayed > 0) {
-                    String context = "Joueur: " + user.summonerName + " | Games: " + gamesPlayed + " (" + wins + "W/" + losses + "L) | LP Diff: " + lpDiff + " | Note moyenne IA: " + String.format("%.1f", averageScore) + "/100";
-                    try {
-                        aiSummary = mistralService.runDailyChronicler(context);
-                    } catch (Exception e) {
-                        System.err.println("Erreur IA Chronicler pour " + user.summonerName + ": " + e.getMessage());
-                        aiSummary = "Pas de commentaire disponible.";
-                    }
-                }
-                
-                // Sauvegarde en base
-                db.saveDailyPerformance(user.discordId, todayDateString, gamesPlayed, wins, averageScore, lpDiff, mvpScore, aiSummary);
-                
-                recapList.add(new UserRecapData(user, currentRank, wins, losses, lpDiff, sameTierRank, hasSnapshot, averageScore, mvpScore, aiSummary));
+        // --- 4. MISTRAL : le chroniqueur résume tout le monde par lots ---
+        if (!chronicleContexts.isEmpty()) {
+            try {
+                List<String> summaries = mistralService.runDailyChroniclerBatch(chronicleContexts);
+                for (int i = 0; i < toChronicle.size(); i++) toChronicle.get(i).aiSummary = summaries.get(i);
+            } catch (Exception e) {
+                System.err.println("Erreur IA Chronicler : " + e.getMessage());
+                for (UserRecapData data : toChronicle) data.aiSummary = "Pas de commentaire disponible.";
+            }
+        }
 
-                // 4. Mettre à jour le snapshot si demandé ou si c'est le premier
-                if (updateSnapshot || !hasSnapshot) {
-                    db.saveSnapshot(user.discordId, currentRank.tier, currentRank.rank, currentRank.lp);
-                }
+        // --- 5. SAUVEGARDE ---
+        // Écritures regroupées par l'écrivain de la base ; on attend qu'elles soient appliquées
+        // car les MVP de la semaine et du mois relisent daily_performances
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        for (UserRecapData data : recapList) {
+            writes.add(db.saveDailyPerformance(data.user.discordId, todayDateString, data.getTotalGames(), data.wins, data.averageScore, data.lpDiff, data.mvpScore, data.aiSummary));
 
-            } catch (Exception e) {
-                System.out.println("Erreur récap pour " + user.summonerName + ": " + e.getMessage());
-                if (e.getMessage() != null && e.getMessage().contains("QUOTA")) {
-                    try { Thread.sleep(5000); } catch (InterruptedException ignored) {}
-                }
+            // Mettre à jour le snapshot si demandé ou si c'est le premier
+            if (updateSnapshot || !data.hasSnapshot) {
+                writes.add(db.saveSnapshot(data.user.discordId, data.currentRank.tier, data.currentRank.rank, data.currentRank.lp));
             }
         }
+        try {
+            CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])).join();
+        } catch (Exception e) {
+            System.out.println("Erreur sauvegarde récap : " + e.getMessage()); // Détail par écriture déjà loggé par l'écrivain
+        }
 
         // Tri par MVP Score décroissant
         recapList.sort((d1, d2) -> Double.compare(d2.mvpScore, d1.mvpScore));
@@ -494,6 +426,31 @@ public class DailyRecapService {
         }
     }
 
+    /** Bilan d'un joueur à partir de l'agrégat de ses matchs notés (le résumé IA est ajouté ensuite, en lot). */
+    private UserRecapData buildDay(DatabaseManager.UserRecord user, RankInfo currentRank, DatabaseManager.MatchScoreStats stats) {
+        // Récupérer le snapshot précédent et calculer les LP gagnés/perdus
+        DatabaseManager.SnapshotRecord snapshot = db.getSnapshot(user.discordId);
+        int lpDiff = 0;
+        boolean sameTierRank = false;
+        boolean hasSnapshot = (snapshot != null);
+
+        if (hasSnapshot) {
+            if (currentRank.tier.equals(snapshot.tier) && currentRank.rank.equals(snapshot.rank)) {
+                lpDiff = currentRank.lp - snapshot.lp;
+                sameTierRank = true;
+            }
+        }
+
+        int gamesPlayed = stats.games;
+        double averageScore = stats.averageScore;
+        double winrate = (gamesPlayed > 0) ? ((double) stats.wins / gamesPlayed * 100.0) : 0.0;
+
+        // Calcul du MVP Score
+        double mvpScore = (averageScore * 0.60) + (winrate * 0.30) + (Math.min(gamesPlayed, 5) * 2.0);
+
+        return new UserRecapData(user, currentRank, stats.wins, gamesPlayed - stats.wins, lpDiff, sameTierRank, hasSnapshot, averageScore, mvpScore, "");
+    }
+
     private void sendRecap(boolean updateSnapshot) {
         sendRecap(updateSnapshot, null);
     }
@@ -508,6 +465,18 @@ public class DailyRecapService {
         return sb.toString();
     }
 
+    /** Requêtes Riot en vol pour un joueur pendant le récap. */
+    private static class UserDay {
+        final DatabaseManager.UserRecord user;
+        CompletableFuture<RankInfo> rank;
+        CompletableFuture<List<String>> matchIds;
+        CompletableFuture<Integer> catchUp;
+
+        UserDay(DatabaseManager.UserRecord user) {
+            this.user = user;
+        }
+    }
+
     private static class UserRecapData {
         DatabaseManager.UserRecord user;
         RankInfo currentRank;
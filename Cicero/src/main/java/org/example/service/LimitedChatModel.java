@@ -0,0 +1,56 @@
+package org.example.service;
+
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import org.example.util.LatencyHistogram;
+import org.example.util.Metrics;
+import org.example.util.ResourceLimiter;
+
+import java.util.Set;
+
+/**
+ * ChatModel qui prend un permis du limiteur Mistral pour chaque requête envoyée au modèle.
+ * Le permis est rendu dès la réponse reçue : un agent qui attend ses outils (Riot, Tavily)
+ * entre deux requêtes ne bloque pas les autres appels Mistral.
+ * Chaque requête est chronométrée dans llm_call{agent} (hors attente du limiteur et hors outils).
+ */
+class LimitedChatModel implements ChatModel {
+    private final ChatModel delegate;
+    private final ResourceLimiter limiter;
+    private final String agentName;
+
+    LimitedChatModel(ChatModel delegate, ResourceLimiter limiter, String agentName) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+        this.agentName = agentName;
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest chatRequest) {
+        // Les listeners éventuels sont ceux du modèle délégué, déclenchés par son propre chat()
+        return limiter.supply(() -> {
+            try (LatencyHistogram.Timing ignored = Metrics.timer("llm_call", "agent", agentName).time()) {
+                return delegate.chat(chatRequest);
+            }
+        });
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return delegate.provider();
+    }
+}
@@ -1,9 +1,15 @@
 package org.example.service;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
+import org.example.service.match.ChallengeStats;
+import org.example.service.match.MatchRecord;
+import org.example.service.match.ParticipantRecord;
+import org.example.service.match.TimelineConsumer;
+import org.example.service.match.TimelineData;
+import org.example.service.match.TimelineEvent;
+import org.example.service.match.TimelineWalker;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,11 +32,13 @@ public class MatchDataExtractor {
     }
 
     public static class FullContext {
+        public MatchRecord match; // Le match typé d'origine, partagé (immuable)
         public Map<String, PlayerContext> players;
         public TeamCompositionProfile blueTeamComp;
         public TeamCompositionProfile redTeamComp;
 
-        public FullContext(Map<String, PlayerContext> players, TeamCompositionProfile blueTeamComp, TeamCompositionProfile redTeamComp) {
+        public FullContext(MatchRecord match, Map<String, PlayerContext> players, TeamCompositionProfile blueTeamComp, TeamCompositionProfile redTeamComp) {
+            this.match = match;
             this.players = players;
             this.blueTeamComp = blueTeamComp;
             this.redTeamComp = redTeamComp;
@@ -109,23 +117,82 @@ public class MatchDataExtractor {
         public boolean isHeavyLosingEarly = false;
     }
 
-    // Classe interne pour représenter un événement de la timeline de manière riche
-    private static class TimelineEvent {
-        long timestamp;
-        String type; // CHAMPION_KILL, ELITE_MONSTER_KILL, BUILDING_KILL
-        int killerId;
-        int victimId;
-        int teamId; // L'équipe qui a réalisé l'action (Killer Team)
-        List<Integer> assistingParticipantIds = new ArrayList<>();
-        
-        // Pour les kills
-        int victimTeamId;
-
-        public TimelineEvent(long timestamp, String type, int killerId, int teamId) {
-            this.timestamp = timestamp;
-            this.type = type;
-            this.killerId = killerId;
-            this.teamId = teamId;
+    /**
+     * Collecte des événements clés (kills, objectifs) avec les équipes résolues,
+     * ainsi que les stats de mort/roam early, au fil du parcours de la timeline.
+     */
+    private static class CausalityConsumer implements TimelineConsumer {
+        final Map<Integer, PlayerContext> byId;
+        final CausalityWindow events = new CausalityWindow();
+        int blueEarlyKills = 0;
+        int redEarlyKills = 0;
+
+        CausalityConsumer(Map<Integer, PlayerContext> byId) {
+            this.byId = byId;
+        }
+
+        @Override
+        public void onChampionKill(TimelineEvent event) {
+            int killerId = event.killerId();
+            int victimId = event.victimId();
+            PlayerContext killer = byId.get(killerId);
+            PlayerContext victim = byId.get(victimId);
+            if (killer == null || victim == null) return;
+
+            long timestamp = event.timestamp();
+            events.addKill(timestamp, killerId, killer.teamId, victimId, victim.teamId);
+            int[] assists = event.assistingParticipantIds();
+
+            // Logique existante (Roam, Early Deaths)
+            double minutes = timestamp / 60000.0;
+
+            // Comptage des kills early pour HeavyLosingEarly
+            if (minutes <= 15.0) {
+                if (killer.teamId == 100) blueEarlyKills++;
+                else redEarlyKills++;
+            }
+
+            if (minutes <= 14.0) {
+                if (assists.length == 0) {
+                    if (killerId != 0) victim.earlySoloDeaths++;
+                } else {
+                    victim.earlyGankDeaths++;
+                }
+                // Roam detection
+                for (int assistId : assists) {
+                    PlayerContext assistant = byId.get(assistId);
+                    if (assistant != null && !assistant.role.equals(victim.role)) {
+                        if (assistant.role.equals("UTILITY") || assistant.role.equals("MIDDLE")) {
+                            assistant.earlyRoamTakedowns++;
+                        }
+                    }
+                }
+            } else if (minutes >= 25.0) {
+                victim.lateGameDeaths++;
+            }
+        }
+
+        @Override
+        public void onEliteMonsterKill(TimelineEvent event) {
+            addObjective(event);
+        }
+
+        @Override
+        public void onBuildingKill(TimelineEvent event) {
+            if (event.isStructureObjective()) addObjective(event);
+        }
+
+        private void addObjective(TimelineEvent event) {
+            int killerId = event.killerId();
+            int killerTeamId = event.killerTeamId(); // Parfois présent
+
+            if (killerTeamId == 0 && byId.containsKey(killerId)) {
+                killerTeamId = byId.get(killerId).teamId;
+            }
+
+            if (killerTeamId == 100 || killerTeamId == 200) {
+                events.addObjective(event.timestamp(), killerTeamId);
+            }
         }
     }
 
@@ -154,8 +221,10 @@ public class MatchDataExtractor {
 
     /**
      * Parcourt le match et la timeline UNE SEULE FOIS pour extraire les données causales.
+     *
+     * @param extraConsumers consommateurs alimentés pendant ce même parcours (ex: skill order du joueur ciblé)
      */
-    public static FullContext extractAll(JSONObject rawMatch, JSONObject rawTimeline) {
+    public static FullContext extractAll(MatchRecord match, TimelineData timeline, TimelineConsumer... extraConsumers) {
         Map<Integer, PlayerContext> byId = new HashMap<>();
         Map<String, PlayerContext> byChamp = new HashMap<>();
         Map<String, PlayerContext> blueTeamRoles = new HashMap<>();
@@ -167,55 +236,53 @@ public class MatchDataExtractor {
             // =================================================================
             // PASSAGE 1 : LECTURE DES PARTICIPANTS ET CHALLENGES
             // =================================================================
-            JSONArray participants = rawMatch.getJSONObject("info").getJSONArray("participants");
-            for (int i = 0; i < participants.length(); i++) {
-                JSONObject p = participants.getJSONObject(i);
+            for (ParticipantRecord p : match.participants()) {
                 PlayerContext ctx = new PlayerContext();
 
-                ctx.participantId = p.getInt("participantId");
-                ctx.championName = p.getString("championName").toUpperCase();
-                ctx.role = p.optString("teamPosition", "NONE");
-                ctx.teamId = p.getInt("teamId");
-                ctx.win = p.getBoolean("win");
+                ctx.participantId = p.participantId();
+                ctx.championName = p.championName().toUpperCase();
+                ctx.role = p.teamPosition().isEmpty() ? "NONE" : p.teamPosition();
+                ctx.teamId = p.teamId();
+                ctx.win = p.win();
 
                 // Basiques
-                ctx.kills = p.optInt("kills");
-                ctx.deaths = p.optInt("deaths");
-                ctx.assists = p.optInt("assists");
-                ctx.visionScore = p.optInt("visionScore");
-                ctx.damageDealtToObjectives = p.optInt("damageDealtToObjectives");
-                ctx.damageSelfMitigated = p.optInt("damageSelfMitigated");
-                ctx.kda = ctx.deaths == 0 ? (ctx.kills + ctx.assists) : (double) (ctx.kills + ctx.assists) / ctx.deaths;
-                ctx.controlWardsPlaced = p.optInt("visionWardsBoughtInGame", 0); // Les pink wards
-                ctx.totalCs = p.optInt("totalMinionsKilled", 0) + p.optInt("neutralMinionsKilled", 0);
+                ctx.kills = p.kills();
+                ctx.deaths = p.deaths();
+                ctx.assists = p.assists();
+                ctx.visionScore = p.visionScore();
+                ctx.damageDealtToObjectives = p.damageDealtToObjectives();
+                ctx.damageSelfMitigated = p.damageSelfMitigated();
+                ctx.kda = p.kda();
+                ctx.controlWardsPlaced = p.visionWardsBoughtInGame(); // Les pink wards
+                ctx.totalCs = p.totalCs();
 
                 // Challenges (La Mine d'Or de Riot)
-                JSONObject challenges = p.optJSONObject("challenges");
+                ChallengeStats challenges = p.challenges();
                 if (challenges != null) {
-                    ctx.laneGoldExpAdvantage = challenges.optDouble("laningPhaseGoldExpAdvantage", 0);
-                    ctx.maxCsAdvantage = challenges.optDouble("maxCsAdvantageOnLaneOpponent", 0);
-                    ctx.goldPerMinute = challenges.optDouble("goldPerMinute", 0);
-                    ctx.damagePerMinute = challenges.optDouble("damagePerMinute", 0);
-                    ctx.teamDamagePercentage = challenges.optDouble("teamDamagePercentage", 0);
-                    ctx.damageTakenOnTeamPercentage = (float) challenges.optDouble("damageTakenOnTeamPercentage", 0);
-                    ctx.effectiveHealAndShielding = (float) challenges.optDouble("effectiveHealAndShielding", 0);
-                    ctx.enemyChampionImmobilizations = challenges.optInt("enemyChampionImmobilizations", 0);
-                    ctx.saveAllyFromDeath = challenges.optInt("saveAllyFromDeath", 0);
-                    ctx.visionScoreAdvantage = (float) challenges.optDouble("visionScoreAdvantageLaneOpponent", 0);
-                    ctx.enemyJungleKills = (int) challenges.optDouble("enemyJungleMonsterKills", 0);
-                    ctx.epicMonsterSteals = challenges.optInt("epicMonsterSteals", 0);
-                    ctx.bountyGold = challenges.optInt("bountyGold", 0);
-                    ctx.killParticipation = challenges.optDouble("killParticipation", 0);
-                    ctx.soloKills = challenges.optInt("soloKills", 0);
-                    ctx.dragonTakedowns = challenges.optInt("dragonTakedowns", 0);
-                    ctx.baronTakedowns = challenges.optInt("baronTakedowns", 0);
-                    ctx.heraldTakedowns = challenges.optInt("riftHeraldTakedowns", 0);
+                    ctx.laneGoldExpAdvantage = challenges.laningPhaseGoldExpAdvantage();
+                    ctx.maxCsAdvantage = challenges.maxCsAdvantageOnLaneOpponent();
+                    ctx.goldPerMinute = challenges.goldPerMinute();
+                    ctx.damagePerMinute = challenges.damagePerMinute();
+                    ctx.teamDamagePercentage = challenges.teamDamagePercentage();
+                    ctx.damageTakenOnTeamPercentage = (float) challenges.damageTakenOnTeamPercentage();
+                    ctx.effectiveHealAndShielding = (float) challenges.effectiveHealAndShielding();
+                    ctx.enemyChampionImmobilizations = challenges.enemyChampionImmobilizations();
+                    ctx.saveAllyFromDeath = challenges.saveAllyFromDeath();
+                    ctx.visionScoreAdvantage = (float) challenges.visionScoreAdvantageLaneOpponent();
+                    ctx.enemyJungleKills = challenges.enemyJungleMonsterKills();
+                    ctx.epicMonsterSteals = challenges.epicMonsterSteals();
+                    ctx.bountyGold = challenges.bountyGold();
+                    ctx.killParticipation = challenges.killParticipation();
+                    ctx.soloKills = challenges.soloKills();
+                    ctx.dragonTakedowns = challenges.dragonTakedowns();
+                    ctx.baronTakedowns = challenges.baronTakedowns();
+                    ctx.heraldTakedowns = challenges.riftHeraldTakedowns();
 
                     // Map Control
-                    ctx.riverControlWardCoverage = (float) challenges.optDouble("controlWardTimeCoverageInRiverOrEnemyHalf", 0);
-                    ctx.voidGrubsKills = challenges.optInt("voidMonsterKill", 0);
-                    ctx.scuttleCrabs = challenges.optInt("scuttleCrabKills", 0);
-                    ctx.earlyRoamTakedowns = challenges.optInt("killsOnOtherLanesEarlyJungleAsLaner", 0);
+                    ctx.riverControlWardCoverage = (float) challenges.controlWardTimeCoverageInRiverOrEnemyHalf();
+                    ctx.voidGrubsKills = challenges.voidMonsterKill();
+                    ctx.scuttleCrabs = challenges.scuttleCrabKills();
+                    ctx.earlyRoamTakedowns = challenges.killsOnOtherLanesEarlyJungleAsLaner();
                 }
 
                 byId.put(ctx.participantId, ctx);
@@ -233,192 +300,46 @@ public class MatchDataExtractor {
             // =================================================================
             // PASSAGE 2 : LECTURE DE LA TIMELINE (Causalité et Throws)
             // =================================================================
-            if (rawTimeline != null && rawTimeline.has("info")) {
-                JSONArray frames = rawTimeline.getJSONObject("info").optJSONArray("frames");
-                if (frames != null) {
-                    List<TimelineEvent> allEvents = new ArrayList<>();
-                    int blueEarlyKills = 0;
-                    int redEarlyKills = 0;
-
-                    // 1. Extraction de tous les événements importants
-                    for (int i = 0; i < frames.length(); i++) {
-                        JSONObject frame = frames.getJSONObject(i);
-                        
-                        // A. Extraction du Duel à la Frame 14 (Golds exacts) - inchangé
-                        if (i == 14 && frame.has("participantFrames")) {
-                            JSONObject pFrames = frame.getJSONObject("participantFrames");
-                            for (PlayerContext bluePlayer : blueTeamRoles.values()) {
-                                PlayerContext redPlayer = redTeamRoles.get(bluePlayer.role);
-                                if (redPlayer != null && !bluePlayer.role.equals("NONE") &&
-                                        pFrames.has(String.valueOf(bluePlayer.participantId)) &&
-                                        pFrames.has(String.valueOf(redPlayer.participantId))) {
-
-                                    int blueGold = pFrames.getJSONObject(String.valueOf(bluePlayer.participantId)).optInt("totalGold", 0);
-                                    int redGold = pFrames.getJSONObject(String.valueOf(redPlayer.participantId)).optInt("totalGold", 0);
-
-                                    bluePlayer.goldDiffAt14 = blueGold - redGold;
-                                    redPlayer.goldDiffAt14 = redGold - blueGold;
-                                }
-                            }
-                        }
-
-                        JSONArray events = frame.optJSONArray("events");
-                        if (events != null) {
-                            for (int e = 0; e < events.length(); e++) {
-                                JSONObject event = events.getJSONObject(e);
-                                String type = event.optString("type");
-                                long timestamp = event.optLong("timestamp");
-                                
-                                if ("CHAMPION_KILL".equals(type)) {
-                                    int killerId = event.optInt("killerId");
-                                    int victimId = event.optInt("victimId");
-                                    PlayerContext killer = byId.get(killerId);
-                                    PlayerContext victim = byId.get(victimId);
-                                    
-                                    if (killer != null && victim != null) {
-                                        TimelineEvent te = new TimelineEvent(timestamp, type, killerId, killer.teamId);
-                                        te.victimId = victimId;
-                                        te.victimTeamId = victim.teamId;
-                                        
-                                        JSONArray assists = event.optJSONArray("assistingParticipantIds");
-                                        if (assists != null) {
-                                            for(int a=0; a<assists.length(); a++) te.assistingParticipantIds.add(assists.getInt(a));
-                                        }
-                                        allEvents.add(te);
-                                        
-                                        // Logique existante (Roam, Early Deaths)
-                                        double minutes = timestamp / 60000.0;
-                                        
-                                        // Comptage des kills early pour HeavyLosingEarly
-                                        if (minutes <= 15.0) {
-                                            if (killer.teamId == 100) blueEarlyKills++;
-                                            else redEarlyKills++;
-                                        }
-
-                                        if (minutes <= 14.0) {
-                                            if (te.assistingParticipantIds.isEmpty()) {
-                                                if (killerId != 0) victim.earlySoloDeaths++;
-                                            } else {
-                                                victim.earlyGankDeaths++;
-                                            }
-                                            // Roam detection
-                                            for (int assistId : te.assistingParticipantIds) {
-                                                PlayerContext assistant = byId.get(assistId);
-                                                if (assistant != null && !assistant.role.equals(victim.role)) {
-                                                    if (assistant.role.equals("UTILITY") || assistant.role.equals("MIDDLE")) {
-                                                        assistant.earlyRoamTakedowns++;
-                                                    }
-                                                }
-                                            }
-                                        } else if (minutes >= 25.0) {
-                                            victim.lateGameDeaths++;
-                                        }
-                                    }
-                                } else if ("ELITE_MONSTER_KILL".equals(type) || 
-                                          ("BUILDING_KILL".equals(type) && ("INHIBITOR_BUILDING".equals(event.optString("buildingType")) || "TOWER_BUILDING".equals(event.optString("buildingType"))))) {
-                                    
-                                    int killerId = event.optInt("killerId");
-                                    int killerTeamId = event.optInt("killerTeamId"); // Parfois présent
-                                    
-                                    if (killerTeamId == 0 && byId.containsKey(killerId)) {
-                                        killerTeamId = byId.get(killerId).teamId;
-                                    }
-                                    
-                                    if (killerTeamId == 100 || killerTeamId == 200) {
-                                        TimelineEvent te = new TimelineEvent(timestamp, type, killerId, killerTeamId);
-                                        allEvents.add(te);
-                                    }
-                                }
-                            }
-                        }
-                    }
-                    
-                    // 2. ANALYSE SÉQUENTIELLE (Le Cerveau)
-                    
-                    for (int i = 0; i < allEvents.size(); i++) {
-                        TimelineEvent current = allEvents.get(i);
-                        
-                        if ("CHAMPION_KILL".equals(current.type)) {
-                            boolean objectiveTakenAfter = false;
-                            boolean objectiveLostAfter = false;
-                            
-                            // Calcul dynamique de la fenêtre de temps (Death Timer approximatif)
-                            // Early game (~15s) -> Late game (~60-70s)
-                            double gameMinutes = current.timestamp / 60000.0;
-                            long dynamicWindowMs;
-                            if (gameMinutes < 15) {
-                                dynamicWindowMs = 15000 + (long)(gameMinutes * 1000); // 15s -> 30s
-                            } else if (gameMinutes < 30) {
-                                dynamicWindowMs = 30000 + (long)((gameMinutes - 15) * 2000); // 30s -> 60s
-                            } else {
-                                dynamicWindowMs = 60000 + (long)((gameMinutes - 30) * 1000); // 60s -> 70s+
-                            }
-                            
-                            // Modificateur de pression de fin de partie
-                            int weight = (current.timestamp > 1800000) ? 2 : 1; // > 30 minutes = double impact
-
-                            // On regarde le futur
-                            for (int j = i + 1; j < allEvents.size(); j++) {
-                                TimelineEvent future = allEvents.get(j);
-                                if (future.timestamp - current.timestamp > dynamicWindowMs) break; // Hors fenêtre dynamique
-                                
-                                if (!"CHAMPION_KILL".equals(future.type)) {
-                                    if (future.teamId == current.teamId) {
-                                        objectiveTakenAfter = true;
-                                    } else if (future.teamId == current.victimTeamId) {
-                                        objectiveLostAfter = true;
-                                    }
-                                }
-                            }
-                            
-                            // A. CLUTCH KILL (Kill -> Objectif)
-                            if (objectiveTakenAfter) {
-                                PlayerContext killer = byId.get(current.killerId);
-                                if (killer != null) killer.clutchKills += weight;
-                                // On pourrait aussi donner des points aux assistants ici
-                            }
-                            
-                            // B. UNFORCED ERROR / THROW (Mort -> Perte d'Objectif)
-                            if (objectiveLostAfter) {
-                                PlayerContext victim = byId.get(current.victimId);
-                                if (victim != null) {
-                                    // On vérifie si c'était un sacrifice (déjà géré par l'ancienne logique, mais on affine ici)
-                                    // Pour simplifier, toute mort suivie d'une perte d'objectif est un "Throw" potentiel
-                                    // Sauf si l'équipe de la victime a AUSSI pris un objectif (Trade)
-                                    if (!objectiveTakenAfter) {
-                                        victim.unforcedErrorDeaths += weight;
-                                    } else {
-                                        victim.sacrificialDeaths += weight; // C'était un trade (mort pour objectif)
-                                    }
-                                }
-                            }
-                            
-                            // C. PICK-OFF (Kill Isolé)
-                            // Nécessiterait les positions X,Y. Pour l'instant, on approxime :
-                            // Si aucun autre kill n'a eu lieu 10s avant ou après, c'est un pick-off.
-                            boolean isIsolated = true;
-                            for (int j = Math.max(0, i - 5); j < Math.min(allEvents.size(), i + 5); j++) {
-                                if (i == j) continue;
-                                TimelineEvent other = allEvents.get(j);
-                                if ("CHAMPION_KILL".equals(other.type) && Math.abs(other.timestamp - current.timestamp) < 10000) {
-                                    isIsolated = false;
-                                    break;
-                                }
-                            }
-                            
-                            if (isIsolated) {
-                                PlayerContext killer = byId.get(current.killerId);
-                                if (killer != null) killer.pickOffs += weight;
-                            }
+            if (timeline != null && !timeline.isEmpty()) {
+                // A. Extraction du Duel à la Frame 14 (Golds exacts) - inchangé
+                for (PlayerContext bluePlayer : blueTeamRoles.values()) {
+                    PlayerContext redPlayer = redTeamRoles.get(bluePlayer.role);
+                    if (redPlayer != null && !bluePlayer.role.equals("NONE")) {
+                        int blueGold = timeline.totalGoldAt(14, bluePlayer.participantId);
+                        int redGold = timeline.totalGoldAt(14, redPlayer.participantId);
+                        if (blueGold >= 0 && redGold >= 0) {
+                            bluePlayer.goldDiffAt14 = blueGold - redGold;
+                            redPlayer.goldDiffAt14 = redGold - blueGold;
                         }
                     }
+                }
 
-                    // C. Déduction Finale : Heavy Losing Early - inchangé
-                    boolean blueHeavyLosing = (redEarlyKills - blueEarlyKills) >= 5;
-                    boolean redHeavyLosing = (blueEarlyKills - redEarlyKills) >= 5;
-                    for (PlayerContext ctx : byId.values()) {
-                        ctx.isHeavyLosingEarly = (ctx.teamId == 100) ? blueHeavyLosing : redHeavyLosing;
-                    }
+                // 1. Extraction de tous les événements importants : UN SEUL parcours de la timeline,
+                //    partagé avec les consommateurs de l'appelant (skill order, build path, story...)
+                CausalityConsumer causality = new CausalityConsumer(byId);
+                List<TimelineConsumer> consumers = new ArrayList<>(1 + extraConsumers.length);
+                consumers.add(causality);
+                consumers.addAll(Arrays.asList(extraConsumers));
+                TimelineWalker.walk(timeline, consumers);
+
+                int blueEarlyKills = causality.blueEarlyKills;
+                int redEarlyKills = causality.redEarlyKills;
+
+                // 2. ANALYSE SÉQUENTIELLE (Le Cerveau) : un seul balayage O(n) à deux pointeurs
+                //    (fenêtre "death timer" + sommes préfixes d'objectifs), voir CausalityWindow
+                CausalityWindow.Result sequence = causality.events.analyze();
+                for (PlayerContext ctx : byId.values()) {
+                    ctx.clutchKills += sequence.clutchKills(ctx.participantId);          // Kill -> Objectif
+                    ctx.unforcedErrorDeaths += sequence.unforcedErrorDeaths(ctx.participantId); // Mort -> Perte d'objectif
+                    ctx.sacrificialDeaths += sequence.sacrificialDeaths(ctx.participantId);     // Trade (mort pour objectif)
+                    ctx.pickOffs += sequence.pickOffs(ctx.participantId);                // Kill isolé (±10s)
+                }
+
+                // C. Déduction Finale : Heavy Losing Early - inchangé
+                boolean blueHeavyLosing = (redEarlyKills - blueEarlyKills) >= 5;
+                boolean redHeavyLosing = (blueEarlyKills - redEarlyKills) >= 5;
+                for (PlayerContext ctx : byId.values()) {
+                    ctx.isHeavyLosingEarly = (ctx.teamId == 100) ? blueHeavyLosing : redHeavyLosing;
                 }
             }
         } catch (Exception e) {
@@ -429,6 +350,6 @@ public class MatchDataExtractor {
         TeamCompositionProfile blueTeamComp = createTeamProfile(blueTeamPlayers);
         TeamCompositionProfile redTeamComp = createTeamProfile(redTeamPlayers);
 
-        return new FullContext(byChamp, blueTeamComp, redTeamComp);
+        return new FullContext(match, byChamp, blueTeamComp, redTeamComp);
     }
 }
\ No newline at end of file
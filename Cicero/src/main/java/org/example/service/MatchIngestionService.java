@@ -0,0 +1,159 @@
+package org.example.service;
+
+import org.example.DatabaseManager;
+import org.example.service.RiotService.RankInfo;
+import org.example.service.match.MatchRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingestion continue des matchs des joueurs suivis.
+ * Chaque joueur a son propre rythme : on le surveille de près pendant une session de jeu
+ * (une game vient de tomber), puis de moins en moins souvent quand il ne joue plus.
+ * Chaque nouveau match est téléchargé (MatchStore + caches), analysé et noté dans match_scores :
+ * /performance juste après une game et le récap de minuit tombent sur des données chaudes.
+ */
+public class MatchIngestionService {
+
+    // --- RYTHMES DE SONDAGE ---
+    private static final long TICK_MS = 30 * 1000;                       // Réveil du planificateur
+    private static final long ACTIVE_INTERVAL_MS = 2 * 60 * 1000;        // En session : une game dure 15 à 40 min
+    private static final long WARM_INTERVAL_MS = 10 * 60 * 1000;         // A joué il y a peu
+    private static final long IDLE_INTERVAL_MS = 30 * 60 * 1000;         // Ne joue plus
+    private static final long ACTIVE_SESSION_MS = 90 * 60 * 1000;        // Une nouvelle game dans les 90 dernières min = session active
+    private static final long WARM_SESSION_MS = 6 * 60 * 60 * 1000;
+    private static final int HISTORY_DEPTH = 5;
+
+    private final DatabaseManager db;
+    private final RiotService riotService;
+    private final MatchScoreService matchScoreService;
+    // Ne consomme que le quota Riot laissé libre par les commandes (comme le récap)
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            task -> {
+                Thread t = new Thread(() -> RequestPriority.BACKGROUND.run(task), "match-ingestion");
+                t.setDaemon(true);
+                return t;
+            });
+    private final Map<String, PollState> states = new ConcurrentHashMap<>();
+
+    public MatchIngestionService(DatabaseManager db, RiotService riotService, MatchScoreService matchScoreService) {
+        this.db = db;
+        this.riotService = riotService;
+        this.matchScoreService = matchScoreService;
+    }
+
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::tick, 0, TICK_MS, TimeUnit.MILLISECONDS);
+        System.out.println("Ingestion des matchs démarrée (session: " + ACTIVE_INTERVAL_MS / 60000 + " min, repos: " + IDLE_INTERVAL_MS / 60000 + " min).");
+    }
+
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /** Sonde tous les joueurs dont l'échéance est passée : historiques en parallèle, puis ingestion des nouveautés. */
+    private void tick() {
+        try {
+            long now = System.currentTimeMillis();
+            List<Poll> polls = new ArrayList<>();
+            for (DatabaseManager.UserRecord user : db.getAllUsers()) {
+                PollState state = states.computeIfAbsent(user.puuid, k -> new PollState());
+                if (state.inFlight || now < state.nextPollAt) continue;
+
+                state.inFlight = true;
+                polls.add(new Poll(user, state,
+                        riotService.getMatchHistoryIdsAsync(user.puuid, user.region, null, HISTORY_DEPTH),
+                        riotService.getRankAsync(user.puuid, user.region).exceptionally(e -> null)));
+            }
+
+            // Les téléchargements partent de ce thread pour garder la priorité BACKGROUND
+            for (Poll poll : polls) {
+                try {
+                    ingest(poll, now);
+                } catch (Exception e) {
+                    System.err.println("Ingestion impossible pour " + poll.user.summonerName + " : " + e.getMessage());
+                    poll.state.backOff(now);
+                    poll.state.inFlight = false;
+                }
+            }
+        } catch (Exception e) {
+            // Une exception non rattrapée annulerait la planification
+            System.err.println("Erreur ingestion des matchs : " + e.getMessage());
+        }
+    }
+
+    private void ingest(Poll poll, long now) {
+        List<String> ids = poll.history.join();
+        PollState state = poll.state;
+
+        boolean newMatch = !ids.isEmpty() && !ids.get(0).equals(state.latestMatchId);
+        if (newMatch && state.latestMatchId != null) {
+            state.lastActivityAt = now;
+        } else if (newMatch) {
+            // Premier passage (démarrage du bot) : la fin de la dernière game dit si le joueur est en pleine session
+            state.lastActivityAt = lastGameEnd(poll.user, ids.get(0));
+        }
+        if (!ids.isEmpty()) state.latestMatchId = ids.get(0);
+
+        if (ids.isEmpty()) {
+            state.scheduleNext(now);
+            state.inFlight = false;
+            return;
+        }
+
+        // Même sans nouveauté, on repasse sur les matchs pas encore notés (timeline pas encore publiée par Riot...) :
+        // catchUp ne télécharge que ce qui manque dans match_scores
+        RankInfo rank = poll.rank.join();
+        String tier = rank != null ? rank.tier : "UNRANKED";
+        matchScoreService.catchUp(poll.user, tier, ids)
+                .whenComplete((scored, error) -> {
+                    if (error != null) {
+                        System.err.println("Ingestion incomplète pour " + poll.user.summonerName + " : " + error.getMessage());
+                    } else if (scored > 0) {
+                        System.out.println("Ingestion : " + scored + " nouveau(x) match(s) noté(s) pour " + poll.user.summonerName);
+                    }
+                    state.scheduleNext(System.currentTimeMillis());
+                    state.inFlight = false;
+                });
+    }
+
+    /** Fin de la game (0 si inconnue) ; le match est de toute façon téléchargé ensuite par catchUp, donc ensuite en cache. */
+    private long lastGameEnd(DatabaseManager.UserRecord user, String matchId) {
+        MatchRecord match = riotService.getMatchRecordAsync(matchId, user.region).exceptionally(e -> null).join();
+        return match != null ? match.gameEndTimestamp() : 0;
+    }
+
+    private record Poll(DatabaseManager.UserRecord user, PollState state,
+                        CompletableFuture<List<String>> history, CompletableFuture<RankInfo> rank) {}
+
+    /** Rythme de sondage d'un joueur (modifié uniquement par le thread d'ingestion et ses callbacks). */
+    private static class PollState {
+        volatile boolean inFlight = false;
+        volatile long nextPollAt = 0;
+        volatile long lastActivityAt = 0;
+        volatile String latestMatchId = null;
+        volatile long errorDelayMs = 0;
+
+        void scheduleNext(long now) {
+            errorDelayMs = 0;
+            long sinceActivity = now - lastActivityAt;
+            long interval = sinceActivity < ACTIVE_SESSION_MS ? ACTIVE_INTERVAL_MS
+                    : sinceActivity < WARM_SESSION_MS ? WARM_INTERVAL_MS
+                    : IDLE_INTERVAL_MS;
+            nextPollAt = now + interval;
+        }
+
+        /** Erreur (quota, réseau) : on espace les essais, sans dépasser le rythme de repos. */
+        void backOff(long now) {
+            errorDelayMs = errorDelayMs == 0 ? ACTIVE_INTERVAL_MS : Math.min(errorDelayMs * 2, IDLE_INTERVAL_MS);
+            nextPollAt = now + errorDelayMs;
+        }
+    }
+}
@@ -1,17 +1,16 @@
 package org.example.service;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
+import org.example.service.match.ParticipantRecord;
 
 public class MatchNarrator {
 
-    public static String buildPlayerDigest(JSONObject player, MatchDataExtractor.PlayerContext ctx, MatchDataExtractor.PlayerContext oppCtx) {
+    public static String buildPlayerDigest(ParticipantRecord player, MatchDataExtractor.PlayerContext ctx, MatchDataExtractor.PlayerContext oppCtx) {
         StringBuilder digest = new StringBuilder();
 
         // 1. IDENTITÉ ET RÔLE DYNAMIQUE
-        String champion = player.optString("champion", "Inconnu");
-        String role = player.optString("role", "Inconnu");
-        boolean win = player.optBoolean("win", false);
+        String champion = player.championName().isEmpty() ? "Inconnu" : player.championName();
+        String role = player.teamPosition().isEmpty() ? "Inconnu" : player.teamPosition();
+        boolean win = player.win();
 
         digest.append("=== PROFIL MACRO : ").append(champion).append(" (").append(role).append(") ===\n");
         digest.append("- Résultat: ").append(win ? "VICTOIRE" : "DÉFAITE").append("\n");
@@ -23,7 +22,7 @@ public class MatchNarrator {
         String laneStatus = (ctx.goldDiffAt14 > 1000) ? "Domination totale" :
                 (ctx.goldDiffAt14 < -1000) ? "A sombré" : "Lane équilibrée";
         digest.append("- Statut Lane: ").append(laneStatus).append(" (Diff: ").append(ctx.goldDiffAt14).append("g à 14min).\n");
-        digest.append("- Farming: ").append(player.optInt("cs", 0)).append(" CS total (Avantage Max: ").append(ctx.maxCsAdvantage).append(").\n");
+        digest.append("- Farming: ").append(player.totalCs()).append(" CS total (Avantage Max: ").append(ctx.maxCsAdvantage).append(").\n");
 
         if (ctx.earlySoloDeaths > 0) {
             digest.append("- Alerte: S'est fait dominer en 1v1 pur (").append(ctx.earlySoloDeaths).append(" morts solo).\n");
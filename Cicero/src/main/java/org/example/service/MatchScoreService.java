@@ -0,0 +1,113 @@
+package org.example.service;
+
+import org.example.DatabaseManager;
+import org.example.service.match.ParticipantRecord;
+import org.example.util.ExecutorFactory;
+import org.example.util.TimedExecutor;
+import org.json.JSONArray;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+/**
+ * Note chaque match d'un joueur suivi UNE SEULE FOIS et la range dans match_scores.
+ * /performance y écrit au passage (note mathématique puis note ajustée par l'Analyste) ;
+ * le récap de minuit ne télécharge plus que les matchs encore absents, puis agrège en SQL.
+ */
+public class MatchScoreService {
+    private final DatabaseManager db;
+    private final RiotService riotService;
+    private final BenchmarkService benchmarkService;
+    // Notation (CPU) des matchs du rattrapage : hors des threads qui complètent les futurs Riot (OkHttp, riot-batch)
+    private final ExecutorService scoringExecutor = new TimedExecutor("match-scoring",
+            ExecutorFactory.newTaskExecutor("match-scoring", Math.max(2, Runtime.getRuntime().availableProcessors())));
+
+    public MatchScoreService(DatabaseManager db, RiotService riotService, BenchmarkService benchmarkService) {
+        this.db = db;
+        this.riotService = riotService;
+        this.benchmarkService = benchmarkService;
+    }
+
+    /**
+     * Calcule la note mathématique du joueur dans ce match (adversaire direct + compo ennemie).
+     * @return null si le joueur n'a pas joué ce match
+     */
+    public ScoreCalculator.ScoreResult score(MatchDataExtractor.FullContext fullContext, ParticipantRecord player, String tier) {
+        return ScoreCalculator.scoreParticipant(fullContext, player, tier, benchmarkService.getTable());
+    }
+
+    /**
+     * Persiste une note déjà calculée (ex: par /performance, qui a besoin du détail pour l'embed).
+     * @return complété une fois la ligne écrite en base (l'écriture passe par la file de l'écrivain)
+     */
+    public CompletableFuture<Void> save(MatchDataExtractor.FullContext fullContext, ParticipantRecord player, String tier, ScoreCalculator.ScoreResult result) {
+        JSONArray pillars = result.toJson().optJSONArray("pillars");
+        return db.saveMatchScore(new DatabaseManager.MatchScoreRecord(
+                fullContext.match.matchId(),
+                player.puuid(),
+                fullContext.match.gameCreation(),
+                player.win(),
+                player.championName(),
+                player.teamPosition(),
+                tier,
+                result.mathScore(),
+                pillars != null ? pillars.toString() : "[]",
+                null
+        ));
+    }
+
+    /**
+     * Calcule et persiste la note du joueur.
+     * @return true une fois la note écrite en base ; false s'il n'a pas pu être noté
+     */
+    public CompletableFuture<Boolean> scoreAndSave(MatchDataExtractor.FullContext fullContext, String puuid, String tier) {
+        if (fullContext == null) return CompletableFuture.completedFuture(false);
+        ParticipantRecord player = fullContext.match.participant(puuid);
+        if (player == null) return CompletableFuture.completedFuture(false);
+        ScoreCalculator.ScoreResult result = score(fullContext, player, tier);
+        if (result == null) return CompletableFuture.completedFuture(false);
+        return save(fullContext, player, tier, result).thenApply(v -> true);
+    }
+
+    public void saveAdjustedScore(String matchId, String puuid, double adjustedScore) {
+        db.updateAdjustedScore(matchId, puuid, adjustedScore);
+    }
+
+    /**
+     * Note les matchs de la liste qui ne sont pas encore en base. Les requêtes Riot partent du thread
+     * appelant (donc avec sa priorité) et tournent en parallèle ; une nouvelle tentative par match en cas d'échec.
+     *
+     * @return nombre de matchs nouvellement notés, complété seulement une fois leurs notes écrites en base
+     *         (le récap agrège match_scores juste après)
+     */
+    public CompletableFuture<Integer> catchUp(DatabaseManager.UserRecord user, String tier, List<String> matchIds) {
+        Set<String> alreadyScored = db.getScoredMatchIds(user.puuid, matchIds);
+
+        List<CompletableFuture<Boolean>> pending = new ArrayList<>();
+        for (String matchId : matchIds) {
+            if (alreadyScored.contains(matchId)) continue;
+
+            // Un 429 éventuel a été absorbé par le limiteur (Retry-After) : une seule nouvelle tentative suffit
+            Supplier<CompletableFuture<MatchDataExtractor.FullContext>> retry =
+                    RequestPriority.propagate(() -> riotService.getMatchContextAsync(matchId, user.region));
+            pending.add(riotService.getMatchContextAsync(matchId, user.region)
+                    .thenCompose(fullContext -> {
+                        if (fullContext != null) return CompletableFuture.completedFuture(fullContext);
+                        System.out.println("⚠️ Quota atteint ou erreur sur " + matchId + ". Nouvelle tentative...");
+                        return retry.get();
+                    })
+                    .thenComposeAsync(fullContext -> scoreAndSave(fullContext, user.puuid, tier), scoringExecutor)
+                    .exceptionally(e -> {
+                        System.err.println("Erreur analyse match " + matchId + ": " + e.getMessage());
+                        return false;
+                    }));
+        }
+
+        return CompletableFuture.allOf(pending.toArray(new CompletableFuture[0]))
+                .thenApply(v -> (int) pending.stream().filter(CompletableFuture::join).count());
+    }
+}
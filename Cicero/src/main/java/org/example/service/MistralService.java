@@ -12,6 +12,9 @@ import dev.langchain4j.service.UserMessage;
 import io.github.cdimascio.dotenv.Dotenv;
 import org.example.service.ai.PromptRegistry;
 import org.example.service.ai.Records.MatchAnalysisResult; // <-- Le bon import est ici !
+import org.example.util.ExecutorFactory;
+import org.example.util.ResourceLimiter;
+import org.example.util.TimedExecutor;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
@@ -23,6 +26,8 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 public class MistralService {
 
@@ -57,6 +62,15 @@ public class MistralService {
         String summarizeDay(@UserMessage String playerStatsContext);
     }
 
+    /**
+     * NŒUD 5 bis : Le Chroniqueur Quotidien en lot.
+     * Une phrase par joueur, renvoyées dans un tableau JSON (un seul appel par lot de joueurs).
+     */
+    interface DailyChroniclerBatchAgent {
+        @SystemMessage(PromptRegistry.DAILY_CHRONICLER_BATCH_SYSTEM)
+        String summarizeDays(@UserMessage String playersStatsContext);
+    }
+
     /**
      * NŒUD 6 : Le Chroniqueur MVP Périodique.
      * Il rédige un éloge pour le MVP de la semaine ou du mois.
@@ -66,6 +80,15 @@ public class MistralService {
         String writeMvpEulogy(@UserMessage String playerStatsContext);
     }
 
+    /**
+     * NŒUD 7 : Le Mémorialiste.
+     * Il condense les anciens tours d'une conversation /ask en un résumé court (compaction de la mémoire).
+     */
+    interface ConversationSummarizerAgent {
+        @SystemMessage(PromptRegistry.CONVERSATION_SUMMARIZER_SYSTEM)
+        String summarize(@UserMessage String digestAndTranscript);
+    }
+
     /**
      * Agent Générique pour les anciennes commandes.
      */
@@ -78,17 +101,25 @@ public class MistralService {
     // ========================================================================
 
     public static class HistoryTool {
+        private final String digest;
         private final JSONArray history;
 
-        public HistoryTool(JSONArray history) {
+        /** @param digest résumé des tours plus anciens que history (null si aucun) */
+        public HistoryTool(String digest, JSONArray history) {
+            this.digest = digest;
             this.history = history;
         }
 
         @Tool("Récupère l'historique récent de la conversation. Utile pour comprendre le contexte des échanges passés.")
         public String getConversationHistory() {
-            if (history == null || history.isEmpty()) return "Aucun historique disponible.";
+            boolean hasDigest = digest != null && !digest.isBlank();
+            if (!hasDigest && (history == null || history.isEmpty())) return "Aucun historique disponible.";
 
-            StringBuilder sb = new StringBuilder("[HISTORIQUE RÉCENT]\n");
+            StringBuilder sb = new StringBuilder();
+            if (hasDigest) sb.append("[RÉSUMÉ DES ÉCHANGES PRÉCÉDENTS]\n").append(digest).append("\n\n");
+            if (history == null || history.isEmpty()) return sb.toString();
+
+            sb.append("[HISTORIQUE RÉCENT]\n");
             for (int i = 0; i < history.length(); i++) {
                 JSONObject msg = history.getJSONObject(i);
                 String role = msg.getString("role");
@@ -112,11 +143,22 @@ public class MistralService {
     private final List<Object> defaultTools;
     private final TavilyService tavilyService;
 
+    // Nombre de requêtes Mistral simultanées (la vraie limite depuis que les commandes tournent en threads virtuels)
+    private final ResourceLimiter llmLimiter = ResourceLimiter.fromEnv("mistral", "MISTRAL_MAX_CONCURRENCY", 4);
+
+    // Lots du chroniqueur quotidien envoyés en parallèle (chaque requête reste bornée par llmLimiter)
+    private final ExecutorService batchExecutor = new TimedExecutor("mistral-batch", ExecutorFactory.newTaskExecutor("mistral-batch", 2));
+    private static final int CHRONICLER_BATCH_SIZE = 8;
+
     private static final ThreadLocal<StringBuilder> agentTraceLog = ThreadLocal.withInitial(StringBuilder::new);
 
     public MistralService(RiotService riotService, TavilyService tavilyService) {
-        Dotenv dotenv = Dotenv.load();
-        this.apiKey = dotenv.get("MISTRAL_API_KEY");
+        this(riotService, tavilyService, Dotenv.load().get("MISTRAL_API_KEY"));
+    }
+
+    /** Clé fournie explicitement (sans .env) : rejeu hors-ligne, doublures de test. */
+    public MistralService(RiotService riotService, TavilyService tavilyService, String apiKey) {
+        this.apiKey = apiKey;
 
         if (apiKey == null || apiKey.isEmpty()) {
             throw new IllegalStateException("MISTRAL_API_KEY is missing!");
@@ -147,12 +189,12 @@ public class MistralService {
         logAgentTrace(PromptRegistry.PERFORMANCE_ANALYST_SYSTEM, "Input Data:\n" + enrichedMatchJson);
 
         // Modèle spécifique très froid (0.3) pour la rigueur mathématique et le JSON
-        ChatModel analystModel = MistralAiChatModel.builder()
+        ChatModel analystModel = limited("analyst", MistralAiChatModel.builder()
                 .apiKey(apiKey)
                 .modelName("mistral-large-latest")
                 .temperature(0.3)
                 .timeout(Duration.ofMinutes(5))
-                .build();
+                .build());
 
         AnalystAgent agent = AiServices.builder(AnalystAgent.class)
                 .chatModel(analystModel)
@@ -170,12 +212,12 @@ public class MistralService {
         logAgentTrace(PromptRegistry.PERFORMANCE_CASTER_SYSTEM, "Analyst Data:\n" + analystReportStr);
 
         // Modèle spécifique créatif (0.8) pour l'humour et le style
-        ChatModel casterModel = MistralAiChatModel.builder()
+        ChatModel casterModel = limited("caster", MistralAiChatModel.builder()
                 .apiKey(apiKey)
                 .modelName("mistral-large-latest")
                 .temperature(0.8)
                 .timeout(Duration.ofMinutes(5))
-                .build();
+                .build());
 
         CasterAgent agent = AiServices.builder(CasterAgent.class)
                 .chatModel(casterModel)
@@ -187,12 +229,12 @@ public class MistralService {
 
     public String runDailyChronicler(String playerStatsContext) {
         // Modèle créatif (0.8) pour le ton sarcastique/hype
-        ChatModel chroniclerModel = MistralAiChatModel.builder()
+        ChatModel chroniclerModel = limited("chronicler", MistralAiChatModel.builder()
                 .apiKey(apiKey)
                 .modelName("mistral-large-latest")
                 .temperature(0.8)
                 .timeout(Duration.ofMinutes(2))
-                .build();
+                .build());
 
         DailyChroniclerAgent agent = AiServices.builder(DailyChroniclerAgent.class)
                 .chatModel(chroniclerModel)
@@ -201,14 +243,101 @@ public class MistralService {
         return agent.summarizeDay(playerStatsContext);
     }
 
+    /**
+     * Chroniqueur quotidien pour tout le serveur : les joueurs sont envoyés par lots de CHRONICLER_BATCH_SIZE
+     * (un appel Mistral par lot au lieu d'un par joueur). Si un lot revient mal formé, ses joueurs
+     * repassent un par un par runDailyChronicler.
+     *
+     * @return une phrase par contexte, dans le même ordre (jamais null)
+     */
+    public List<String> runDailyChroniclerBatch(List<String> playerStatsContexts) {
+        List<CompletableFuture<List<String>>> batches = new ArrayList<>();
+        for (int from = 0; from < playerStatsContexts.size(); from += CHRONICLER_BATCH_SIZE) {
+            List<String> batch = playerStatsContexts.subList(from, Math.min(from + CHRONICLER_BATCH_SIZE, playerStatsContexts.size()));
+            batches.add(CompletableFuture.supplyAsync(RequestPriority.propagate(() -> summarizeBatch(batch)), batchExecutor));
+        }
+
+        List<String> summaries = new ArrayList<>(playerStatsContexts.size());
+        for (CompletableFuture<List<String>> batch : batches) summaries.addAll(batch.join());
+        return summaries;
+    }
+
+    private List<String> summarizeBatch(List<String> contexts) {
+        ChatModel chroniclerModel = limited("chronicler_batch", MistralAiChatModel.builder()
+                .apiKey(apiKey)
+                .modelName("mistral-large-latest")
+                .temperature(0.8)
+                .timeout(Duration.ofMinutes(2))
+                .build());
+
+        DailyChroniclerBatchAgent agent = AiServices.builder(DailyChroniclerBatchAgent.class)
+                .chatModel(chroniclerModel)
+                .build();
+
+        StringBuilder prompt = new StringBuilder();
+        for (int i = 0; i < contexts.size(); i++) {
+            prompt.append(i + 1).append(". ").append(contexts.get(i)).append("\n");
+        }
+
+        try {
+            String response = agent.summarizeDays(prompt.toString());
+            int start = response.indexOf('[');
+            int end = response.lastIndexOf(']');
+            if (start >= 0 && end > start) {
+                JSONArray sentences = new JSONArray(response.substring(start, end + 1));
+                if (sentences.length() == contexts.size()) {
+                    List<String> summaries = new ArrayList<>(contexts.size());
+                    for (int i = 0; i < sentences.length(); i++) summaries.add(sentences.optString(i, "").trim());
+                    return summaries;
+                }
+            }
+            System.err.println("Chroniqueur en lot : réponse inattendue (" + contexts.size() + " joueurs), repli joueur par joueur.");
+        } catch (Exception e) {
+            System.err.println("Erreur Chroniqueur en lot : " + e.getMessage() + ", repli joueur par joueur.");
+        }
+
+        List<String> summaries = new ArrayList<>(contexts.size());
+        for (String context : contexts) {
+            try {
+                summaries.add(runDailyChronicler(context));
+            } catch (Exception e) {
+                System.err.println("Erreur IA Chronicler : " + e.getMessage());
+                summaries.add("Pas de commentaire disponible.");
+            }
+        }
+        return summaries;
+    }
+
+    /**
+     * Compaction de la mémoire de chat : fusionne le résumé existant et les anciens échanges en un nouveau résumé.
+     * @param transcript échanges à absorber, une ligne "Utilisateur: ..." / "IA: ..." par message
+     */
+    public String summarizeConversation(String previousDigest, String transcript) {
+        // Petit modèle froid : c'est de la prise de notes, pas de l'analyse
+        ChatModel summarizerModel = limited("summarizer", MistralAiChatModel.builder()
+                .apiKey(apiKey)
+                .modelName("mistral-small-latest")
+                .temperature(0.2)
+                .timeout(Duration.ofMinutes(1))
+                .build());
+
+        ConversationSummarizerAgent agent = AiServices.builder(ConversationSummarizerAgent.class)
+                .chatModel(summarizerModel)
+                .build();
+
+        String prompt = "[RÉSUMÉ EXISTANT]\n" + (previousDigest != null && !previousDigest.isBlank() ? previousDigest : "(aucun)")
+                + "\n\n[NOUVEAUX ÉCHANGES]\n" + transcript;
+        return agent.summarize(prompt);
+    }
+
     public String runPeriodMvpChronicler(String playerStatsContext) {
         // Modèle créatif (0.9) pour l'éloge épique
-        ChatModel chroniclerModel = MistralAiChatModel.builder()
+        ChatModel chroniclerModel = limited("mvp_chronicler", MistralAiChatModel.builder()
                 .apiKey(apiKey)
                 .modelName("mistral-large-latest")
                 .temperature(0.9)
                 .timeout(Duration.ofMinutes(2))
-                .build();
+                .build());
 
         PeriodMvpChroniclerAgent agent = AiServices.builder(PeriodMvpChroniclerAgent.class)
                 .chatModel(chroniclerModel)
@@ -221,9 +350,9 @@ public class MistralService {
     // 5. ANCIENNES MÉTHODES (Conservées pour rétrocompatibilité)
     // ========================================================================
 
-    private LolAgent createGenericAgent(ChatMemory chatMemory, List<Object> tools) {
+    private LolAgent createGenericAgent(String agentName, ChatMemory chatMemory, List<Object> tools) {
         return AiServices.builder(LolAgent.class)
-                .chatModel(defaultModel)
+                .chatModel(limited(agentName, defaultModel))
                 .chatMemory(chatMemory)
                 .tools(tools)
                 .build();
@@ -235,10 +364,11 @@ public class MistralService {
         memory.add(new dev.langchain4j.data.message.SystemMessage(systemPrompt));
 
         logAgentTrace(systemPrompt, userQuestion);
-        LolAgent agent = createGenericAgent(memory, this.defaultTools);
+        LolAgent agent = createGenericAgent("analyze", memory, this.defaultTools);
 
         try {
-            String response = agent.chat(userQuestion);
+            // Les outils Riot appelés par l'agent passent après les commandes slash directes
+            String response = RequestPriority.AI_TOOL.call(() -> agent.chat(userQuestion));
             logChatMemory(memory);
             return response;
         } catch (Exception e) {
@@ -253,10 +383,10 @@ public class MistralService {
         memory.add(new dev.langchain4j.data.message.SystemMessage(fullSystemContext));
 
         logAgentTrace(fullSystemContext, userMessage);
-        LolAgent agent = createGenericAgent(memory, this.defaultTools);
+        LolAgent agent = createGenericAgent("task", memory, this.defaultTools);
 
         try {
-            String response = agent.chat(userMessage);
+            String response = RequestPriority.AI_TOOL.call(() -> agent.chat(userMessage));
             logChatMemory(memory);
             return response;
         } catch (Exception e) {
@@ -266,14 +396,20 @@ public class MistralService {
         }
     }
 
-    public String chatWithHistory(JSONArray previousHistory, String systemContext, String originalUserQuestion) {
+    /**
+     * @param digest résumé des anciens tours (ChatMemoryService) ; previousHistory ne contient alors que les tours récents
+     */
+    public String chatWithHistory(String digest, JSONArray previousHistory, String systemContext, String originalUserQuestion) {
         ChatMemory chatMemory = MessageWindowChatMemory.withMaxMessages(20);
         chatMemory.add(new dev.langchain4j.data.message.SystemMessage(systemContext));
 
         List<Object> toolsWithHistory = new ArrayList<>(this.defaultTools);
-        toolsWithHistory.add(new HistoryTool(previousHistory));
+        toolsWithHistory.add(new HistoryTool(digest, previousHistory));
 
         StringBuilder fullTraceContext = new StringBuilder(systemContext);
+        if (digest != null && !digest.isBlank()) {
+            fullTraceContext.append("\n\n[DIGEST (Available via Tool)]\n").append(digest);
+        }
         if (previousHistory != null && !previousHistory.isEmpty()) {
             try {
                 fullTraceContext.append("\n\n[HISTORY (Available via Tool)]\n").append(previousHistory.toString(2));
@@ -283,10 +419,10 @@ public class MistralService {
         }
         logAgentTrace(fullTraceContext.toString(), originalUserQuestion);
 
-        LolAgent agent = createGenericAgent(chatMemory, toolsWithHistory);
+        LolAgent agent = createGenericAgent("chat", chatMemory, toolsWithHistory);
 
         try {
-            String response = agent.chat(originalUserQuestion);
+            String response = RequestPriority.AI_TOOL.call(() -> agent.chat(originalUserQuestion));
             logChatMemory(chatMemory);
             return response;
         } catch (Exception e) {
@@ -322,6 +458,18 @@ public class MistralService {
         sb.append("=====================================================\n\n");
     }
 
+    /**
+     * Chaque requête envoyée au modèle prend un permis de llmLimiter (pas le tour d'agent entier, outils compris)
+     * et est chronométrée dans llm_call{agent=agentName}.
+     */
+    private ChatModel limited(String agentName, ChatModel model) {
+        return new LimitedChatModel(model, llmLimiter, agentName);
+    }
+
+    public ResourceLimiter getLlmLimiter() {
+        return llmLimiter;
+    }
+
     public void flushTraces() {
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
         String agentTrace = agentTraceLog.get().toString();
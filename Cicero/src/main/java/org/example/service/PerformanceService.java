@@ -0,0 +1,140 @@
+package org.example.service;
+
+import org.example.service.ai.Records.AnalystAdjustment;
+import org.example.service.ai.Records.MatchAnalysisResult;
+import org.example.service.match.MatchRecord;
+import org.example.service.match.ParticipantRecord;
+import org.example.service.match.TimelineData;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Pipeline /performance sans Discord ni persistance : PerformanceCommand l'habille (embeds, audit, sauvegardes)
+ * et le banc de rejeu (bench/) le mesure tel quel.
+ * Deux temps, comme l'affichage : les notes mathématiques (premier embed), puis l'Analyste et le Caster.
+ */
+public class PerformanceService {
+    private final RiotService riotService;
+    private final MistralService mistralService;
+    private final BenchmarkService benchmarkService;
+
+    public PerformanceService(RiotService riotService, MistralService mistralService, BenchmarkService benchmarkService) {
+        this.riotService = riotService;
+        this.mistralService = mistralService;
+        this.benchmarkService = benchmarkService;
+    }
+
+    /**
+     * Dernier match d'un joueur, noté.
+     * @param playersJson vue JSON des joueurs pour l'IA (joueur ciblé, alliés, ennemis)
+     * @param playerMap ces mêmes objets indexés par champion (en majuscules), sans les joueurs non notés
+     */
+    public record Report(String matchId, String tier, double durationMin, MatchDataExtractor.FullContext fullContext,
+                         ParticipantRecord target, ScoreCalculator.ScoreResult targetScore,
+                         JSONArray playersJson, Map<String, JSONObject> playerMap) {}
+
+    /** Étape 1 : téléchargement (match + timeline en parallèle), contexte causal et les dix notes en une passe. */
+    public Report scoreLastMatch(String puuid, String region) throws IOException {
+        String lastMatchId = riotService.getLastMatchId(puuid, region);
+        if (lastMatchId.startsWith("Error") || lastMatchId.equals("None")) throw new IllegalStateException("Aucun match récent (" + lastMatchId + ").");
+
+        // Match typé + timeline (caches partagés de RiotService), téléchargés en parallèle
+        CompletableFuture<TimelineData> timelineFuture = riotService.getTimelineAsync(lastMatchId, region)
+                .exceptionally(e -> TimelineData.EMPTY);
+        MatchRecord match = riotService.getMatchRecord(lastMatchId, region);
+        ParticipantRecord target = match.participant(puuid);
+        if (target == null) throw new IllegalStateException("Joueur absent du match " + lastMatchId + ".");
+        TimelineData timeline = timelineFuture.join();
+
+        // Un seul parcours de la timeline : causalité + skill order + build path du joueur ciblé
+        MatchDataProcessor.SkillOrderConsumer skills = new MatchDataProcessor.SkillOrderConsumer(target.participantId());
+        MatchDataProcessor.BuildPathConsumer build = new MatchDataProcessor.BuildPathConsumer(target.participantId());
+        MatchDataExtractor.FullContext fullContext = MatchDataExtractor.extractAll(match, timeline, skills, build);
+
+        RiotService.RankInfo rankInfo = riotService.getRank(puuid, region);
+        String gameTier = (rankInfo != null && rankInfo.tier != null) ? rankInfo.tier : "GOLD";
+        double durationMin = match.durationSec() > 0 ? match.durationMinutes() : 30.0;
+
+        // Ordre : joueur ciblé, alliés, ennemis
+        List<ParticipantRecord> playersToAnalyze = new ArrayList<>();
+        playersToAnalyze.add(target);
+        for (ParticipantRecord p : match.participants()) {
+            if (p != target && p.teamId() == target.teamId()) playersToAnalyze.add(p);
+        }
+        for (ParticipantRecord p : match.participants()) {
+            if (p.teamId() != target.teamId()) playersToAnalyze.add(p);
+        }
+
+        // Vues JSON pour l'IA et l'embed : seule frontière où le modèle typé redevient du JSON
+        JSONArray playersJson = new JSONArray();
+        for (ParticipantRecord p : playersToAnalyze) {
+            playersJson.put(p == target ? MatchDataProcessor.buildTargetPlayerJson(p, skills, build) : MatchDataProcessor.buildPlayerJson(p));
+        }
+        riotService.enrichPlayersWithNames(playersJson);
+
+        // Les dix notes en une passe (adversaires directs résolus par index)
+        ScoreCalculator.MatchScores scores = ScoreCalculator.scoreMatch(fullContext, gameTier, benchmarkService.getTable());
+
+        Map<String, JSONObject> playerMap = new HashMap<>();
+        for (int i = 0; i < playersToAnalyze.size(); i++) {
+            ParticipantRecord player = playersToAnalyze.get(i);
+            JSONObject p = playersJson.getJSONObject(i);
+            String champName = player.championName().toUpperCase();
+            String role = player.teamPosition().isEmpty() ? "TOP" : player.teamPosition();
+
+            ScoreCalculator.ScoreResult scoreResult = scores.get(player);
+            if (scoreResult == null) continue; // Pas de contexte pour ce joueur (déjà loggé)
+            MatchDataExtractor.PlayerContext pCtx = scores.context(player);
+            MatchDataExtractor.PlayerContext oppCtx = scores.opponent(player);
+
+            String champClass = ScoreCalculator.getChampionClass(champName, role);
+            p.put("champion_class", champClass);
+
+            JSONObject mathResult = scoreResult.toJson();
+            p.put("ai_context", mathResult);
+            p.put("score", mathResult.getInt("math_score"));
+            p.put("comment", "⏱️ *Analyse IA en cours...*");
+
+            // Sauvegarde du KDA formaté pour l'affichage
+            p.put("kda_display", player.kdaString());
+
+            p.put("factual_digest", MatchNarrator.buildPlayerDigest(player, pCtx, oppCtx));
+            playerMap.put(champName, p);
+        }
+
+        return new Report(lastMatchId, gameTier, durationMin, fullContext, target, scores.get(target), playersJson, playerMap);
+    }
+
+    /**
+     * Étape 2 : l'Analyste ajuste les notes, le Caster rédige les commentaires ; report.playerMap() est mis à jour en place.
+     * @return ajustements de l'Analyste indexés par champion (en majuscules)
+     */
+    public Map<String, AnalystAdjustment> runAi(Report report) {
+        JSONObject aiPayload = new JSONObject().put("match_duration", report.durationMin()).put("players", report.playersJson());
+
+        MatchAnalysisResult analystResult = mistralService.runPerformanceAnalyst(aiPayload.toString());
+        Map<String, AnalystAdjustment> adjMap = new HashMap<>();
+        for (AnalystAdjustment adj : analystResult.adjustments()) {
+            JSONObject p = report.playerMap().get(adj.champion().toUpperCase());
+            if (p != null) p.put("score", adj.adjusted_score());
+            adjMap.put(adj.champion().toUpperCase(), adj);
+        }
+
+        String casterJson = mistralService.runPerformanceCaster(analystResult);
+        JSONArray casterComments = new JSONArray(casterJson.replace("```json", "").replace("```", "").trim());
+
+        for (int i = 0; i < casterComments.length(); i++) {
+            JSONObject c = casterComments.getJSONObject(i);
+            JSONObject p = report.playerMap().get(c.getString("champion").toUpperCase());
+            if (p != null) p.put("comment", c.optString("comment", "Sans commentaire."));
+        }
+        return adjMap;
+    }
+}
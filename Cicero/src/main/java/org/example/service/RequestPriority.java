@@ -0,0 +1,66 @@
+package org.example.service;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Classes de priorité des appels Riot.
+ * Chaque classe n'a droit qu'à une part de chaque fenêtre de quota : le reste est réservé aux classes
+ * supérieures, ce qui garantit aux commandes slash de la place même pendant le récap de minuit.
+ */
+public enum RequestPriority {
+    INTERACTIVE(1.0, 15 * 1000),       // Commandes slash : tout le quota, mais on échoue vite plutôt que de faire patienter
+    AI_TOOL(0.9, 30 * 1000),           // Outils appelés par l'agent Mistral
+    BACKGROUND(0.7, 10 * 60 * 1000);   // Récap quotidien & co : uniquement la capacité restante, mais patient
+
+    private static final ThreadLocal<RequestPriority> CURRENT = ThreadLocal.withInitial(() -> INTERACTIVE);
+
+    /** Part de chaque fenêtre utilisable par cette classe. */
+    public final double quotaShare;
+    /** Attente maximale acceptée avant d'abandonner avec QUOTA_EXCEEDED. */
+    public final long maxWaitMs;
+
+    RequestPriority(double quotaShare, long maxWaitMs) {
+        this.quotaShare = quotaShare;
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    public static RequestPriority current() {
+        return CURRENT.get();
+    }
+
+    /** Exécute la tâche avec cette priorité pour tous les appels Riot du thread courant. */
+    public void run(Runnable task) {
+        RequestPriority previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            task.run();
+        } finally {
+            CURRENT.set(previous);
+        }
+    }
+
+    public <T> T call(Callable<T> task) throws Exception {
+        RequestPriority previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return task.call();
+        } finally {
+            CURRENT.set(previous);
+        }
+    }
+
+    /** Capture la priorité de l'appelant pour la transmettre à une tâche exécutée sur un autre thread. */
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        RequestPriority captured = current();
+        return () -> {
+            RequestPriority previous = CURRENT.get();
+            CURRENT.set(captured);
+            try {
+                return task.get();
+            } finally {
+                CURRENT.set(previous);
+            }
+        };
+    }
+}
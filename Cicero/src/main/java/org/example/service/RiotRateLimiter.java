@@ -0,0 +1,310 @@
+package org.example.service;
+
+import okhttp3.HttpUrl;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Limiteur proactif des appels Riot.
+ * Modélise les fenêtres "application" (par valeur de routage : euw1, europe...) et "méthode"
+ * (par routage + endpoint), se recalibre grâce aux headers X-App-Rate-Limit / X-Method-Rate-Limit
+ * et fait attendre l'appelant exactement le temps nécessaire au lieu de se prendre un 429.
+ */
+public class RiotRateLimiter {
+
+    // Limites par défaut d'une clé de développement, écrasées dès la première réponse de Riot
+    private static final String DEFAULT_APP_LIMITS = "20:1,100:120";
+    private static final long PREEMPTION_POLL_MS = 10;
+
+    // Segments d'URL fixes : tout le reste (PUUID, matchId, Riot ID...) est un paramètre
+    private static final Set<String> STATIC_SEGMENTS = Set.of(
+            "by-puuid", "by-riot-id", "by-name", "ids", "timeline", "entries"
+    );
+
+    private final Map<String, BucketGroup> appBuckets = new ConcurrentHashMap<>();
+    private final Map<String, BucketGroup> methodBuckets = new ConcurrentHashMap<>();
+
+    /**
+     * Bloque jusqu'à ce que toutes les fenêtres concernées aient de la place pour cette classe de priorité,
+     * puis consomme un jeton dans chacune.
+     * Une requête ne passe jamais devant une requête de priorité supérieure en attente sur le même routage.
+     * @throws IOException "QUOTA_EXCEEDED" si l'attente nécessaire dépasse priority.maxWaitMs.
+     */
+    public void acquire(HttpUrl url, RequestPriority priority) throws IOException {
+        Attempt attempt = begin(url, priority);
+        try {
+            while (true) {
+                long waitMs = attempt.tryAcquire();
+                if (waitMs == 0) return;
+                try {
+                    Thread.sleep(waitMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("QUOTA_EXCEEDED", e);
+                }
+            }
+        } finally {
+            attempt.cancel();
+        }
+    }
+
+    /**
+     * Démarre une acquisition non bloquante (client asynchrone) : l'appelant rappelle tryAcquire()
+     * après le délai renvoyé, sans garder de thread endormi.
+     */
+    public Attempt begin(HttpUrl url, RequestPriority priority) {
+        String routing = routingOf(url);
+        if (routing == null) return new Attempt(null, null, priority); // Data Dragon & co : pas de quota
+
+        BucketGroup app = appBuckets.computeIfAbsent(routing, k -> new BucketGroup(DEFAULT_APP_LIMITS));
+        BucketGroup method = methodBuckets.computeIfAbsent(routing + methodOf(url), k -> new BucketGroup(null));
+        return new Attempt(app, method, priority);
+    }
+
+    /** Une demande de jeton en cours ; compte comme "en attente" pour les priorités inférieures. */
+    public static class Attempt {
+        private final BucketGroup app;
+        private final BucketGroup method;
+        private final RequestPriority priority;
+        private final long deadline;
+        private boolean queued = false;
+        private boolean done = false;
+        private boolean cancelled = false;
+
+        private Attempt(BucketGroup app, BucketGroup method, RequestPriority priority) {
+            this.app = app;
+            this.method = method;
+            this.priority = priority;
+            this.deadline = System.currentTimeMillis() + priority.maxWaitMs;
+            if (app == null) done = true;
+        }
+
+        /**
+         * @return 0 si le jeton est acquis, sinon le délai (ms) avant de réessayer.
+         * @throws IOException "QUOTA_EXCEEDED" si ce délai dépasse l'attente maximale de la priorité.
+         */
+        public long tryAcquire() throws IOException {
+            if (cancelled) throw new IOException("QUOTA_EXCEEDED");
+            if (done) return 0;
+            long waitMs;
+            // Verrouillage dans un ordre fixe (app puis méthode) pour éviter tout interblocage
+            synchronized (app) {
+                synchronized (method) {
+                    long now = System.currentTimeMillis();
+                    waitMs = Math.max(app.waitTime(now, priority), method.waitTime(now, priority));
+                    if (waitMs == 0 && app.hasHigherPriorityWaiter(priority)) {
+                        waitMs = PREEMPTION_POLL_MS; // On laisse passer les commandes interactives d'abord
+                    }
+                    if (waitMs == 0) {
+                        app.record(now);
+                        method.record(now);
+                        release();
+                        return 0;
+                    }
+                    if (!queued) {
+                        app.waiting[priority.ordinal()]++;
+                        queued = true;
+                    }
+                }
+            }
+
+            if (waitMs > deadline - System.currentTimeMillis()) {
+                cancel();
+                throw new IOException("QUOTA_EXCEEDED");
+            }
+            return waitMs;
+        }
+
+        /** Abandonne la demande (idempotent). */
+        public void cancel() {
+            if (app == null) return;
+            synchronized (app) {
+                if (!done) cancelled = true;
+                release();
+            }
+        }
+
+        private void release() {
+            if (queued) app.waiting[priority.ordinal()]--;
+            queued = false;
+            done = true;
+        }
+    }
+
+    /**
+     * Recalibre les fenêtres à partir des headers de la réponse, et applique le Retry-After en cas de 429.
+     */
+    public void onResponse(HttpUrl url, Response response) {
+        String routing = routingOf(url);
+        if (routing == null) return;
+
+        BucketGroup app = appBuckets.get(routing);
+        BucketGroup method = methodBuckets.get(routing + methodOf(url));
+        long now = System.currentTimeMillis();
+
+        if (app != null) {
+            synchronized (app) {
+                app.calibrate(response.header("X-App-Rate-Limit"), response.header("X-App-Rate-Limit-Count"), now);
+            }
+        }
+        if (method != null) {
+            synchronized (method) {
+                method.calibrate(response.header("X-Method-Rate-Limit"), response.header("X-Method-Rate-Limit-Count"), now);
+            }
+        }
+
+        if (response.code() == 429) {
+            long retryAfterMs = 120_000;
+            String retryHeader = response.header("Retry-After");
+            if (retryHeader != null) {
+                try { retryAfterMs = Long.parseLong(retryHeader.trim()) * 1000; } catch (NumberFormatException ignored) {}
+            }
+            // "method" => seul l'endpoint est bloqué ; "application"/"service" (ou absent) => tout le routage
+            BucketGroup target = "method".equalsIgnoreCase(response.header("X-Rate-Limit-Type")) ? method : app;
+            if (target != null) {
+                synchronized (target) {
+                    target.blockedUntil = Math.max(target.blockedUntil, now + retryAfterMs);
+                }
+            }
+        }
+    }
+
+    // --- UTILS D'URL ---
+
+    /** "euw1.api.riotgames.com" -> "euw1" ; null pour les hôtes hors API (ddragon...). */
+    static String routingOf(HttpUrl url) {
+        String host = url.host();
+        if (!host.endsWith(".api.riotgames.com")) return null;
+        return host.substring(0, host.indexOf('.'));
+    }
+
+    /** "/lol/match/v5/matches/EUW1_123/timeline" -> "/lol/match/v5/matches/{}/timeline" */
+    static String methodOf(HttpUrl url) {
+        List<String> segments = url.pathSegments();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < segments.size(); i++) {
+            String segment = segments.get(i);
+            sb.append('/').append(i < 4 || STATIC_SEGMENTS.contains(segment) ? segment : "{}");
+        }
+        return sb.toString();
+    }
+
+    // --- FENÊTRES ---
+
+    /** Ensemble de fenêtres partageant le même périmètre (ex: 20/1s + 100/2min pour euw1). */
+    private static class BucketGroup {
+        private List<RateWindow> windows = new ArrayList<>();
+        private String signature = "";
+        private long blockedUntil = 0;
+        private final int[] waiting = new int[RequestPriority.values().length];
+
+        BucketGroup(String initialLimits) {
+            if (initialLimits != null) calibrate(initialLimits, null, System.currentTimeMillis());
+        }
+
+        long waitTime(long now, RequestPriority priority) {
+            long wait = Math.max(0, blockedUntil - now);
+            for (RateWindow w : windows) wait = Math.max(wait, w.waitTime(now, priority.quotaShare));
+            return wait;
+        }
+
+        boolean hasHigherPriorityWaiter(RequestPriority priority) {
+            for (int i = 0; i < priority.ordinal(); i++) {
+                if (waiting[i] > 0) return true;
+            }
+            return false;
+        }
+
+        void record(long now) {
+            for (RateWindow w : windows) w.record(now);
+        }
+
+        /**
+         * limitsHeader : "20:1,100:120" (requêtes:secondes) ; countsHeader : "3:1,42:120" (consommé côté Riot).
+         */
+        void calibrate(String limitsHeader, String countsHeader, long now) {
+            if (limitsHeader != null && !limitsHeader.equals(signature)) {
+                List<RateWindow> updated = new ArrayList<>();
+                for (String part : limitsHeader.split(",")) {
+                    String[] pair = part.trim().split(":");
+                    if (pair.length != 2) continue;
+                    try {
+                        int limit = Integer.parseInt(pair[0]);
+                        long windowMs = Long.parseLong(pair[1]) * 1000;
+                        RateWindow window = new RateWindow(limit, windowMs);
+                        // On conserve l'historique d'une fenêtre identique déjà connue
+                        for (RateWindow old : windows) {
+                            if (old.windowMs == windowMs) window.timestamps.addAll(old.timestamps);
+                        }
+                        updated.add(window);
+                    } catch (NumberFormatException ignored) {}
+                }
+                windows = updated;
+                signature = limitsHeader;
+            }
+
+            // Riot voit peut-être plus d'appels que nous (redémarrage du bot, autre process sur la même clé)
+            if (countsHeader != null) {
+                for (String part : countsHeader.split(",")) {
+                    String[] pair = part.trim().split(":");
+                    if (pair.length != 2) continue;
+                    try {
+                        int count = Integer.parseInt(pair[0]);
+                        long windowMs = Long.parseLong(pair[1]) * 1000;
+                        for (RateWindow w : windows) {
+                            if (w.windowMs == windowMs) w.syncCount(count, now);
+                        }
+                    } catch (NumberFormatException ignored) {}
+                }
+            }
+        }
+    }
+
+    /** Fenêtre glissante exacte : on garde l'horodatage des appels encore dans la fenêtre. */
+    private static class RateWindow {
+        final int limit;
+        final long windowMs;
+        final ArrayDeque<Long> timestamps = new ArrayDeque<>();
+
+        RateWindow(int limit, long windowMs) {
+            this.limit = limit;
+            this.windowMs = windowMs;
+        }
+
+        private void evict(long now) {
+            while (!timestamps.isEmpty() && timestamps.peekFirst() <= now - windowMs) {
+                timestamps.pollFirst();
+            }
+        }
+
+        /** share : part de la fenêtre accessible (ex: 0.7 => 70 des 100 appels / 2 min pour le background). */
+        long waitTime(long now, double share) {
+            evict(now);
+            int allowed = Math.max(1, (int) Math.floor(limit * share));
+            if (timestamps.size() < allowed) return 0;
+            // Il faut que les appels les plus anciens "sortent" de la fenêtre pour libérer un jeton
+            int excess = timestamps.size() - allowed;
+            long oldest = timestamps.stream().skip(excess).findFirst().orElse(now);
+            return Math.max(1, oldest + windowMs - now);
+        }
+
+        void record(long now) {
+            timestamps.addLast(now);
+        }
+
+        void syncCount(int serverCount, long now) {
+            evict(now);
+            // Horodatage inconnu : on suppose l'appel le plus récent possible (estimation prudente)
+            while (timestamps.size() < serverCount) {
+                timestamps.addLast(now);
+            }
+        }
+    }
+}
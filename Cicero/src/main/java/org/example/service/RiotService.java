@@ -2,46 +2,87 @@ package org.example.service;
 
 import dev.langchain4j.agent.tool.Tool;
 import okhttp3.*;
+import org.example.MatchStore;
+import org.example.service.match.MatchRecord;
+import org.example.service.match.ParticipantRecord;
+import org.example.service.match.TimelineData;
+import org.example.service.match.TimelineParser;
+import org.example.util.ExecutorFactory;
+import org.example.util.Metrics;
+import org.example.util.TimedExecutor;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 public class RiotService {
     private final OkHttpClient client;
-    private final ExecutorService batchExecutor = Executors.newFixedThreadPool(10);
+    private final ExecutorService batchExecutor = new TimedExecutor("riot-batch", ExecutorFactory.newTaskExecutor("riot-batch", 10));
     private final MatchDataProcessor matchProcessor = new MatchDataProcessor();
     
     private static final AtomicLong quotaResetTime = new AtomicLong(0);
     private static final AtomicBoolean isQuotaExceeded = new AtomicBoolean(false);
 
+    static {
+        Metrics.gauge("riot_quota_exceeded", () -> isQuotaExceeded.get() ? 1 : 0);
+        Metrics.gauge("riot_quota_reset_timestamp_seconds", () -> quotaResetTime.get() / 1000.0);
+    }
+
+    private final RiotRateLimiter rateLimiter = new RiotRateLimiter();
+    // Relance les requêtes asynchrones en attente de quota, sans garder un thread endormi par requête
+    private static final ScheduledExecutorService limiterScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "riot-limiter");
+        t.setDaemon(true);
+        return t;
+    });
+
     public static final int QUEUE_SOLOQ = 420;
     public static final int QUEUE_FLEX = 440;
     public static final int QUEUE_CLASH = 700;
     public static final int QUEUE_ARAM = 450;
 
     // --- CACHES ---
-    private final SimpleCache<String, String> puuidCache = new SimpleCache<>(24 * 60 * 60 * 1000); // 24h
-    private final SimpleCache<String, Map<String, RankInfo>> rankCache = new SimpleCache<>(10 * 60 * 1000); // 10 min
-    private final SimpleCache<String, List<String>> matchHistoryCache = new SimpleCache<>(60 * 1000); // 1 min
-    private final SimpleCache<String, String> matchAnalysisCache = new SimpleCache<>(30 * 60 * 1000); // 30 min
-    private final SimpleCache<String, String> matchSummaryCache = new SimpleCache<>(30 * 60 * 1000); // 30 min
-    private final SimpleCache<String, String> versionCache = new SimpleCache<>(6 * 60 * 60 * 1000); // 6h
-    private final SimpleCache<String, JSONObject> itemsCache = new SimpleCache<>(24 * 60 * 60 * 1000); // 24h
-    private final SimpleCache<String, JSONObject> runesCache = new SimpleCache<>(24 * 60 * 60 * 1000); // 24h
+    private final SimpleCache<String, String> puuidCache = new SimpleCache<>("puuid", 24 * 60 * 60 * 1000, 10_000); // 24h
+    private final SimpleCache<String, Map<String, RankInfo>> rankCache = new SimpleCache<>("rank", 10 * 60 * 1000, 5_000); // 10 min
+    private final SimpleCache<String, List<String>> matchHistoryCache = new SimpleCache<>("matchHistory", 60 * 1000, 5_000); // 1 min
+    private final SimpleCache<String, String> matchAnalysisCache = new SimpleCache<>("matchAnalysis", 30 * 60 * 1000,
+            16L * 1024 * 1024, (k, v) -> v.length() * 2L); // 30 min, 16 Mo
+    private final SimpleCache<String, String> matchSummaryCache = new SimpleCache<>("matchSummary", 30 * 60 * 1000,
+            8L * 1024 * 1024, (k, v) -> v.length() * 2L); // 30 min, 8 Mo
+    private final SimpleCache<String, String> versionCache = new SimpleCache<>("version", 6 * 60 * 60 * 1000, 10); // 6h
+    private final SimpleCache<String, JSONObject> itemsCache = new SimpleCache<>("items", 24 * 60 * 60 * 1000, 10); // 24h
+    private final SimpleCache<String, JSONObject> runesCache = new SimpleCache<>("runes", 24 * 60 * 60 * 1000, 10); // 24h
     
-    // Nouveaux caches pour les données brutes (partagés entre Context et Analysis)
-    private final SimpleCache<String, JSONObject> rawMatchCache = new SimpleCache<>(30 * 60 * 1000); // 30 min
-    private final SimpleCache<String, JSONObject> rawTimelineCache = new SimpleCache<>(30 * 60 * 1000); // 30 min
+    // Matchs décodés une seule fois en modèle typé (partagés entre Context, Analysis et le scoring)
+    private final SimpleCache<String, MatchRecord> matchCache = new SimpleCache<>("match", 30 * 60 * 1000,
+            16L * 1024 * 1024, (k, v) -> v.estimatedBytes()); // 30 min, 16 Mo
+    // Timelines gardées sous forme compacte (événements typés), ~10x plus légère que le DOM org.json
+    private final SimpleCache<String, TimelineData> timelineCache = new SimpleCache<>("timeline", 30 * 60 * 1000,
+            32L * 1024 * 1024, (k, v) -> v.estimatedBytes()); // 30 min, 32 Mo
+
+    // --- APPELS EN VOL (un seul appel HTTP par matchId, partagé entre les threads concurrents) ---
+    private final SingleFlight<String, MatchRecord> matchFlights = new SingleFlight<>();
+    private final SingleFlight<String, TimelineData> timelineFlights = new SingleFlight<>();
+
+    // Stockage disque : une partie terminée est immuable, on ne la télécharge qu'une fois
+    private final MatchStore matchStore;
+    // Rejeu hors-ligne : tout le trafic Riot / Data Dragon part vers ce serveur, l'hôte d'origine en premier segment
+    private final HttpUrl redirectBase;
 
     public static class RankInfo {
         public String tier;
@@ -60,7 +101,31 @@ public class RiotService {
     }
 
     public RiotService(String apiKey) {
+        this(apiKey, null);
+    }
+
+    /** @param matchStore stockage durable des matchs/timelines (null = cache mémoire uniquement). */
+    public RiotService(String apiKey, MatchStore matchStore) {
+        this(apiKey, matchStore, null);
+    }
+
+    /**
+     * @param redirectBaseUrl serveur de substitution (ex: "http://127.0.0.1:8089"), null = vrais serveurs.
+     *                        https://euw1.api.riotgames.com/lol/... devient {base}/euw1.api.riotgames.com/lol/...
+     *                        Les quotas restent calculés sur l'URL d'origine (même comportement qu'en production).
+     */
+    public RiotService(String apiKey, MatchStore matchStore, String redirectBaseUrl) {
+        this.matchStore = matchStore;
+        this.redirectBase = redirectBaseUrl != null && !redirectBaseUrl.isBlank() ? HttpUrl.get(redirectBaseUrl.trim()) : null;
+        if (redirectBase != null) System.out.println("[Riot] Requêtes redirigées vers " + redirectBase);
+
+        // Le RiotRateLimiter régule déjà le débit : inutile de plafonner à 5 requêtes par hôte (défaut OkHttp)
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(128);
+        dispatcher.setMaxRequestsPerHost(64);
+
         this.client = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
                 .addInterceptor(chain -> {
                     if (isQuotaExceeded.get()) {
                         if (System.currentTimeMillis() > quotaResetTime.get()) {
@@ -71,21 +136,36 @@ public class RiotService {
                     }
 
                     Request original = chain.request();
-                    Request request = original.newBuilder()
-                            .header("X-Riot-Token", apiKey.trim())
-                            .build();
+                    // Attente proactive : on ne part que si les fenêtres app + méthode ont de la place pour cette priorité
+                    // (les requêtes asynchrones ont déjà obtenu leur jeton avant l'enqueue)
+                    if (original.tag(RiotRateLimiter.Attempt.class) == null) {
+                        RequestPriority priority = original.tag(RequestPriority.class);
+                        long waitStart = System.nanoTime();
+                        rateLimiter.acquire(original.url(), priority != null ? priority : RequestPriority.INTERACTIVE);
+                        Metrics.timer("riot_limiter_wait", "priority", (priority != null ? priority : RequestPriority.INTERACTIVE).name())
+                                .recordNanos(System.nanoTime() - waitStart);
+                    }
+
+                    Request.Builder builder = original.newBuilder().header("X-Riot-Token", apiKey.trim());
+                    if (redirectBase != null) builder.url(redirect(original.url()));
+                    Request request = builder.build();
                     
-                    Response response = chain.proceed(request);
+                    String endpoint = endpointOf(original.url());
+                    long start = System.nanoTime();
+                    Response response;
+                    try {
+                        response = chain.proceed(request);
+                    } catch (IOException e) {
+                        Metrics.increment("riot_responses", "endpoint", endpoint, "status", "io_error");
+                        throw e;
+                    }
+                    Metrics.timer("riot_request", "endpoint", endpoint).recordNanos(System.nanoTime() - start);
+                    Metrics.increment("riot_responses", "endpoint", endpoint, "status", String.valueOf(response.code()));
+                    rateLimiter.onResponse(original.url(), response);
                     
                     if (response.code() == 429) {
+                        // Le limiteur a enregistré le Retry-After : les appels suivants attendront d'eux-mêmes
                         response.close(); // FERMETURE DU BODY POUR EVITER LE LEAK
-                        isQuotaExceeded.set(true);
-                        long retryAfter = 120;
-                        String retryHeader = response.header("Retry-After");
-                        if (retryHeader != null) {
-                            try { retryAfter = Long.parseLong(retryHeader); } catch (NumberFormatException ignored) {}
-                        }
-                        quotaResetTime.set(System.currentTimeMillis() + (retryAfter * 1000));
                         throw new IOException("QUOTA_EXCEEDED");
                     }
                     
@@ -101,6 +181,23 @@ public class RiotService {
                 .build();
     }
 
+    /** Étiquette de métrique : "/lol/match/v5/matches/{}" pour l'API, l'hôte pour Data Dragon & co. */
+    private static String endpointOf(HttpUrl url) {
+        return RiotRateLimiter.routingOf(url) != null ? RiotRateLimiter.methodOf(url) : url.host();
+    }
+
+    private HttpUrl redirect(HttpUrl url) {
+        HttpUrl.Builder target = redirectBase.newBuilder().addPathSegment(url.host());
+        for (String segment : url.encodedPathSegments()) target.addEncodedPathSegment(segment);
+        return target.encodedQuery(url.encodedQuery()).build();
+    }
+
+    /** Pour les stats (taux de hit, poids occupé...). */
+    public List<SimpleCache<?, ?>> getCaches() {
+        return List.of(puuidCache, rankCache, matchHistoryCache, matchAnalysisCache, matchSummaryCache,
+                versionCache, itemsCache, runesCache, matchCache, timelineCache);
+    }
+
     // --- ACCOUNT ---
     @Tool("Récupère le PUUID d'un joueur à partir de son Riot ID (GameName et TagLine). Ex: 'Faker' et 'KR1'.")
     public String getPuuid(String gameName, String tagLine) {
@@ -138,20 +235,29 @@ public class RiotService {
 
     // --- RANK ---
     public Map<String, RankInfo> getAllRanks(String puuid, String region) throws IOException {
+        return await(getAllRanksAsync(puuid, region));
+    }
+
+    public CompletableFuture<Map<String, RankInfo>> getAllRanksAsync(String puuid, String region) {
         String cacheKey = puuid + "#" + region;
         Map<String, RankInfo> cachedRanks = rankCache.get(cacheKey);
-        if (cachedRanks != null) return cachedRanks;
+        if (cachedRanks != null) return CompletableFuture.completedFuture(cachedRanks);
 
         Map<String, RankInfo> ranks = new HashMap<>();
         ranks.put("SOLO", new RankInfo("UNRANKED", "", 0, 0, 0));
         ranks.put("FLEX", new RankInfo("UNRANKED", "", 0, 0, 0));
 
-        if (puuid == null) return ranks;
+        if (puuid == null) return CompletableFuture.completedFuture(ranks);
 
         String url = "https://" + region + ".api.riotgames.com/lol/league/v4/entries/by-puuid/" + puuid.trim();
 
-        try {
-            JSONArray leagues = executeRequestArray(url);
+        return executeRequestArrayAsync(url, RequestPriority.current()).handle((leagues, error) -> {
+            if (error != null) {
+                Throwable cause = unwrap(error);
+                if ("QUOTA_EXCEEDED".equals(cause.getMessage())) throw new CompletionException(cause);
+                System.err.println("[Riot] Rank Error: " + cause.getMessage());
+                return ranks;
+            }
             for (int i = 0; i < leagues.length(); i++) {
                 JSONObject league = leagues.getJSONObject(i);
                 String queueType = league.getString("queueType");
@@ -168,11 +274,8 @@ public class RiotService {
                 else if ("RANKED_FLEX_SR".equals(queueType)) ranks.put("FLEX", info);
             }
             rankCache.put(cacheKey, ranks);
-        } catch (IOException e) {
-            if (e.getMessage().equals("QUOTA_EXCEEDED")) throw e;
-            System.err.println("[Riot] Rank Error: " + e.getMessage());
-        }
-        return ranks;
+            return ranks;
+        });
     }
 
     @Tool("Récupère les informations de rang (SoloQ) pour un PUUID et une région donnés.")
@@ -189,6 +292,10 @@ public class RiotService {
         return getAllRanks(puuid, region).get("SOLO");
     }
 
+    public CompletableFuture<RankInfo> getRankAsync(String puuid, String region) {
+        return getAllRanksAsync(puuid, region).thenApply(ranks -> ranks.get("SOLO"));
+    }
+
     // --- MATCH HISTORY UTILS ---
     private String getMatchRegion(String region) {
         String r = region.toLowerCase();
@@ -198,20 +305,25 @@ public class RiotService {
     }
 
     public List<String> getMatchHistoryIds(String puuid, String region, Integer queueId, int count) throws IOException {
+        return await(getMatchHistoryIdsAsync(puuid, region, queueId, count));
+    }
+
+    public CompletableFuture<List<String>> getMatchHistoryIdsAsync(String puuid, String region, Integer queueId, int count) {
         String cacheKey = puuid + "#" + region + "#" + queueId + "#" + count;
         List<String> cachedHistory = matchHistoryCache.get(cacheKey);
-        if (cachedHistory != null) return cachedHistory;
+        if (cachedHistory != null) return CompletableFuture.completedFuture(cachedHistory);
 
         String continent = getMatchRegion(region);
         String url = "https://" + continent + ".api.riotgames.com/lol/match/v5/matches/by-puuid/" + puuid.trim() + "/ids?start=0&count=" + count;
         if (queueId != null) url += "&queue=" + queueId;
         
-        JSONArray matches = executeRequestArray(url);
-        List<String> ids = new ArrayList<>();
-        for(int i=0; i<matches.length(); i++) ids.add(matches.getString(i));
-        
-        matchHistoryCache.put(cacheKey, ids);
-        return ids;
+        return executeRequestArrayAsync(url, RequestPriority.current()).thenApply(matches -> {
+            List<String> ids = new ArrayList<>();
+            for(int i=0; i<matches.length(); i++) ids.add(matches.getString(i));
+            
+            matchHistoryCache.put(cacheKey, ids);
+            return ids;
+        });
     }
 
     @Tool("Récupère l'ID du dernier match joué par un joueur (PUUID) dans une région.")
@@ -240,22 +352,13 @@ public class RiotService {
 
             for (String matchId : matchIds) {
                 try {
-                    JSONObject json = getRawMatch(matchId, region);
-                    JSONObject info = json.getJSONObject("info");
-                    JSONArray participants = info.getJSONArray("participants");
-
-                    for (int i = 0; i < participants.length(); i++) {
-                        JSONObject p = participants.getJSONObject(i);
-                        if (p.getString("puuid").equals(puuid)) {
-                            if (championName != null && !p.getString("championName").equalsIgnoreCase(championName)) {
-                                continue;
-                            }
-                            if (kdaScore != null) {
-                                String currentKda = p.getInt("kills") + "/" + p.getInt("deaths") + "/" + p.getInt("assists");
-                                if (!currentKda.equals(kdaScore)) continue;
-                            }
-                            return matchId;
+                    ParticipantRecord p = getMatchRecord(matchId, region).participant(puuid);
+                    if (p != null) {
+                        if (championName != null && !p.championName().equalsIgnoreCase(championName)) {
+                            continue;
                         }
+                        if (kdaScore != null && !p.kdaString().equals(kdaScore)) continue;
+                        return matchId;
                     }
                 } catch (Exception ignored) {}
             }
@@ -266,24 +369,97 @@ public class RiotService {
     }
 
     // --- METHODES D'ACCÈS AUX DONNÉES BRUTES AVEC CACHE ---
-    private JSONObject getRawMatch(String matchId, String region) throws IOException {
-        JSONObject cached = rawMatchCache.get(matchId);
-        if (cached != null) return cached;
+    public MatchRecord getMatchRecord(String matchId, String region) throws IOException {
+        return await(getMatchRecordAsync(matchId, region));
+    }
+
+    public CompletableFuture<MatchRecord> getMatchRecordAsync(String matchId, String region) {
+        MatchRecord cached = matchCache.get(matchId);
+        if (cached != null) return CompletableFuture.completedFuture(cached);
 
+        // /performance, getMatchContext et l'agent IA peuvent demander le même match au même instant
         String continent = getMatchRegion(region);
-        JSONObject json = executeRequest("https://" + continent + ".api.riotgames.com/lol/match/v5/matches/" + matchId);
-        rawMatchCache.put(matchId, json);
-        return json;
+        RequestPriority priority = RequestPriority.current();
+        return matchFlights.execute(matchId, () -> loadMatchAsync(matchId,
+                "https://" + continent + ".api.riotgames.com/lol/match/v5/matches/" + matchId, priority));
     }
 
-    private JSONObject getRawTimeline(String matchId, String region) throws IOException {
-        JSONObject cached = rawTimelineCache.get(matchId);
-        if (cached != null) return cached;
+    /** Timeline lue en streaming (jamais de DOM complet) : disque d'abord, réseau sinon. */
+    public CompletableFuture<TimelineData> getTimelineAsync(String matchId, String region) {
+        TimelineData cached = timelineCache.get(matchId);
+        if (cached != null) return CompletableFuture.completedFuture(cached);
 
         String continent = getMatchRegion(region);
-        JSONObject json = executeRequest("https://" + continent + ".api.riotgames.com/lol/match/v5/matches/" + matchId + "/timeline");
-        rawTimelineCache.put(matchId, json);
-        return json;
+        RequestPriority priority = RequestPriority.current();
+        return timelineFlights.execute(matchId, () -> loadTimelineAsync(matchId,
+                "https://" + continent + ".api.riotgames.com/lol/match/v5/matches/" + matchId + "/timeline", priority));
+    }
+
+    private CompletableFuture<TimelineData> loadTimelineAsync(String matchId, String url, RequestPriority priority) {
+        TimelineData again = timelineCache.get(matchId);
+        if (again != null) return CompletableFuture.completedFuture(again);
+
+        CompletableFuture<TimelineData> stored = matchStore == null
+                ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.supplyAsync(() -> {
+                    try (InputStream in = matchStore.openStream(matchId, MatchStore.KIND_TIMELINE)) {
+                        return in != null ? TimelineParser.parse(in) : null; // Décompression + parsing au fil de l'eau
+                    } catch (IOException e) {
+                        return null; // Payload illisible : on retélécharge
+                    }
+                }, batchExecutor);
+
+        return stored.thenCompose(timeline -> {
+            if (timeline != null && !timeline.isEmpty()) {
+                timelineCache.put(matchId, timeline);
+                return CompletableFuture.completedFuture(timeline);
+            }
+
+            // Le thread OkHttp ne fait que lire les octets : parsing et écriture du store (GZIP + SQLite)
+            // passent sur riot-batch, pour ne pas bloquer le dispatcher HTTP derrière le verrou du store
+            return callAsync(url, priority, ResponseBody::bytes).thenApplyAsync(raw -> {
+                TimelineData parsed;
+                try {
+                    parsed = TimelineParser.parse(new ByteArrayInputStream(raw));
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+                if (matchStore != null && !parsed.isEmpty()) matchStore.save(matchId, MatchStore.KIND_TIMELINE, raw);
+                timelineCache.put(matchId, parsed);
+                return parsed;
+            }, batchExecutor);
+        });
+    }
+
+    /** Disque d'abord, réseau sinon ; le JSON est décodé une fois en MatchRecord puis jeté. */
+    private CompletableFuture<MatchRecord> loadMatchAsync(String matchId, String url, RequestPriority priority) {
+        MatchRecord again = matchCache.get(matchId); // Un appel concurrent vient peut-être de le remplir
+        if (again != null) return CompletableFuture.completedFuture(again);
+
+        CompletableFuture<String> stored = matchStore == null
+                ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.supplyAsync(() -> matchStore.load(matchId, MatchStore.KIND_MATCH), batchExecutor); // Lecture SQLite hors du thread appelant
+
+        return stored.thenCompose(body -> {
+            if (body != null) {
+                try {
+                    MatchRecord match = MatchRecord.fromJson(new JSONObject(body));
+                    matchCache.put(matchId, match);
+                    return CompletableFuture.completedFuture(match);
+                } catch (Exception e) {
+                    // Payload illisible : on retélécharge
+                }
+            }
+
+            // Décodage et écriture du store sur riot-batch, pas sur le thread OkHttp
+            return fetchBodyAsync(url, "{}", priority).thenApplyAsync(fetched -> {
+                // Une réponse sans "info" (erreur Riot, match introuvable) lève ici et n'est donc jamais figée sur disque
+                MatchRecord match = MatchRecord.fromJson(new JSONObject(fetched));
+                if (matchStore != null) matchStore.save(matchId, MatchStore.KIND_MATCH, fetched);
+                matchCache.put(matchId, match);
+                return match;
+            }, batchExecutor);
+        });
     }
 
     // --- METHODE 1: ANALYSE LOURDE (JSON STRUCTURÉ POUR L'IA) ---
@@ -294,26 +470,18 @@ public class RiotService {
             String cachedAnalysis = matchAnalysisCache.get(cacheKey);
             if (cachedAnalysis != null) return cachedAnalysis;
 
-            CompletableFuture<JSONObject> infoFuture = CompletableFuture.supplyAsync(() -> {
-                try { return getRawMatch(matchId, region); } 
-                catch (IOException e) { throw new RuntimeException(e); }
-            }, batchExecutor);
+            CompletableFuture<MatchRecord> matchFuture = getMatchRecordAsync(matchId, region);
+            CompletableFuture<TimelineData> timelineFuture = getTimelineAsync(matchId, region)
+                    .exceptionally(e -> TimelineData.EMPTY);
 
-            CompletableFuture<JSONObject> timelineFuture = CompletableFuture.supplyAsync(() -> {
-                try { return getRawTimeline(matchId, region); } 
-                catch (IOException e) { 
-                    return new JSONObject(); 
-                }
-            }, batchExecutor);
-
-            JSONObject matchInfo = infoFuture.join();
-            JSONObject timeline = timelineFuture.join();
+            MatchRecord match = await(matchFuture);
+            TimelineData timeline = timelineFuture.join();
             
             if (timeline.isEmpty()) {
-                return extractLightStats(matchInfo, targetPuuid).toString();
+                return extractLightStats(match, targetPuuid).toString();
             }
             
-            JSONObject analysisJson = matchProcessor.buildDeepAnalysisJson(matchInfo, timeline, targetPuuid);
+            JSONObject analysisJson = matchProcessor.buildDeepAnalysisJson(match, timeline, targetPuuid);
             enrichAnalysisWithNames(analysisJson);
             
             String result = analysisJson.toString();
@@ -342,15 +510,11 @@ public class RiotService {
             List<String> matchIds = getMatchHistoryIds(puuid, region, queueId, Math.min(safeCount, 10));
             if (matchIds.isEmpty()) return "[]";
 
+            // Les requêtes partent toutes en parallèle sans bloquer un thread chacune
             List<CompletableFuture<JSONObject>> futures = matchIds.stream()
-                .map(matchId -> CompletableFuture.supplyAsync(() -> {
-                    try {
-                        JSONObject json = getRawMatch(matchId, region);
-                        return extractLightStats(json, puuid);
-                    } catch (Exception e) {
-                        return new JSONObject().put("error", "Match " + matchId + " failed");
-                    }
-                }, batchExecutor))
+                .map(matchId -> getMatchRecordAsync(matchId, region)
+                        .thenApply(match -> extractLightStats(match, puuid))
+                        .exceptionally(e -> new JSONObject().put("error", "Match " + matchId + " failed")))
                 .collect(Collectors.toList());
 
             JSONArray history = new JSONArray();
@@ -364,39 +528,27 @@ public class RiotService {
         }
     }
 
-    private JSONObject extractLightStats(JSONObject json, String myPuuid) {
-        JSONObject info = json.getJSONObject("info");
-        JSONArray participants = info.getJSONArray("participants");
-        JSONObject me = null;
-
-        for (int i = 0; i < participants.length(); i++) {
-            JSONObject p = participants.getJSONObject(i);
-            if (p.getString("puuid").equals(myPuuid)) {
-                me = p;
-                break;
-            }
-        }
-
+    private JSONObject extractLightStats(MatchRecord match, String myPuuid) {
+        ParticipantRecord me = match.participant(myPuuid);
         if (me == null) return new JSONObject();
 
         JSONObject stats = new JSONObject();
-        stats.put("matchId", json.getJSONObject("metadata").getString("matchId"));
-        stats.put("mode", info.getString("gameMode"));
-        stats.put("date", json.getJSONObject("info").getLong("gameCreation"));
-        stats.put("duration", info.getLong("gameDuration"));
-        stats.put("win", me.getBoolean("win"));
-        stats.put("champion", me.getString("championName"));
-        stats.put("role", me.getString("teamPosition"));
+        stats.put("matchId", match.matchId());
+        stats.put("mode", match.gameMode());
+        stats.put("date", match.gameCreation());
+        stats.put("duration", match.durationSec());
+        stats.put("win", me.win());
+        stats.put("champion", me.championName());
+        stats.put("role", me.teamPosition());
         
-        stats.put("kda", me.getInt("kills") + "/" + me.getInt("deaths") + "/" + me.getInt("assists"));
-        stats.put("cs", me.getInt("totalMinionsKilled") + me.getInt("neutralMinionsKilled"));
-        stats.put("gold", me.getInt("goldEarned"));
-        stats.put("vision", me.getInt("visionScore"));
+        stats.put("kda", me.kdaString());
+        stats.put("cs", me.totalCs());
+        stats.put("gold", me.goldEarned());
+        stats.put("vision", me.visionScore());
         
         JSONArray items = new JSONArray();
-        for(int i=0; i<=6; i++) {
-            int item = me.getInt("item" + i);
-            if(item != 0) items.put(item);
+        for (int item : me.items()) {
+            if (item != 0) items.put(item);
         }
         stats.put("items", items);
 
@@ -469,17 +621,7 @@ public class RiotService {
 
             if (analysis.has("target_player")) {
                 enrichPlayerStats(analysis.getJSONObject("target_player"), itemsData, runesData);
-                
-                if (analysis.getJSONObject("target_player").has("build_path")) {
-                    JSONArray buildPath = analysis.getJSONObject("target_player").getJSONArray("build_path");
-                    for (int i = 0; i < buildPath.length(); i++) {
-                        JSONObject event = buildPath.getJSONObject(i);
-                        String itemId = String.valueOf(event.getInt("itemId"));
-                        if (itemsData.has(itemId)) {
-                            event.put("itemName", itemsData.getJSONObject(itemId).getString("name"));
-                        }
-                    }
-                }
+                enrichBuildPath(analysis.getJSONObject("target_player"), itemsData);
             }
 
             if (analysis.has("allies")) {
@@ -501,6 +643,35 @@ public class RiotService {
         }
     }
 
+    /** Même enrichissement (noms d'items/runes) pour des vues joueur construites hors de getMatchAnalysis. */
+    public void enrichPlayersWithNames(JSONArray players) {
+        try {
+            String version = getLatestVersion();
+            JSONObject itemsData = getItemsData(version);
+            JSONObject runesData = getRunesData(version);
+
+            for (int i = 0; i < players.length(); i++) {
+                JSONObject player = players.getJSONObject(i);
+                enrichPlayerStats(player, itemsData, runesData);
+                enrichBuildPath(player, itemsData);
+            }
+        } catch (Exception e) {
+            System.err.println("[Riot] Enrichment Error: " + e.getMessage());
+        }
+    }
+
+    private void enrichBuildPath(JSONObject player, JSONObject itemsData) {
+        if (!player.has("build_path")) return;
+        JSONArray buildPath = player.getJSONArray("build_path");
+        for (int i = 0; i < buildPath.length(); i++) {
+            JSONObject event = buildPath.getJSONObject(i);
+            String itemId = String.valueOf(event.getInt("itemId"));
+            if (itemsData.has(itemId)) {
+                event.put("itemName", itemsData.getJSONObject(itemId).getString("name"));
+            }
+        }
+    }
+
     private void enrichPlayerStats(JSONObject player, JSONObject itemsData, JSONObject runesData) {
         if (player.has("final_items")) {
             JSONArray itemIds = player.getJSONArray("final_items");
@@ -563,32 +734,121 @@ public class RiotService {
 
     // --- HTTP UTILS ---
     private JSONObject executeRequest(String url) throws IOException {
-        Request request = new Request.Builder().url(url).build();
-        try (Response response = client.newCall(request).execute()) {
-            String body = response.body() != null ? response.body().string() : "{}";
-            if (!response.isSuccessful()) throw new IOException("HTTP " + response.code() + " : " + body);
-            return new JSONObject(body);
-        }
+        return new JSONObject(fetchBody(url, "{}"));
     }
 
     private JSONArray executeRequestArray(String url) throws IOException {
-        Request request = new Request.Builder().url(url).build();
+        return new JSONArray(fetchBody(url, "[]"));
+    }
+
+    private CompletableFuture<JSONArray> executeRequestArrayAsync(String url, RequestPriority priority) {
+        return fetchBodyAsync(url, "[]", priority).thenApply(JSONArray::new);
+    }
+
+    private String fetchBody(String url, String emptyBody) throws IOException {
+        Request request = new Request.Builder().url(url)
+                .tag(RequestPriority.class, RequestPriority.current()) // Lue par l'intercepteur (thread OkHttp ≠ thread appelant)
+                .build();
         try (Response response = client.newCall(request).execute()) {
-            String body = response.body() != null ? response.body().string() : "[]";
-            if (!response.isSuccessful()) throw new IOException("HTTP " + response.code() + " : " + body);
-            return new JSONArray(body);
+            return readBody(response, emptyBody);
         }
     }
 
-    public MatchDataExtractor.FullContext getMatchContext(String matchId, String region) {
+    private CompletableFuture<String> fetchBodyAsync(String url, String emptyBody, RequestPriority priority) {
+        return callAsync(url, priority, body -> body != null ? body.string() : emptyBody);
+    }
+
+    /** Lit le body d'une réponse réussie (sur le thread OkHttp, le body se ferme ensuite). */
+    @FunctionalInterface
+    private interface BodyReader<T> {
+        T read(ResponseBody body) throws IOException;
+    }
+
+    /**
+     * Version non bloquante : le jeton de quota est obtenu via le limiter (relances planifiées),
+     * puis l'appel part sur le dispatcher OkHttp avec enqueue.
+     */
+    private <T> CompletableFuture<T> callAsync(String url, RequestPriority priority, BodyReader<T> reader) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        HttpUrl httpUrl = HttpUrl.get(url);
+        RiotRateLimiter.Attempt attempt = rateLimiter.begin(httpUrl, priority);
+        Request request = new Request.Builder().url(httpUrl)
+                .tag(RequestPriority.class, priority)
+                .tag(RiotRateLimiter.Attempt.class, attempt) // Jeton déjà pris : l'intercepteur ne doit pas re-bloquer
+                .build();
+        scheduleWhenAllowed(request, attempt, reader, future);
+        return future;
+    }
+
+    private <T> void scheduleWhenAllowed(Request request, RiotRateLimiter.Attempt attempt, BodyReader<T> reader, CompletableFuture<T> future) {
+        long waitMs;
         try {
-            JSONObject matchInfo = getRawMatch(matchId, region);
-            JSONObject timeline = getRawTimeline(matchId, region);
-            return MatchDataExtractor.extractAll(matchInfo, timeline);
-        } catch (Exception e) {
-            System.err.println("Erreur getMatchContext : " + e.getMessage());
-            return null;
+            waitMs = attempt.tryAcquire();
+        } catch (IOException e) {
+            future.completeExceptionally(e);
+            return;
+        }
+        if (waitMs > 0) {
+            limiterScheduler.schedule(() -> scheduleWhenAllowed(request, attempt, reader, future), waitMs, TimeUnit.MILLISECONDS);
+            return;
         }
+
+        client.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (response) {
+                    if (!response.isSuccessful()) {
+                        String error = response.body() != null ? response.body().string() : "";
+                        throw new IOException("HTTP " + response.code() + " : " + error);
+                    }
+                    future.complete(reader.read(response.body()));
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+    }
+
+    private static String readBody(Response response, String emptyBody) throws IOException {
+        String body = response.body() != null ? response.body().string() : emptyBody;
+        if (!response.isSuccessful()) throw new IOException("HTTP " + response.code() + " : " + body);
+        return body;
+    }
+
+    /** Attend un résultat asynchrone en restituant l'IOException d'origine aux méthodes synchrones. */
+    private static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IOException(cause);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) error = error.getCause();
+        return error;
+    }
+
+    public MatchDataExtractor.FullContext getMatchContext(String matchId, String region) {
+        return getMatchContextAsync(matchId, region).join();
+    }
+
+    /** Match + timeline téléchargés en parallèle ; null en cas d'échec (comme la version synchrone). */
+    public CompletableFuture<MatchDataExtractor.FullContext> getMatchContextAsync(String matchId, String region) {
+        return getMatchRecordAsync(matchId, region)
+                .thenCombine(getTimelineAsync(matchId, region), MatchDataExtractor::extractAll)
+                .exceptionally(e -> {
+                    System.err.println("Erreur getMatchContext : " + unwrap(e).getMessage());
+                    return null;
+                });
     }
 
     public List<String> getMatchIds(String puuid, String region, int count) {
@@ -602,28 +862,32 @@ public class RiotService {
 
     public List<String> getMatchIdsLast24h(String puuid, String region) {
         try {
-            // Date d'il y a 24h, en SECONDES (format exigé par Riot pour startTime)
-            long startTimeSec = (System.currentTimeMillis() - (24 * 60 * 60 * 1000)) / 1000;
-            String continent = getMatchRegion(region);
-            
-            String url = "https://" + continent + ".api.riotgames.com/lol/match/v5/matches/by-puuid/" + puuid.trim() + "/ids?startTime=" + startTimeSec + "&count=20";
-            
-            JSONArray matches = executeRequestArray(url);
-            List<String> ids = new ArrayList<>();
-            for(int i = 0; i < matches.length(); i++) {
-                ids.add(matches.getString(i));
-            }
-            return ids;
+            return await(getMatchIdsLast24hAsync(puuid, region));
         } catch (Exception e) {
             System.err.println("Erreur getMatchIdsLast24h : " + e.getMessage());
             return new ArrayList<>();
         }
     }
 
+    public CompletableFuture<List<String>> getMatchIdsLast24hAsync(String puuid, String region) {
+        // Date d'il y a 24h, en SECONDES (format exigé par Riot pour startTime)
+        long startTimeSec = (System.currentTimeMillis() - (24 * 60 * 60 * 1000)) / 1000;
+        String continent = getMatchRegion(region);
+
+        String url = "https://" + continent + ".api.riotgames.com/lol/match/v5/matches/by-puuid/" + puuid.trim() + "/ids?startTime=" + startTimeSec + "&count=20";
+
+        return executeRequestArrayAsync(url, RequestPriority.current()).thenApply(matches -> {
+            List<String> ids = new ArrayList<>();
+            for (int i = 0; i < matches.length(); i++) {
+                ids.add(matches.getString(i));
+            }
+            return ids;
+        });
+    }
+
     public long getGameCreationTime(String matchId, String region) {
         try {
-            JSONObject match = getRawMatch(matchId, region);
-            return match.getJSONObject("info").getLong("gameCreation");
+            return getMatchRecord(matchId, region).gameCreation();
         } catch (Exception e) { return 0; }
     }
 }
\ No newline at end of file
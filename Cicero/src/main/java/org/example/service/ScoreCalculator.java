@@ -1,12 +1,15 @@
 package org.example.service;
 
+import org.example.service.match.ParticipantRecord;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import static org.example.service.ScoringConstants.Global.*;
@@ -79,51 +82,69 @@ public class ScoreCalculator {
         };
     }
 
+    public record Pillar(String name, int score, double weight, String reason) {}
+
+    public record Synergy(double points, String reason) {}
+
     /**
-     * NOUVELLE STRUCTURE : Optimisée pour fournir un JSON clair à l'Analyste IA
+     * NOUVELLE STRUCTURE : Résultat typé, converti en JSON clair pour l'Analyste IA uniquement à la sortie (toJson)
      */
     public static class ScoreResult {
         public double totalScore = 0.0;
+        public String championClass;
 
-        public JSONArray pillarsJson = new JSONArray();
-        public JSONArray macroInfoJson = new JSONArray();
-        public JSONArray synergiesJson = new JSONArray();
+        public final List<Pillar> pillars = new ArrayList<>(3);
+        public final List<String> macroInfo = new ArrayList<>();
+        public final List<Synergy> synergies = new ArrayList<>();
 
         public ScoreResult() {}
 
         // Ajoute un pilier et calcule automatiquement la moyenne pondérée
         public void setPillar(String name, double rawScore, double weight, String reason) {
-            JSONObject pillar = new JSONObject();
-            pillar.put("name", name);
-            pillar.put("score", (int) rawScore);
-            pillar.put("weight", weight);
-            pillar.put("reason", reason);
-            pillarsJson.put(pillar);
-
+            pillars.add(new Pillar(name, (int) rawScore, weight, reason));
             this.totalScore += (rawScore * weight);
         }
 
         public void addSynergy(double points, String reason) {
             if (points == 0) return;
             this.totalScore += points;
-            JSONObject syn = new JSONObject();
-            syn.put("points", points);
-            syn.put("reason", reason);
-            synergiesJson.put(syn);
+            synergies.add(new Synergy(points, reason));
         }
 
         public void addMacroInfo(String info) {
-            macroInfoJson.put(info);
+            macroInfo.add(info);
         }
 
         public void setFloor(double minimumScore, String reason) {
             if (this.totalScore < minimumScore) {
                 this.totalScore = minimumScore;
-                JSONObject syn = new JSONObject();
-                syn.put("points", 0);
-                syn.put("reason", "SAUVETAGE : " + reason + " (Note remontée à " + minimumScore + ")");
-                synergiesJson.put(syn);
+                synergies.add(new Synergy(0, "SAUVETAGE : " + reason + " (Note remontée à " + minimumScore + ")"));
+            }
+        }
+
+        public int mathScore() {
+            return (int) totalScore;
+        }
+
+        /** Payload hyper-structuré pour l'Analyste IA (même format que l'ancien JSON construit au fil de l'eau). */
+        public JSONObject toJson() {
+            JSONArray pillarsJson = new JSONArray();
+            for (Pillar p : pillars) {
+                pillarsJson.put(new JSONObject().put("name", p.name()).put("score", p.score())
+                        .put("weight", p.weight()).put("reason", p.reason()));
             }
+            JSONArray synergiesJson = new JSONArray();
+            for (Synergy syn : synergies) {
+                synergiesJson.put(new JSONObject().put("points", syn.points()).put("reason", syn.reason()));
+            }
+
+            JSONObject output = new JSONObject();
+            output.put("math_score", mathScore());
+            output.put("champion_class", championClass);
+            output.put("pillars", pillarsJson);
+            output.put("macro_info", new JSONArray(macroInfo));
+            output.put("synergies", synergiesJson);
+            return output;
         }
     }
 
@@ -150,11 +171,162 @@ public class ScoreCalculator {
         return 100.0 / (1.0 + Math.exp(-z));
     }
 
-    public static JSONObject analyzePlayer(JSONObject player, JSONObject benchmarks, String gameTier, double gameDurationMin, MatchDataExtractor.PlayerContext ctx, MatchDataExtractor.PlayerContext oppCtx, MatchDataExtractor.TeamCompositionProfile enemyComp) {
-        String rankKey = (gameTier == null || gameTier.isEmpty() || gameTier.equalsIgnoreCase("UNRANKED"))
-                ? "GOLD" : gameTier.toUpperCase();
+    public static JSONObject analyzePlayer(ParticipantRecord player, BenchmarkTable benchmarks, String gameTier, double gameDurationMin, MatchDataExtractor.PlayerContext ctx, MatchDataExtractor.PlayerContext oppCtx, MatchDataExtractor.TeamCompositionProfile enemyComp) {
+        return scorePlayer(player, benchmarks, gameTier, gameDurationMin, ctx, oppCtx, enemyComp).toJson();
+    }
+
+    /** Variante typée (sans JSON) : pour les appelants qui n'ont besoin que de la note. */
+    public static ScoreResult scorePlayer(ParticipantRecord player, BenchmarkTable benchmarks, String gameTier, double gameDurationMin, MatchDataExtractor.PlayerContext ctx, MatchDataExtractor.PlayerContext oppCtx, MatchDataExtractor.TeamCompositionProfile enemyComp) {
+        return scorePlayer(player, benchmarks, BenchmarkTable.Tier.fromRank(gameTier), gameDurationMin, ctx, oppCtx, enemyComp);
+    }
+
+    // =========================================================================
+    // NOTATION D'UN MATCH COMPLET (les dix joueurs en une passe)
+    // =========================================================================
+
+    /**
+     * Note les dix joueurs d'un match. Le tier, la durée, l'index (équipe, rôle) -> contexte
+     * et les compos ennemies sont calculés une seule fois ; l'adversaire direct se lit dans l'index en O(1).
+     * Point d'entrée commun de /performance, /performance-test et de l'ingestion.
+     */
+    public static MatchScores scoreMatch(MatchDataExtractor.FullContext fullContext, String gameTier, BenchmarkTable benchmarks) {
+        MatchIndex index = new MatchIndex(fullContext, gameTier);
+        List<ParticipantRecord> participants = fullContext.match.participants();
+        int n = participants.size();
+        ScoreResult[] results = new ScoreResult[n];
+        MatchDataExtractor.PlayerContext[] contexts = new MatchDataExtractor.PlayerContext[n];
+        MatchDataExtractor.PlayerContext[] opponents = new MatchDataExtractor.PlayerContext[n];
+
+        for (int i = 0; i < n; i++) {
+            ParticipantRecord player = participants.get(i);
+            contexts[i] = index.context(player);
+            if (contexts[i] == null) {
+                System.err.println("PlayerContext introuvable pour le champion: " + player.championName());
+                continue;
+            }
+            opponents[i] = index.opponent(contexts[i]);
+            results[i] = index.score(player, contexts[i], opponents[i], benchmarks);
+        }
+        return new MatchScores(participants, results, contexts, opponents);
+    }
+
+    /**
+     * Note un seul joueur avec le même chemin que scoreMatch (pour qui n'a besoin que d'une note).
+     * @return null si le joueur n'a pas de contexte dans ce match
+     */
+    public static ScoreResult scoreParticipant(MatchDataExtractor.FullContext fullContext, ParticipantRecord player, String gameTier, BenchmarkTable benchmarks) {
+        MatchIndex index = new MatchIndex(fullContext, gameTier);
+        MatchDataExtractor.PlayerContext ctx = index.context(player);
+        if (ctx == null) {
+            System.err.println("PlayerContext introuvable pour le champion: " + player.championName());
+            return null;
+        }
+        return index.score(player, ctx, index.opponent(ctx), benchmarks);
+    }
+
+    /** Notes d'un match, alignées sur match.participants(). Note null = joueur sans contexte. */
+    public static final class MatchScores {
+        private final List<ParticipantRecord> participants;
+        private final ScoreResult[] results;
+        private final MatchDataExtractor.PlayerContext[] contexts;
+        private final MatchDataExtractor.PlayerContext[] opponents;
+
+        private MatchScores(List<ParticipantRecord> participants, ScoreResult[] results,
+                            MatchDataExtractor.PlayerContext[] contexts, MatchDataExtractor.PlayerContext[] opponents) {
+            this.participants = participants;
+            this.results = results;
+            this.contexts = contexts;
+            this.opponents = opponents;
+        }
+
+        public ScoreResult get(ParticipantRecord player) {
+            int i = indexOf(player);
+            return i >= 0 ? results[i] : null;
+        }
+
+        public ScoreResult byPuuid(String puuid) {
+            for (int i = 0; i < participants.size(); i++) {
+                if (participants.get(i).puuid().equals(puuid)) return results[i];
+            }
+            return null;
+        }
+
+        /** Contexte du joueur (null s'il n'a pas été noté). */
+        public MatchDataExtractor.PlayerContext context(ParticipantRecord player) {
+            int i = indexOf(player);
+            return i >= 0 ? contexts[i] : null;
+        }
+
+        /** Adversaire direct utilisé pour la note (contexte vide si la lane n'a pas de vis-à-vis). */
+        public MatchDataExtractor.PlayerContext opponent(ParticipantRecord player) {
+            int i = indexOf(player);
+            return i >= 0 ? opponents[i] : null;
+        }
+
+        private int indexOf(ParticipantRecord player) {
+            for (int i = 0; i < participants.size(); i++) {
+                if (participants.get(i) == player) return i;
+            }
+            return -1;
+        }
+    }
+
+    /** Précalculs partagés par tous les joueurs d'un match. */
+    private static final class MatchIndex {
+        private static final String[] ROLE_SLOTS = {"TOP", "JUNGLE", "MIDDLE", "BOTTOM", "UTILITY", "NONE"};
+
+        private final MatchDataExtractor.FullContext fullContext;
+        private final BenchmarkTable.Tier tier;
+        private final double durationMin;
+        private final Map<Integer, MatchDataExtractor.PlayerContext> byParticipantId = new HashMap<>();
+        private final MatchDataExtractor.PlayerContext[][] byTeamAndRole = new MatchDataExtractor.PlayerContext[2][ROLE_SLOTS.length];
+
+        MatchIndex(MatchDataExtractor.FullContext fullContext, String gameTier) {
+            this.fullContext = fullContext;
+            this.tier = BenchmarkTable.Tier.fromRank(gameTier);
+            this.durationMin = fullContext.match.durationSec() > 0 ? fullContext.match.durationMinutes() : 30.0;
+            for (MatchDataExtractor.PlayerContext ctx : fullContext.players.values()) {
+                byParticipantId.put(ctx.participantId, ctx);
+                int slot = roleSlot(ctx.role);
+                // Premier joueur vu pour un rôle = celui que retenait l'ancien scan
+                if (slot >= 0 && byTeamAndRole[teamSlot(ctx.teamId)][slot] == null) {
+                    byTeamAndRole[teamSlot(ctx.teamId)][slot] = ctx;
+                }
+            }
+        }
 
-        String rawRole = player.optString("role", "TOP").toUpperCase();
+        MatchDataExtractor.PlayerContext context(ParticipantRecord player) {
+            MatchDataExtractor.PlayerContext ctx = byParticipantId.get(player.participantId());
+            return ctx != null ? ctx : fullContext.players.get(player.championName().toUpperCase());
+        }
+
+        MatchDataExtractor.PlayerContext opponent(MatchDataExtractor.PlayerContext ctx) {
+            int slot = roleSlot(ctx.role);
+            MatchDataExtractor.PlayerContext opp = slot >= 0 ? byTeamAndRole[1 - teamSlot(ctx.teamId)][slot] : null;
+            return opp != null ? opp : new MatchDataExtractor.PlayerContext();
+        }
+
+        ScoreResult score(ParticipantRecord player, MatchDataExtractor.PlayerContext ctx, MatchDataExtractor.PlayerContext oppCtx, BenchmarkTable benchmarks) {
+            MatchDataExtractor.TeamCompositionProfile enemyComp = ctx.teamId == 100 ? fullContext.redTeamComp : fullContext.blueTeamComp;
+            return scorePlayer(player, benchmarks, tier, durationMin, ctx, oppCtx, enemyComp);
+        }
+
+        private static int teamSlot(int teamId) {
+            return teamId == 100 ? 0 : 1;
+        }
+
+        private static int roleSlot(String role) {
+            if (role == null) return -1;
+            for (int i = 0; i < ROLE_SLOTS.length; i++) {
+                if (ROLE_SLOTS[i].equals(role)) return i;
+            }
+            return -1;
+        }
+    }
+
+    private static ScoreResult scorePlayer(ParticipantRecord player, BenchmarkTable benchmarks, BenchmarkTable.Tier tier, double gameDurationMin, MatchDataExtractor.PlayerContext ctx, MatchDataExtractor.PlayerContext oppCtx, MatchDataExtractor.TeamCompositionProfile enemyComp) {
+        // Rôle vide (ARAM, Arena, remake) conservé tel quel : ligne par défaut du benchmark, classe de champion générique
+        String rawRole = player.teamPosition().toUpperCase();
 
         // Mapping Interne (Pour le Switch Java)
         String internalRole = rawRole;
@@ -162,29 +334,23 @@ public class ScoreCalculator {
         if (internalRole.equals("BOT") || internalRole.equals("ADC")) internalRole = "BOTTOM";
         if (internalRole.equals("SUP") || internalRole.equals("SUPPORT") || internalRole.equals("UTILITY")) internalRole = "SUPPORT";
 
-        // Mapping JSON (Pour lire benchmarks.json correctement)
-        String jsonRoleKey = internalRole;
-        if (internalRole.equals("MIDDLE")) jsonRoleKey = "MID";
-        if (internalRole.equals("BOTTOM")) jsonRoleKey = "ADC";
-
-        String champName = player.optString("champion", player.optString("championName", ""));
+        String champName = player.championName();
         String champClass = getChampionClass(champName, internalRole);
 
         ScoreResult res = new ScoreResult();
+        res.championClass = champClass;
 
-        JSONObject roleBenchmarksJson = benchmarks.optJSONObject(jsonRoleKey);
-        if (roleBenchmarksJson == null) roleBenchmarksJson = new JSONObject();
-
-        // --- CHARGEMENT DYNAMIQUE DE TOUT LE BENCHMARK ---
+        // --- CHARGEMENT DU BENCHMARK : une ligne de la table compilée (rôle/tier inconnu => valeurs par défaut) ---
+        double[] row = benchmarks.row(BenchmarkTable.Role.fromInternalRole(internalRole), tier);
         RoleBenchmarks bench = new RoleBenchmarks();
-        bench.expectedCsPerMin = roleBenchmarksJson.optJSONObject("cs_per_min") != null ? roleBenchmarksJson.getJSONObject("cs_per_min").optDouble(rankKey, 5.0) : 5.0;
-        bench.expectedVisionPerMin = roleBenchmarksJson.optJSONObject("vision_per_min") != null ? roleBenchmarksJson.getJSONObject("vision_per_min").optDouble(rankKey, 1.0) : 1.0;
-        bench.expectedControlWards = roleBenchmarksJson.optJSONObject("control_wards") != null ? roleBenchmarksJson.getJSONObject("control_wards").optDouble(rankKey, 1.0) : 1.0;
-        bench.expectedKda = roleBenchmarksJson.optJSONObject("kda") != null ? roleBenchmarksJson.getJSONObject("kda").optDouble(rankKey, 2.5) : 2.5;
-        bench.expectedDodgesPerMin = roleBenchmarksJson.optJSONObject("skillshots_dodged_per_min") != null ? roleBenchmarksJson.getJSONObject("skillshots_dodged_per_min").optDouble(rankKey, 1.0) : 1.0;
-        bench.expectedSoloKills = roleBenchmarksJson.optJSONObject("solo_kills") != null ? roleBenchmarksJson.getJSONObject("solo_kills").optDouble(rankKey, 1.0) : 1.0;
-        bench.expectedPlates = roleBenchmarksJson.optJSONObject("turret_plates") != null ? roleBenchmarksJson.getJSONObject("turret_plates").optDouble(rankKey, 2.0) : 2.0;
-        bench.expectedDpm = roleBenchmarksJson.optJSONObject("expected_dpm") != null ? roleBenchmarksJson.getJSONObject("expected_dpm").optDouble(rankKey, 400.0) : 400.0;
+        bench.expectedCsPerMin = row[BenchmarkTable.Metric.CS_PER_MIN.ordinal()];
+        bench.expectedVisionPerMin = row[BenchmarkTable.Metric.VISION_PER_MIN.ordinal()];
+        bench.expectedControlWards = row[BenchmarkTable.Metric.CONTROL_WARDS.ordinal()];
+        bench.expectedKda = row[BenchmarkTable.Metric.KDA.ordinal()];
+        bench.expectedDodgesPerMin = row[BenchmarkTable.Metric.SKILLSHOTS_DODGED_PER_MIN.ordinal()];
+        bench.expectedSoloKills = row[BenchmarkTable.Metric.SOLO_KILLS.ordinal()];
+        bench.expectedPlates = row[BenchmarkTable.Metric.TURRET_PLATES.ordinal()];
+        bench.expectedDpm = row[BenchmarkTable.Metric.EXPECTED_DPM.ordinal()];
 
         // --- AJUSTEMENT DYNAMIQUE DES BENCHMARKS ---
         // Si l'ennemi a beaucoup de tanks, on s'attend à plus de DPM et de tanking.
@@ -206,25 +372,12 @@ public class ScoreCalculator {
 
         applyGlobalRules(res, player);
 
-        // NOUVEAU : Création du payload hyper-structuré pour l'Analyste IA
-        JSONObject output = new JSONObject();
-        output.put("math_score", (int) res.totalScore);
-        output.put("champion_class", champClass);
-        output.put("pillars", res.pillarsJson);
-        output.put("macro_info", res.macroInfoJson);
-        output.put("synergies", res.synergiesJson);
-
-        return output;
+        return res;
     }
 
-    private static void applyGlobalRules(ScoreResult res, JSONObject player) {
-        int kills = player.optInt("k", 0);
-        int deaths = player.optInt("d", 0);
-        int assists = player.optInt("a", 0);
-        double kda = deaths == 0 ? (kills + assists) : (double) (kills + assists) / deaths;
-
-        JSONObject adv = player.optJSONObject("advanced");
-        double kp = adv != null ? adv.optDouble("kp_percent", 0) : 0;
+    private static void applyGlobalRules(ScoreResult res, ParticipantRecord player) {
+        double kda = player.kda();
+        double kp = player.hasChallenges() ? player.challenges().killParticipation() : 0;
 
         if (kda >= EXCEPTIONAL_KDA && kp >= EXCEPTIONAL_KP) res.setFloor(EXCEPTIONAL_FLOOR, "Performance globale exceptionnelle (KDA & Présence)");
         else if (kda >= SOLID_KDA && kp >= SOLID_KP) res.setFloor(SOLID_FLOOR, "Solide contribution d'équipe");
@@ -232,10 +385,7 @@ public class ScoreCalculator {
         if (res.totalScore >= SOFT_CAP_THRESHOLD) {
             double original = res.totalScore;
             res.totalScore = SOFT_CAP_THRESHOLD + (Math.log10(original - (SOFT_CAP_THRESHOLD - 1)) * SOFT_CAP_LOG_FACTOR);
-            JSONObject syn = new JSONObject();
-            syn.put("points", res.totalScore - original);
-            syn.put("reason", "Soft-Cap God Mode activé");
-            res.synergiesJson.put(syn);
+            res.synergies.add(new Synergy(res.totalScore - original, "Soft-Cap God Mode activé"));
         }
 
         if (res.totalScore < MIN_SCORE) res.totalScore = MIN_SCORE;
@@ -1,39 +1,386 @@
 package org.example.service;
 
+import org.example.util.Metrics;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Cache borné avec TTL.
+ * Chaque entrée a un poids (approximation de sa taille en octets, ou 1 par défaut) et le poids total
+ * ne dépasse jamais maxWeight. Éviction façon W-TinyLFU : les nouvelles entrées arrivent dans une petite
+ * fenêtre LRU, puis ne rejoignent la zone principale que si elles sont plus demandées que la victime LRU.
+ * Un sweeper en tâche de fond purge les entrées expirées même si personne ne les relit.
+ *
+ * Lecture sans verrou : get() lit une ConcurrentHashMap et note l'accès dans un tampon circulaire.
+ * Les accès notés (fréquences + ordre LRU) sont appliqués par lots, sous le verrou, par le premier
+ * thread qui l'obtient sans attendre ; le tampon est « avec pertes » : s'il déborde, quelques accès
+ * sont oubliés, ce qui ne fausse qu'à la marge les décisions d'éviction.
+ */
 public class SimpleCache<K, V> {
+
+    @FunctionalInterface
+    public interface Weigher<K, V> {
+        long weigh(K key, V value);
+    }
+
+    private static final long DEFAULT_MAX_ENTRIES = 10_000;
+    private static final double WINDOW_RATIO = 0.1; // 10% du budget pour les nouvelles entrées
+    private static final long SWEEP_INTERVAL_SECONDS = 60;
+    private static final int READ_BUFFER_SIZE = 256;     // Puissance de 2
+    private static final int DRAIN_THRESHOLD_MASK = 63;  // Tentative de vidage tous les 64 accès
+
+    // --- SWEEPER PARTAGÉ (un seul thread pour tous les caches) ---
+    private static final Set<SimpleCache<?, ?>> INSTANCES = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+    private static final ScheduledExecutorService SWEEPER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "cache-sweeper");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        SWEEPER.scheduleAtFixedRate(() -> {
+            SimpleCache<?, ?>[] caches;
+            synchronized (INSTANCES) {
+                caches = INSTANCES.toArray(new SimpleCache<?, ?>[0]);
+            }
+            for (SimpleCache<?, ?> cache : caches) {
+                try {
+                    cache.cleanUp();
+                } catch (Exception e) {
+                    System.err.println("Erreur sweeper cache " + cache.name + " : " + e.getMessage());
+                }
+            }
+        }, SWEEP_INTERVAL_SECONDS, SWEEP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private final String name;
     private final long ttlMillis;
-    private final Map<K, CacheEntry<V>> cache = new ConcurrentHashMap<>();
+    private final long maxWeight;
+    private final long maxWindowWeight;
+    private final Weigher<K, V> weigher;
+
+    // Lecture sans verrou ; modifiée uniquement sous evictionLock, en même temps que window/main
+    private final ConcurrentHashMap<K, CacheEntry<V>> data = new ConcurrentHashMap<>();
 
+    // --- ÉTAT D'ÉVICTION (sous evictionLock) ---
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    // Ordre d'accès (LRU) : l'entrée la plus ancienne est la première de l'itération
+    private final LinkedHashMap<K, CacheEntry<V>> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, CacheEntry<V>> main = new LinkedHashMap<>(16, 0.75f, true);
+    private long windowWeight = 0;
+    private long mainWeight = 0;
+    private final FrequencySketch sketch = new FrequencySketch();
+
+    // Clés lues, en attente d'être comptées dans le sketch et remontées dans leur LRU
+    private final AtomicReferenceArray<Object> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    private final AtomicLong readCount = new AtomicLong();
+
+    // --- STATISTIQUES ---
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    /** Cache borné en nombre d'entrées (poids 1 par entrée). */
     public SimpleCache(long ttlMillis) {
+        this("cache", ttlMillis, DEFAULT_MAX_ENTRIES, (k, v) -> 1);
+    }
+
+    public SimpleCache(String name, long ttlMillis, long maxEntries) {
+        this(name, ttlMillis, maxEntries, (k, v) -> 1);
+    }
+
+    /** @param maxWeight budget total, dans l'unité renvoyée par le weigher (souvent des octets). */
+    public SimpleCache(String name, long ttlMillis, long maxWeight, Weigher<K, V> weigher) {
+        this.name = name;
         this.ttlMillis = ttlMillis;
+        this.maxWeight = maxWeight;
+        this.maxWindowWeight = Math.max(1, (long) (maxWeight * WINDOW_RATIO));
+        this.weigher = weigher;
+        INSTANCES.add(this);
+        registerGauges();
+    }
+
+    /** Jauges et compteurs du registre de métriques ; référence faible pour ne pas retenir un cache abandonné. */
+    private void registerGauges() {
+        WeakReference<SimpleCache<K, V>> ref = new WeakReference<>(this);
+        Metrics.gauge("cache_hit_ratio", () -> { SimpleCache<K, V> c = ref.get(); return c != null ? c.hitRatio() : 0; }, "cache", name);
+        Metrics.gauge("cache_size", () -> { SimpleCache<K, V> c = ref.get(); return c != null ? c.size() : 0; }, "cache", name);
+        Metrics.counter("cache_hits", () -> { SimpleCache<K, V> c = ref.get(); return c != null ? c.getHits() : 0; }, "cache", name);
+        Metrics.counter("cache_misses", () -> { SimpleCache<K, V> c = ref.get(); return c != null ? c.getMisses() : 0; }, "cache", name);
     }
 
     public void put(K key, V value) {
-        cache.put(key, new CacheEntry<>(value, System.currentTimeMillis() + ttlMillis));
+        put(key, value, weigher.weigh(key, value));
+    }
+
+    /** Variante quand le poids est déjà connu (ex: taille du body HTTP), pour éviter de le recalculer. */
+    public void put(K key, V value, long weight) {
+        weight = Math.max(1, weight);
+        evictionLock.lock();
+        try {
+            drainReadBuffer(); // Fréquences à jour avant de décider qui sort
+            removeEntry(key);
+            if (weight > maxWeight) {
+                evictions.incrementAndGet(); // Plus gros que tout le cache : inutile de tout vider pour lui
+                return;
+            }
+            sketch.increment(key);
+            CacheEntry<V> entry = new CacheEntry<>(value, System.currentTimeMillis() + ttlMillis, weight);
+            window.put(key, entry);
+            data.put(key, entry);
+            windowWeight += weight;
+            drainWindow();
+        } finally {
+            evictionLock.unlock();
+        }
     }
 
     public V get(K key) {
-        CacheEntry<V> entry = cache.get(key);
+        recordAccess(key);
+        CacheEntry<V> entry = data.get(key);
         if (entry != null) {
             if (System.currentTimeMillis() < entry.expiryTime) {
+                hits.increment();
                 return entry.value;
-            } else {
-                cache.remove(key);
             }
+            removeExpired(key, entry);
         }
+        misses.increment();
         return null;
     }
 
+    public void invalidate(K key) {
+        evictionLock.lock();
+        try {
+            removeEntry(key);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /** Purge les entrées expirées (appelé périodiquement par le sweeper). */
+    public void cleanUp() {
+        evictionLock.lock();
+        try {
+            drainReadBuffer();
+            long now = System.currentTimeMillis();
+            windowWeight -= purgeExpired(window, now);
+            mainWeight -= purgeExpired(main, now);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    // --- TAMPON DE LECTURE ---
+
+    /** Sans verrou : une case du tampon ; de temps en temps, tentative de vidage si le verrou est libre. */
+    private void recordAccess(K key) {
+        long n = readCount.getAndIncrement();
+        readBuffer.lazySet((int) (n & (READ_BUFFER_SIZE - 1)), key);
+        if ((n & DRAIN_THRESHOLD_MASK) == DRAIN_THRESHOLD_MASK && evictionLock.tryLock()) {
+            try {
+                drainReadBuffer();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    /** Sous evictionLock : compte les accès notés et remonte les entrées encore présentes en tête de leur LRU. */
+    @SuppressWarnings("unchecked")
+    private void drainReadBuffer() {
+        for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+            Object key = readBuffer.getAndSet(i, null);
+            if (key == null) continue;
+            sketch.increment(key);
+            if (window.get((K) key) == null) main.get((K) key); // get() d'un LinkedHashMap en ordre d'accès = "touch"
+        }
+    }
+
+    /** Entrée vue expirée par une lecture : retirée, sauf si un put l'a remplacée entre-temps. */
+    private void removeExpired(K key, CacheEntry<V> expired) {
+        evictionLock.lock();
+        try {
+            if (data.get(key) != expired) return;
+            removeEntry(key);
+            expirations.incrementAndGet();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    // --- ÉVICTION ---
+
+    /** Fait sortir de la fenêtre le surplus, qui doit mériter sa place dans la zone principale. */
+    private void drainWindow() {
+        long maxMainWeight = maxWeight - maxWindowWeight;
+        while (windowWeight > maxWindowWeight && !window.isEmpty()) {
+            Iterator<Map.Entry<K, CacheEntry<V>>> it = window.entrySet().iterator();
+            Map.Entry<K, CacheEntry<V>> candidate = it.next();
+            it.remove();
+            windowWeight -= candidate.getValue().weight;
+
+            boolean admitted = true;
+            int candidateFreq = sketch.frequency(candidate.getKey());
+            while (mainWeight + candidate.getValue().weight > maxMainWeight && !main.isEmpty()) {
+                Iterator<Map.Entry<K, CacheEntry<V>>> mainIt = main.entrySet().iterator();
+                Map.Entry<K, CacheEntry<V>> victim = mainIt.next();
+                // TinyLFU : la victime LRU garde sa place si elle est au moins aussi demandée
+                if (candidateFreq <= sketch.frequency(victim.getKey())) {
+                    admitted = false;
+                    break;
+                }
+                mainIt.remove();
+                data.remove(victim.getKey());
+                mainWeight -= victim.getValue().weight;
+                evictions.incrementAndGet();
+            }
+
+            if (admitted && mainWeight + candidate.getValue().weight <= maxMainWeight) {
+                main.put(candidate.getKey(), candidate.getValue());
+                mainWeight += candidate.getValue().weight;
+            } else {
+                data.remove(candidate.getKey());
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private void removeEntry(K key) {
+        data.remove(key);
+        CacheEntry<V> removed = window.remove(key);
+        if (removed != null) {
+            windowWeight -= removed.weight;
+            return;
+        }
+        removed = main.remove(key);
+        if (removed != null) mainWeight -= removed.weight;
+    }
+
+    private long purgeExpired(LinkedHashMap<K, CacheEntry<V>> segment, long now) {
+        long freed = 0;
+        Iterator<Map.Entry<K, CacheEntry<V>>> it = segment.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<K, CacheEntry<V>> e = it.next();
+            CacheEntry<V> entry = e.getValue();
+            if (now >= entry.expiryTime) {
+                it.remove();
+                data.remove(e.getKey());
+                freed += entry.weight;
+                expirations.incrementAndGet();
+            }
+        }
+        return freed;
+    }
+
+    // --- STATISTIQUES ---
+
+    public String getName() { return name; }
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public long getEvictions() { return evictions.get(); }
+    public long getExpirations() { return expirations.get(); }
+    public int size() { return data.size(); }
+
+    public long weight() {
+        evictionLock.lock();
+        try {
+            return windowWeight + mainWeight;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public long maxWeight() { return maxWeight; }
+
+    public double hitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[size=%d, weight=%d/%d, hit=%.1f%%, evictions=%d, expirations=%d]",
+                name, size(), weight(), maxWeight, hitRatio() * 100, evictions.get(), expirations.get());
+    }
+
     private static class CacheEntry<V> {
         final V value;
         final long expiryTime;
+        final long weight;
 
-        CacheEntry(V value, long expiryTime) {
+        CacheEntry(V value, long expiryTime, long weight) {
             this.value = value;
             this.expiryTime = expiryTime;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Count-Min Sketch à 4 lignes : estimation (par excès) de la fréquence d'accès d'une clé.
+     * Les compteurs sont divisés par deux régulièrement pour oublier les popularités anciennes.
+     */
+    private static class FrequencySketch {
+        private static final int WIDTH = 4096; // Puissance de 2
+        private static final int MAX_COUNT = 15;
+        private static final int RESET_SAMPLE = WIDTH * 10;
+        private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+        private final int[][] table = new int[SEEDS.length][WIDTH];
+        private int additions = 0;
+
+        void increment(Object key) {
+            int hash = spread(key.hashCode());
+            for (int row = 0; row < SEEDS.length; row++) {
+                int idx = index(hash, row);
+                if (table[row][idx] < MAX_COUNT) table[row][idx]++;
+            }
+            if (++additions >= RESET_SAMPLE) reset();
+        }
+
+        int frequency(Object key) {
+            int hash = spread(key.hashCode());
+            int min = MAX_COUNT;
+            for (int row = 0; row < SEEDS.length; row++) {
+                min = Math.min(min, table[row][index(hash, row)]);
+            }
+            return min;
+        }
+
+        private void reset() {
+            for (int[] row : table) {
+                for (int i = 0; i < row.length; i++) row[i] >>>= 1;
+            }
+            additions /= 2;
+        }
+
+        private static int index(int hash, int row) {
+            int h = hash * SEEDS[row];
+            h ^= h >>> 16;
+            return h & (WIDTH - 1);
+        }
+
+        private static int spread(int h) {
+            h ^= h >>> 17;
+            h *= 0xED5AD4BB;
+            h ^= h >>> 11;
+            return h;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,43 @@
+package org.example.service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Déduplication des appels en vol : si plusieurs appelants demandent la même clé en même temps,
+ * un seul chargement est lancé et tous partagent son résultat (ou son erreur).
+ * Rien n'est conservé une fois l'appel terminé : c'est le rôle des caches.
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) return existing; // Un autre appelant charge déjà cette clé
+
+        try {
+            loader.get().whenComplete((value, error) -> {
+                // On retire avant de compléter : un appelant qui arrive ensuite trouvera le cache rempli
+                inFlight.remove(key, mine);
+                if (error != null) {
+                    mine.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                } else {
+                    mine.complete(value);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, mine);
+            mine.completeExceptionally(e);
+        }
+        return mine;
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+}
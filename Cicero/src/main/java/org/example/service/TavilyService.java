@@ -3,6 +3,7 @@ package org.example.service;
 import dev.langchain4j.agent.tool.Tool;
 import io.github.cdimascio.dotenv.Dotenv;
 import okhttp3.*;
+import org.example.util.ResourceLimiter;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
@@ -19,13 +20,18 @@ public class TavilyService {
 
     private final String apiKey;
     private final OkHttpClient client;
+    private final ResourceLimiter searchLimiter = ResourceLimiter.fromEnv("tavily", "TAVILY_MAX_CONCURRENCY", 2);
 
     // ThreadLocal pour stocker les traces par thread (requête)
     private static final ThreadLocal<StringBuilder> traceLog = ThreadLocal.withInitial(StringBuilder::new);
 
     public TavilyService() {
-        Dotenv dotenv = Dotenv.load();
-        this.apiKey = dotenv.get("TAVILY_API_KEY");
+        this(Dotenv.load().get("TAVILY_API_KEY"));
+    }
+
+    /** Clé fournie explicitement (sans .env) : rejeu hors-ligne, doublures de test. */
+    public TavilyService(String apiKey) {
+        this.apiKey = apiKey;
         
         this.client = new OkHttpClient.Builder()
                 .connectTimeout(60, TimeUnit.SECONDS) // Augmenté pour le mode "advanced"
@@ -88,47 +94,50 @@ public class TavilyService {
                     .post(body)
                     .build();
 
-            try (Response response = client.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    String error = "Error: Tavily API request failed with code " + response.code() + " - " + response.message();
-                    logTavilyTrace(query, domains, error);
-                    return error;
-                }
-                if (response.body() == null) {
-                    String error = "Error: Empty response from Tavily API.";
-                    logTavilyTrace(query, domains, error);
-                    return error;
-                }
+            // Tavily limite les recherches simultanées : on ne dépasse jamais la limite configurée
+            return searchLimiter.call(() -> {
+                try (Response response = client.newCall(request).execute()) {
+                    if (!response.isSuccessful()) {
+                        String error = "Error: Tavily API request failed with code " + response.code() + " - " + response.message();
+                        logTavilyTrace(query, domains, error);
+                        return error;
+                    }
+                    if (response.body() == null) {
+                        String error = "Error: Empty response from Tavily API.";
+                        logTavilyTrace(query, domains, error);
+                        return error;
+                    }
 
-                String responseBody = response.body().string();
-                JSONObject jsonResponse = new JSONObject(responseBody);
+                    String responseBody = response.body().string();
+                    JSONObject jsonResponse = new JSONObject(responseBody);
 
-                StringBuilder resultBuilder = new StringBuilder();
-                resultBuilder.append("--- Search Results (" + depth + ") for: ").append(query).append(" ---\n");
-                resultBuilder.append("Sources: ").append(domains).append("\n\n");
+                    StringBuilder resultBuilder = new StringBuilder();
+                    resultBuilder.append("--- Search Results (" + depth + ") for: ").append(query).append(" ---\n");
+                    resultBuilder.append("Sources: ").append(domains).append("\n\n");
 
-                if (jsonResponse.has("answer") && !jsonResponse.isNull("answer")) {
-                    resultBuilder.append("Short Answer: ").append(jsonResponse.getString("answer")).append("\n\n");
-                }
+                    if (jsonResponse.has("answer") && !jsonResponse.isNull("answer")) {
+                        resultBuilder.append("Short Answer: ").append(jsonResponse.getString("answer")).append("\n\n");
+                    }
 
-                if (jsonResponse.has("results")) {
-                    JSONArray results = jsonResponse.getJSONArray("results");
-                    for (int i = 0; i < results.length(); i++) {
-                        JSONObject result = results.getJSONObject(i);
-                        String title = result.optString("title", "No Title");
-                        String url = result.optString("url", "No URL");
-                        String content = result.optString("content", "No Content");
-
-                        resultBuilder.append("[").append(i + 1).append("] ").append(title).append("\n");
-                        resultBuilder.append("URL: ").append(url).append("\n");
-                        resultBuilder.append("Content: ").append(content).append("\n\n");
+                    if (jsonResponse.has("results")) {
+                        JSONArray results = jsonResponse.getJSONArray("results");
+                        for (int i = 0; i < results.length(); i++) {
+                            JSONObject result = results.getJSONObject(i);
+                            String title = result.optString("title", "No Title");
+                            String url = result.optString("url", "No URL");
+                            String content = result.optString("content", "No Content");
+
+                            resultBuilder.append("[").append(i + 1).append("] ").append(title).append("\n");
+                            resultBuilder.append("URL: ").append(url).append("\n");
+                            resultBuilder.append("Content: ").append(content).append("\n\n");
+                        }
                     }
-                }
 
-                String finalResult = resultBuilder.toString();
-                logTavilyTrace(query, domains, finalResult);
-                return finalResult;
-            }
+                    String finalResult = resultBuilder.toString();
+                    logTavilyTrace(query, domains, finalResult);
+                    return finalResult;
+                }
+            });
         } catch (Exception e) {
             e.printStackTrace();
             String error = "Error: Exception during Tavily API call - " + e.getMessage();
@@ -0,0 +1,66 @@
+package org.example.service.match;
+
+import org.json.JSONObject;
+
+/**
+ * Sous-ensemble typé du bloc "challenges" d'un participant (seuls les champs lus par le scoring et le narrateur).
+ * Riot renvoie parfois des décimales pour des compteurs : on les tronque une fois ici.
+ */
+public record ChallengeStats(
+        double killParticipation,
+        double teamDamagePercentage,
+        double goldPerMinute,
+        double damagePerMinute,
+        double damageTakenOnTeamPercentage,
+        double effectiveHealAndShielding,
+        double laningPhaseGoldExpAdvantage,
+        double maxCsAdvantageOnLaneOpponent,
+        double visionScoreAdvantageLaneOpponent,
+        double controlWardTimeCoverageInRiverOrEnemyHalf,
+        int soloKills,
+        int skillshotsDodged,
+        int turretPlatesTaken,
+        int laneMinionsFirst10Minutes,
+        int enemyChampionImmobilizations,
+        int saveAllyFromDeath,
+        int enemyJungleMonsterKills,
+        int epicMonsterSteals,
+        int bountyGold,
+        int dragonTakedowns,
+        int baronTakedowns,
+        int riftHeraldTakedowns,
+        int voidMonsterKill,
+        int scuttleCrabKills,
+        int killsOnOtherLanesEarlyJungleAsLaner
+) {
+
+    static ChallengeStats fromJson(JSONObject c) {
+        return new ChallengeStats(
+                c.optDouble("killParticipation", 0),
+                c.optDouble("teamDamagePercentage", 0),
+                c.optDouble("goldPerMinute", 0),
+                c.optDouble("damagePerMinute", 0),
+                c.optDouble("damageTakenOnTeamPercentage", 0),
+                c.optDouble("effectiveHealAndShielding", 0),
+                c.optDouble("laningPhaseGoldExpAdvantage", 0),
+                c.optDouble("maxCsAdvantageOnLaneOpponent", 0),
+                c.optDouble("visionScoreAdvantageLaneOpponent", 0),
+                c.optDouble("controlWardTimeCoverageInRiverOrEnemyHalf", 0),
+                c.optInt("soloKills", 0),
+                c.optInt("skillshotsDodged", 0),
+                c.optInt("turretPlatesTaken", 0),
+                c.optInt("laneMinionsFirst10Minutes", 0),
+                c.optInt("enemyChampionImmobilizations", 0),
+                c.optInt("saveAllyFromDeath", 0),
+                (int) c.optDouble("enemyJungleMonsterKills", 0),
+                c.optInt("epicMonsterSteals", 0),
+                c.optInt("bountyGold", 0),
+                c.optInt("dragonTakedowns", 0),
+                c.optInt("baronTakedowns", 0),
+                c.optInt("riftHeraldTakedowns", 0),
+                c.optInt("voidMonsterKill", 0),
+                c.optInt("scuttleCrabKills", 0),
+                c.optInt("killsOnOtherLanesEarlyJungleAsLaner", 0)
+        );
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.service.match;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Match Riot décodé une seule fois en objets immuables et typés.
+ * C'est ce modèle qui circule entre l'extracteur, le processeur, le ScoreCalculator et le narrateur ;
+ * le JSON n'est reconstruit qu'à la frontière (payloads IA, embeds Discord).
+ */
+public record MatchRecord(
+        String matchId,
+        String gameMode,
+        String gameType,
+        String gameVersion,
+        long gameCreation,
+        long gameEndTimestamp,
+        long durationSec,
+        List<TeamRecord> teams,
+        List<ParticipantRecord> participants
+) {
+
+    public MatchRecord {
+        teams = List.copyOf(teams);
+        participants = List.copyOf(participants);
+    }
+
+    public double durationMinutes() {
+        return durationSec / 60.0;
+    }
+
+    /** @return le participant correspondant à ce PUUID, ou null s'il n'a pas joué ce match. */
+    public ParticipantRecord participant(String puuid) {
+        for (ParticipantRecord p : participants) {
+            if (p.puuid().equals(puuid)) return p;
+        }
+        return null;
+    }
+
+    /** Poids approximatif en mémoire (pour le cache) : ~1 Ko par participant, très loin des ~40 Ko du DOM org.json. */
+    public long estimatedBytes() {
+        return 256 + participants.size() * 1024L + teams.size() * 128L;
+    }
+
+    /** @throws org.json.JSONException si le payload n'est pas un match (pas de bloc "info"). */
+    public static MatchRecord fromJson(JSONObject json) {
+        JSONObject info = json.getJSONObject("info");
+        JSONObject metadata = json.optJSONObject("metadata");
+
+        JSONArray teamsJson = info.optJSONArray("teams");
+        List<TeamRecord> teams = new ArrayList<>(2);
+        if (teamsJson != null) {
+            for (int i = 0; i < teamsJson.length(); i++) teams.add(TeamRecord.fromJson(teamsJson.getJSONObject(i)));
+        }
+
+        JSONArray participantsJson = info.getJSONArray("participants");
+        List<ParticipantRecord> participants = new ArrayList<>(participantsJson.length());
+        for (int i = 0; i < participantsJson.length(); i++) {
+            participants.add(ParticipantRecord.fromJson(participantsJson.getJSONObject(i)));
+        }
+
+        long gameCreation = info.optLong("gameCreation", 0);
+        long durationSec = info.optLong("gameDuration", 0);
+        return new MatchRecord(
+                metadata != null ? metadata.optString("matchId", "") : "",
+                info.optString("gameMode", ""),
+                info.optString("gameType", ""),
+                info.optString("gameVersion", ""),
+                gameCreation,
+                info.optLong("gameEndTimestamp", gameCreation + durationSec * 1000), // Absent des vieux matchs
+                durationSec,
+                teams,
+                participants
+        );
+    }
+}
@@ -0,0 +1,120 @@
+package org.example.service.match;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Participant d'un match, décodé une seule fois depuis le JSON Riot.
+ *
+ * @param items       item0..item6 (0 = emplacement vide), ne pas modifier (partagé)
+ * @param challenges  null si Riot n'a pas fourni le bloc "challenges"
+ */
+public record ParticipantRecord(
+        String puuid,
+        int participantId,
+        int teamId,
+        String championName,
+        String teamPosition,
+        boolean win,
+        String riotIdGameName,
+        String riotIdTagLine,
+        String summonerName,
+        int kills,
+        int deaths,
+        int assists,
+        int totalDamageDealtToChampions,
+        int totalDamageTaken,
+        int damageDealtToObjectives,
+        int damageSelfMitigated,
+        int goldEarned,
+        int totalMinionsKilled,
+        int neutralMinionsKilled,
+        int totalAllyJungleMinionsKilled,
+        int totalEnemyJungleMinionsKilled,
+        int visionScore,
+        int wardsPlaced,
+        int visionWardsBoughtInGame,
+        int[] items,
+        int summoner1Id,
+        int summoner2Id,
+        int runeKeystone,
+        int runePrimaryTree,
+        int runeSecondaryTree,
+        ChallengeStats challenges
+) {
+
+    public int totalCs() {
+        return totalMinionsKilled + neutralMinionsKilled;
+    }
+
+    public double kda() {
+        return deaths == 0 ? (kills + assists) : (double) (kills + assists) / deaths;
+    }
+
+    public String kdaString() {
+        return kills + "/" + deaths + "/" + assists;
+    }
+
+    /** "Pseudo#TAG" (riotIdTagLine peut être absent, et les vieux matchs n'ont que summonerName). */
+    public String displayName() {
+        String name = riotIdGameName.isEmpty() ? (summonerName.isEmpty() ? "Unknown" : summonerName) : riotIdGameName;
+        return riotIdTagLine.isEmpty() ? name : name + "#" + riotIdTagLine;
+    }
+
+    public boolean hasChallenges() {
+        return challenges != null;
+    }
+
+    static ParticipantRecord fromJson(JSONObject p) {
+        int[] items = new int[7];
+        for (int i = 0; i < items.length; i++) items[i] = p.optInt("item" + i, 0);
+
+        // Runes : clé de voûte + arbres primaire/secondaire
+        int keystone = 0, primaryTree = 0, secondaryTree = 0;
+        JSONObject perks = p.optJSONObject("perks");
+        JSONArray styles = perks != null ? perks.optJSONArray("styles") : null;
+        if (styles != null && styles.length() >= 2) {
+            JSONObject primary = styles.getJSONObject(0);
+            primaryTree = primary.optInt("style", 0);
+            secondaryTree = styles.getJSONObject(1).optInt("style", 0);
+            JSONArray selections = primary.optJSONArray("selections");
+            if (selections != null && selections.length() > 0) keystone = selections.getJSONObject(0).optInt("perk", 0);
+        }
+
+        JSONObject challenges = p.optJSONObject("challenges");
+
+        return new ParticipantRecord(
+                p.optString("puuid", ""),
+                p.optInt("participantId", 0),
+                p.optInt("teamId", 0),
+                p.optString("championName", ""),
+                p.optString("teamPosition", ""),
+                p.optBoolean("win", false),
+                p.optString("riotIdGameName", ""),
+                p.optString("riotIdTagLine", ""),
+                p.optString("summonerName", ""),
+                p.optInt("kills", 0),
+                p.optInt("deaths", 0),
+                p.optInt("assists", 0),
+                p.optInt("totalDamageDealtToChampions", 0),
+                p.optInt("totalDamageTaken", 0),
+                p.optInt("damageDealtToObjectives", 0),
+                p.optInt("damageSelfMitigated", 0),
+                p.optInt("goldEarned", 0),
+                p.optInt("totalMinionsKilled", 0),
+                p.optInt("neutralMinionsKilled", 0),
+                p.optInt("totalAllyJungleMinionsKilled", 0),
+                p.optInt("totalEnemyJungleMinionsKilled", 0),
+                p.optInt("visionScore", 0),
+                p.optInt("wardsPlaced", 0),
+                p.optInt("visionWardsBoughtInGame", 0),
+                items,
+                p.optInt("summoner1Id", 0),
+                p.optInt("summoner2Id", 0),
+                keystone,
+                primaryTree,
+                secondaryTree,
+                challenges != null ? ChallengeStats.fromJson(challenges) : null
+        );
+    }
+}
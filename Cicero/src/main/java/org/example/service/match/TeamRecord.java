@@ -0,0 +1,51 @@
+package org.example.service.match;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+
+/**
+ * Bilan d'une équipe : bans et objectifs détruits.
+ *
+ * @param bans championIds bannis (les bans vides, -1, sont déjà retirés), ne pas modifier (partagé)
+ */
+public record TeamRecord(
+        int teamId,
+        boolean win,
+        int[] bans,
+        int baronKills,
+        int dragonKills,
+        int hordeKills,
+        int riftHeraldKills,
+        int towerKills
+) {
+
+    static TeamRecord fromJson(JSONObject t) {
+        JSONArray banArray = t.optJSONArray("bans");
+        int count = 0;
+        int[] bans = new int[banArray != null ? banArray.length() : 0];
+        for (int i = 0; i < bans.length; i++) {
+            int champId = banArray.getJSONObject(i).optInt("championId", -1);
+            if (champId != -1) bans[count++] = champId;
+        }
+        if (count < bans.length) bans = Arrays.copyOf(bans, count);
+
+        JSONObject objs = t.optJSONObject("objectives");
+        return new TeamRecord(
+                t.optInt("teamId", 0),
+                t.optBoolean("win", false),
+                bans,
+                objectiveKills(objs, "baron"),
+                objectiveKills(objs, "dragon"),
+                objectiveKills(objs, "horde"), // Larves du Néant
+                objectiveKills(objs, "riftHerald"),
+                objectiveKills(objs, "tower")
+        );
+    }
+
+    private static int objectiveKills(JSONObject objectives, String name) {
+        JSONObject obj = objectives != null ? objectives.optJSONObject(name) : null;
+        return obj != null ? obj.optInt("kills", 0) : 0;
+    }
+}
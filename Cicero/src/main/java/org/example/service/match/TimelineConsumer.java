@@ -0,0 +1,22 @@
+package org.example.service.match;
+
+/**
+ * Consommateur d'événements de timeline, branché sur {@link TimelineWalker}.
+ * Chaque consommateur ne redéfinit que les types qui l'intéressent ; la timeline n'est parcourue
+ * qu'une fois, quel que soit le nombre de consommateurs (causalité, skill order, build, story...).
+ */
+public interface TimelineConsumer {
+
+    default void onChampionKill(TimelineEvent event) {}
+
+    default void onEliteMonsterKill(TimelineEvent event) {}
+
+    default void onBuildingKill(TimelineEvent event) {}
+
+    default void onSkillLevelUp(TimelineEvent event) {}
+
+    default void onItemPurchased(TimelineEvent event) {}
+
+    /** Appelé une fois après le dernier événement. */
+    default void onEnd() {}
+}
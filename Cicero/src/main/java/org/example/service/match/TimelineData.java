@@ -0,0 +1,48 @@
+package org.example.service.match;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Version compacte d'une timeline Riot : la liste des événements utiles (ordre chronologique)
+ * et l'or total des joueurs sur quelques frames seulement, au lieu des ~40 frames complètes.
+ */
+public final class TimelineData {
+    public static final TimelineData EMPTY = new TimelineData(List.of(), 0, Map.of());
+
+    private final List<TimelineEvent> events;
+    private final int frameCount;
+    // frame -> or total indexé par participantId (1..10)
+    private final Map<Integer, int[]> totalGoldSnapshots;
+
+    TimelineData(List<TimelineEvent> events, int frameCount, Map<Integer, int[]> totalGoldSnapshots) {
+        this.events = Collections.unmodifiableList(events);
+        this.frameCount = frameCount;
+        this.totalGoldSnapshots = totalGoldSnapshots;
+    }
+
+    public List<TimelineEvent> events() {
+        return events;
+    }
+
+    public int frameCount() {
+        return frameCount;
+    }
+
+    public boolean isEmpty() {
+        return frameCount == 0;
+    }
+
+    /** @return l'or total du joueur à cette frame, ou -1 si la frame n'a pas été conservée / le joueur absent. */
+    public int totalGoldAt(int frame, int participantId) {
+        int[] snapshot = totalGoldSnapshots.get(frame);
+        if (snapshot == null || participantId < 0 || participantId >= snapshot.length) return -1;
+        return snapshot[participantId];
+    }
+
+    /** Poids approximatif en mémoire (pour le cache). */
+    public long estimatedBytes() {
+        return 64 + events.size() * 96L + totalGoldSnapshots.size() * 64L;
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.service.match;
+
+/**
+ * Événement de timeline déjà typé : seuls les champs utiles au bot sont conservés.
+ * Les champs non pertinents pour le type valent 0 / null (comme optInt / optString sur le JSON d'origine).
+ *
+ * @param timestamp      horodatage exact de l'événement (ms)
+ * @param frameTimestamp horodatage de la frame qui le contient (ms, granularité minute)
+ * @param assistingParticipantIds ne pas modifier (partagé)
+ */
+public record TimelineEvent(
+        Type type,
+        long timestamp,
+        long frameTimestamp,
+        int participantId,
+        int killerId,
+        int victimId,
+        int killerTeamId,
+        int teamId,
+        int[] assistingParticipantIds,
+        int skillSlot,
+        int itemId,
+        String monsterType,
+        String monsterSubType,
+        String buildingType,
+        String laneType
+) {
+    public enum Type { CHAMPION_KILL, ELITE_MONSTER_KILL, BUILDING_KILL, SKILL_LEVEL_UP, ITEM_PURCHASED }
+
+    static final int[] NO_ASSISTS = new int[0];
+
+    public boolean isChampionKill() {
+        return type == Type.CHAMPION_KILL;
+    }
+
+    /** Tour ou inhibiteur (les autres BUILDING_KILL ne comptent pas comme objectif). */
+    public boolean isStructureObjective() {
+        return type == Type.BUILDING_KILL
+                && ("INHIBITOR_BUILDING".equals(buildingType) || "TOWER_BUILDING".equals(buildingType));
+    }
+}
@@ -0,0 +1,209 @@
+package org.example.service.match;
+
+import org.example.util.JsonPullReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lit une timeline Riot en flux, sans construire le DOM org.json.
+ * On ne garde que les événements de TimelineEvent.Type et l'or total des frames de SNAPSHOT_FRAMES :
+ * positions, stats détaillées des participantFrames, victimDamageDealt... sont sautés sans allocation.
+ */
+public final class TimelineParser {
+
+    // Frames dont on conserve l'or total (14 = duel de lane pour MatchDataExtractor)
+    public static final Set<Integer> SNAPSHOT_FRAMES = Set.of(14);
+    private static final int MAX_PARTICIPANTS = 10;
+
+    private TimelineParser() {}
+
+    public static TimelineData parse(InputStream in) throws IOException {
+        return parse(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    public static TimelineData parse(String json) throws IOException {
+        return parse(new StringReader(json));
+    }
+
+    public static TimelineData parse(Reader source) throws IOException {
+        List<TimelineEvent> events = new ArrayList<>();
+        Map<Integer, int[]> snapshots = new HashMap<>();
+        int frameCount = 0;
+
+        try (JsonPullReader reader = new JsonPullReader(source)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!reader.nextName().equals("info")) {
+                    reader.skipValue(); // metadata
+                    continue;
+                }
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (!reader.nextName().equals("frames")) {
+                        reader.skipValue();
+                        continue;
+                    }
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        readFrame(reader, frameCount, events, snapshots);
+                        frameCount++;
+                    }
+                    reader.endArray();
+                }
+                reader.endObject();
+            }
+            reader.endObject();
+        }
+
+        return new TimelineData(events, frameCount, snapshots);
+    }
+
+    private static void readFrame(JsonPullReader reader, int frameIndex, List<TimelineEvent> out,
+                                  Map<Integer, int[]> snapshots) throws IOException {
+        List<EventFields> frameEvents = new ArrayList<>();
+        long frameTimestamp = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "timestamp" -> frameTimestamp = reader.nextLong();
+                case "events" -> {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        EventFields fields = readEvent(reader);
+                        if (fields != null) frameEvents.add(fields);
+                    }
+                    reader.endArray();
+                }
+                case "participantFrames" -> {
+                    if (SNAPSHOT_FRAMES.contains(frameIndex)) snapshots.put(frameIndex, readTotalGold(reader));
+                    else reader.skipValue();
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        // Le timestamp de la frame peut arriver après ses événements dans le JSON
+        for (EventFields f : frameEvents) out.add(f.toEvent(frameTimestamp));
+    }
+
+    /** @return null si le type d'événement ne nous intéresse pas. */
+    private static EventFields readEvent(JsonPullReader reader) throws IOException {
+        EventFields f = new EventFields();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "type" -> f.type = typeOf(optString(reader));
+                case "timestamp" -> f.timestamp = optLong(reader);
+                case "participantId" -> f.participantId = (int) optLong(reader);
+                case "killerId" -> f.killerId = (int) optLong(reader);
+                case "victimId" -> f.victimId = (int) optLong(reader);
+                case "killerTeamId" -> f.killerTeamId = (int) optLong(reader);
+                case "teamId" -> f.teamId = (int) optLong(reader);
+                case "skillSlot" -> f.skillSlot = (int) optLong(reader);
+                case "itemId" -> f.itemId = (int) optLong(reader);
+                case "monsterType" -> f.monsterType = optString(reader);
+                case "monsterSubType" -> f.monsterSubType = optString(reader);
+                case "buildingType" -> f.buildingType = optString(reader);
+                case "laneType" -> f.laneType = optString(reader);
+                case "assistingParticipantIds" -> f.assists = readIntArray(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return f.type != null ? f : null;
+    }
+
+    private static int[] readTotalGold(JsonPullReader reader) throws IOException {
+        int[] gold = new int[MAX_PARTICIPANTS + 1];
+        Arrays.fill(gold, -1);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int participantId;
+            try {
+                participantId = Integer.parseInt(reader.nextName());
+            } catch (NumberFormatException e) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("totalGold") && participantId >= 0 && participantId <= MAX_PARTICIPANTS) {
+                    gold[participantId] = reader.nextInt();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        reader.endObject();
+        return gold;
+    }
+
+    private static int[] readIntArray(JsonPullReader reader) throws IOException {
+        int[] values = new int[5];
+        int size = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = reader.nextInt();
+        }
+        reader.endArray();
+        return size == 0 ? TimelineEvent.NO_ASSISTS : Arrays.copyOf(values, size);
+    }
+
+    // Riot met parfois null à la place d'une valeur : même comportement qu'optInt / optString
+    private static long optLong(JsonPullReader reader) throws IOException {
+        if (reader.peek() != JsonPullReader.Token.NUMBER) {
+            reader.skipValue();
+            return 0;
+        }
+        return reader.nextLong();
+    }
+
+    private static String optString(JsonPullReader reader) throws IOException {
+        if (reader.peek() != JsonPullReader.Token.STRING) {
+            reader.skipValue();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    private static TimelineEvent.Type typeOf(String type) {
+        if (type == null) return null;
+        return switch (type) {
+            case "CHAMPION_KILL" -> TimelineEvent.Type.CHAMPION_KILL;
+            case "ELITE_MONSTER_KILL" -> TimelineEvent.Type.ELITE_MONSTER_KILL;
+            case "BUILDING_KILL" -> TimelineEvent.Type.BUILDING_KILL;
+            case "SKILL_LEVEL_UP" -> TimelineEvent.Type.SKILL_LEVEL_UP;
+            case "ITEM_PURCHASED" -> TimelineEvent.Type.ITEM_PURCHASED;
+            default -> null;
+        };
+    }
+
+    /** Champs lus au fil de l'eau (l'ordre des clés dans le JSON n'est pas garanti). */
+    private static class EventFields {
+        TimelineEvent.Type type;
+        long timestamp;
+        int participantId, killerId, victimId, killerTeamId, teamId, skillSlot, itemId;
+        String monsterType, monsterSubType, buildingType, laneType;
+        int[] assists = TimelineEvent.NO_ASSISTS;
+
+        TimelineEvent toEvent(long frameTimestamp) {
+            return new TimelineEvent(type, timestamp, frameTimestamp, participantId, killerId, victimId,
+                    killerTeamId, teamId, assists, skillSlot, itemId, monsterType, monsterSubType, buildingType, laneType);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.example.service.match;
+
+import java.util.List;
+
+/**
+ * Parcours unique d'une timeline : chaque événement est aiguillé vers tous les consommateurs enregistrés.
+ */
+public final class TimelineWalker {
+
+    private TimelineWalker() {}
+
+    public static void walk(TimelineData timeline, TimelineConsumer... consumers) {
+        walk(timeline, List.of(consumers));
+    }
+
+    public static void walk(TimelineData timeline, List<? extends TimelineConsumer> consumers) {
+        if (consumers.isEmpty()) return;
+
+        for (TimelineEvent event : timeline.events()) {
+            switch (event.type()) {
+                case CHAMPION_KILL -> { for (TimelineConsumer c : consumers) c.onChampionKill(event); }
+                case ELITE_MONSTER_KILL -> { for (TimelineConsumer c : consumers) c.onEliteMonsterKill(event); }
+                case BUILDING_KILL -> { for (TimelineConsumer c : consumers) c.onBuildingKill(event); }
+                case SKILL_LEVEL_UP -> { for (TimelineConsumer c : consumers) c.onSkillLevelUp(event); }
+                case ITEM_PURCHASED -> { for (TimelineConsumer c : consumers) c.onItemPurchased(event); }
+            }
+        }
+        for (TimelineConsumer c : consumers) c.onEnd();
+    }
+}
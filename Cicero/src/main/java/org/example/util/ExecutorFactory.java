@@ -0,0 +1,64 @@
+package org.example.util;
+
+import io.github.cdimascio.dotenv.Dotenv;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Création des pools d'exécution du bot.
+ * EXECUTOR_MODE=virtual dans le .env => un thread virtuel par tâche (Java 21+) : les appels bloquants
+ * (Mistral, Riot, SQLite) ne monopolisent plus un thread du pool. La concurrence réelle est alors
+ * bornée par les ResourceLimiter placés devant chaque ressource externe.
+ * Sur un JDK sans threads virtuels, on retombe sur un pool fixe classique.
+ */
+public final class ExecutorFactory {
+
+    private static final boolean VIRTUAL = "virtual".equalsIgnoreCase(readMode());
+    private static final Method VIRTUAL_FACTORY = findVirtualFactory();
+
+    private ExecutorFactory() {}
+
+    /** Pool pour des tâches bloquantes : virtuel si activé et disponible, sinon platformThreads threads nommés. */
+    public static ExecutorService newTaskExecutor(String name, int platformThreads) {
+        if (VIRTUAL && VIRTUAL_FACTORY != null) {
+            try {
+                return (ExecutorService) VIRTUAL_FACTORY.invoke(null);
+            } catch (Exception e) {
+                System.err.println("Threads virtuels indisponibles pour " + name + " : " + e.getMessage());
+            }
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(platformThreads, r -> {
+            Thread t = new Thread(r, name + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public static boolean isVirtual() {
+        return VIRTUAL && VIRTUAL_FACTORY != null;
+    }
+
+    private static String readMode() {
+        try {
+            return Dotenv.load().get("EXECUTOR_MODE", "platform");
+        } catch (Exception e) {
+            String env = System.getenv("EXECUTOR_MODE");
+            return env != null ? env : "platform";
+        }
+    }
+
+    // Le projet compile en Java 17 : on passe par la réflexion pour profiter des threads virtuels au runtime
+    private static Method findVirtualFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            if (VIRTUAL) System.err.println("EXECUTOR_MODE=virtual ignoré : JDK " + Runtime.version().feature() + " sans threads virtuels.");
+            return null;
+        }
+    }
+}
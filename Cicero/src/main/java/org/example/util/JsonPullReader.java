@@ -0,0 +1,316 @@
+package org.example.util;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Lecteur JSON en flux (pull parser) minimaliste.
+ * On avance token par token sans jamais construire d'arbre : idéal pour extraire quelques champs
+ * d'un gros document (timelines Riot de plusieurs centaines de Ko) en ignorant le reste avec skipValue().
+ * API calquée sur celle de Gson/Jackson (beginObject, nextName, nextLong...).
+ */
+public class JsonPullReader implements AutoCloseable {
+
+    public enum Token { BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT }
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int pos = 0;
+    private int limit = 0;
+
+    // Pile des conteneurs ouverts : true = objet, false = tableau
+    private boolean[] stack = new boolean[32];
+    private int depth = 0;
+    // Dans un objet : le prochain token est-il un nom (clé) ? / Faut-il une virgule avant le prochain élément ?
+    private boolean expectName = false;
+    private boolean needComma = false;
+    // Une valeur doit suivre (après un nom de champ) : '}' ou ']' serait une valeur manquante
+    private boolean expectValue = false;
+
+    private Token peeked = null;
+    private final StringBuilder scratch = new StringBuilder(64);
+
+    public JsonPullReader(Reader in) {
+        this.in = in;
+    }
+
+    // --- NAVIGATION ---
+
+    public Token peek() throws IOException {
+        if (peeked != null) return peeked;
+
+        int c = nextNonWhitespace();
+        boolean inObject = depth > 0 && stack[depth - 1];
+
+        if (c == '}' || c == ']') {
+            if (expectValue) throw syntaxError("Valeur attendue avant '" + (char) c + "'");
+            if (depth == 0 || stack[depth - 1] != (c == '}')) throw syntaxError("'" + (char) c + "' inattendu");
+            pos--; // Consommé par endObject()/endArray()
+            return peeked = c == '}' ? Token.END_OBJECT : Token.END_ARRAY;
+        }
+        if (c == -1) {
+            if (depth > 0) throw syntaxError("Fin de document inattendue");
+            return peeked = Token.END_DOCUMENT;
+        }
+        if (needComma) {
+            if (c != ',') throw syntaxError("',' attendu");
+            c = nextNonWhitespace();
+            if (c == -1) throw syntaxError("Fin de document inattendue");
+            if (c == '}' || c == ']') throw syntaxError("Valeur attendue après ','");
+        }
+        if (inObject && expectName) {
+            if (c != '"') throw syntaxError("Nom de champ attendu");
+            pos--; // On laisse le guillemet pour nextName()
+            return peeked = Token.NAME;
+        }
+
+        pos--;
+        return peeked = switch (c) {
+            case '{' -> Token.BEGIN_OBJECT;
+            case '[' -> Token.BEGIN_ARRAY;
+            case '"' -> Token.STRING;
+            case 't', 'f' -> Token.BOOLEAN;
+            case 'n' -> Token.NULL;
+            default -> {
+                if (c == '-' || (c >= '0' && c <= '9')) yield Token.NUMBER;
+                throw syntaxError("Caractère inattendu '" + (char) c + "'");
+            }
+        };
+    }
+
+    public boolean hasNext() throws IOException {
+        Token t = peek();
+        return t != Token.END_OBJECT && t != Token.END_ARRAY && t != Token.END_DOCUMENT;
+    }
+
+    public void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+        pos++;
+        push(true);
+    }
+
+    public void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+        pop();
+    }
+
+    public void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+        pos++;
+        push(false);
+    }
+
+    public void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+        pop();
+    }
+
+    public String nextName() throws IOException {
+        expect(Token.NAME);
+        pos++; // Guillemet ouvrant
+        String name = readString();
+        if (nextNonWhitespace() != ':') throw syntaxError("':' attendu");
+        expectName = false;
+        needComma = false;
+        expectValue = true;
+        return name;
+    }
+
+    // --- VALEURS ---
+
+    public String nextString() throws IOException {
+        Token t = peek();
+        if (t == Token.NUMBER || t == Token.BOOLEAN) return readLiteral();
+        expect(Token.STRING);
+        pos++;
+        String value = readString();
+        afterValue();
+        return value;
+    }
+
+    public long nextLong() throws IOException {
+        expect(Token.NUMBER);
+        String literal = readLiteral();
+        try {
+            return Long.parseLong(literal);
+        } catch (NumberFormatException e) {
+            return (long) parseDouble(literal); // Riot renvoie parfois des "12.0"
+        }
+    }
+
+    public int nextInt() throws IOException {
+        return (int) nextLong();
+    }
+
+    public double nextDouble() throws IOException {
+        expect(Token.NUMBER);
+        return parseDouble(readLiteral());
+    }
+
+    public boolean nextBoolean() throws IOException {
+        expect(Token.BOOLEAN);
+        String literal = readLiteral();
+        if (literal.equals("true")) return true;
+        if (literal.equals("false")) return false;
+        throw syntaxError("Booléen invalide '" + literal + "'");
+    }
+
+    public void nextNull() throws IOException {
+        expect(Token.NULL);
+        String literal = readLiteral();
+        if (!literal.equals("null")) throw syntaxError("null invalide '" + literal + "'");
+    }
+
+    /** Ignore la valeur courante (objet ou tableau compris) sans rien allouer pour son contenu. */
+    public void skipValue() throws IOException {
+        int targetDepth = depth;
+        do {
+            switch (peek()) {
+                case BEGIN_OBJECT -> beginObject();
+                case BEGIN_ARRAY -> beginArray();
+                case END_OBJECT -> endObject();
+                case END_ARRAY -> endArray();
+                case NAME -> {
+                    pos++;
+                    skipString();
+                    if (nextNonWhitespace() != ':') throw syntaxError("':' attendu");
+                    expectName = false;
+                    needComma = false;
+                    expectValue = true;
+                    peeked = null;
+                }
+                case STRING -> { pos++; skipString(); peeked = null; afterValue(); }
+                case END_DOCUMENT -> { return; }
+                default -> readLiteral();
+            }
+        } while (depth > targetDepth);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // --- INTERNE ---
+
+    private void expect(Token token) throws IOException {
+        Token actual = peek();
+        if (actual != token) throw syntaxError(token + " attendu mais " + actual + " trouvé");
+        peeked = null;
+    }
+
+    private void push(boolean isObject) {
+        if (depth == stack.length) {
+            boolean[] bigger = new boolean[depth * 2];
+            System.arraycopy(stack, 0, bigger, 0, depth);
+            stack = bigger;
+        }
+        stack[depth++] = isObject;
+        expectName = isObject;
+        needComma = false;
+        expectValue = false;
+    }
+
+    private void pop() {
+        pos++; // '}' ou ']'
+        depth--;
+        afterValue();
+    }
+
+    /** Après une valeur : virgule attendue avant la suivante, et dans un objet la suivante est une clé. */
+    private void afterValue() {
+        needComma = depth > 0;
+        expectValue = false;
+        expectName = depth > 0 && stack[depth - 1];
+    }
+
+    private String readLiteral() throws IOException {
+        peeked = null;
+        scratch.setLength(0);
+        while (true) {
+            if (pos == limit && !fill()) break;
+            char c = buffer[pos];
+            if (c == ',' || c == '}' || c == ']' || c == ':' || Character.isWhitespace(c)) break;
+            scratch.append(c);
+            pos++;
+        }
+        afterValue();
+        return scratch.toString();
+    }
+
+    private double parseDouble(String literal) throws IOException {
+        try {
+            return Double.parseDouble(literal);
+        } catch (NumberFormatException e) {
+            throw syntaxError("Nombre invalide '" + literal + "'");
+        }
+    }
+
+    private String readString() throws IOException {
+        scratch.setLength(0);
+        while (true) {
+            if (pos == limit && !fill()) throw syntaxError("Chaîne non terminée");
+            char c = buffer[pos++];
+            if (c == '"') return scratch.toString();
+            if (c == '\\') {
+                scratch.append(readEscape());
+            } else {
+                scratch.append(c);
+            }
+        }
+    }
+
+    private void skipString() throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) throw syntaxError("Chaîne non terminée");
+            char c = buffer[pos++];
+            if (c == '"') return;
+            if (c == '\\') readEscape();
+        }
+    }
+
+    private char readEscape() throws IOException {
+        if (pos == limit && !fill()) throw syntaxError("Échappement non terminé");
+        char c = buffer[pos++];
+        return switch (c) {
+            case 'n' -> '\n';
+            case 't' -> '\t';
+            case 'r' -> '\r';
+            case 'b' -> '\b';
+            case 'f' -> '\f';
+            case 'u' -> {
+                int code = 0;
+                for (int i = 0; i < 4; i++) {
+                    if (pos == limit && !fill()) throw syntaxError("Échappement unicode tronqué");
+                    int digit = Character.digit(buffer[pos++], 16);
+                    if (digit < 0) throw syntaxError("Échappement unicode invalide");
+                    code = (code << 4) | digit;
+                }
+                yield (char) code;
+            }
+            default -> c; // \" \\ \/
+        };
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) return -1;
+            char c = buffer[pos++];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') return c;
+        }
+    }
+
+    private boolean fill() throws IOException {
+        int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) return false;
+        pos = 0;
+        limit = read;
+        return true;
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException("JSON invalide : " + message);
+    }
+}
@@ -0,0 +1,121 @@
+package org.example.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogramme de latences façon HDR (log-linéaire), en microsecondes.
+ * Chaque puissance de deux est découpée en 16 sous-compartiments : erreur relative <= 6,25 %,
+ * quelle que soit l'échelle (de la µs à plusieurs heures), pour ~550 compteurs et sans allocation à l'enregistrement.
+ * Enregistrement sans verrou : sûr depuis n'importe quel thread.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;             // 16 sous-compartiments par puissance de deux
+    private static final int LINEAR_LIMIT = 2 * SUB_COUNT;          // En dessous de 32 µs : un compartiment par µs
+    private static final int MAX_MAGNITUDE = 36;                    // 2^36 µs ≈ 19 h : au-delà, on plafonne
+    private static final long MAX_VALUE = (1L << (MAX_MAGNITUDE + 1)) - 1;
+    static final int BUCKETS = LINEAR_LIMIT + (MAX_MAGNITUDE - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumMicros = new LongAdder();
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+    public void recordNanos(long nanos) {
+        record(nanos / 1000);
+    }
+
+    public void record(long micros) {
+        long v = Math.max(0, Math.min(micros, MAX_VALUE));
+        counts.incrementAndGet(indexOf(v));
+        count.increment();
+        sumMicros.add(v);
+        maxMicros.accumulate(v);
+    }
+
+    /** Chronomètre un bloc : try (var t = histogram.time()) { ... } */
+    public Timing time() {
+        return new Timing(this, System.nanoTime());
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long sumMicros() {
+        return sumMicros.sum();
+    }
+
+    public long maxMicros() {
+        return maxMicros.get();
+    }
+
+    public double meanMicros() {
+        long n = count();
+        return n == 0 ? 0 : (double) sumMicros() / n;
+    }
+
+    /** @param percentile entre 0 et 100 ; renvoie la borne haute du compartiment (jamais plus que le max observé). */
+    public long percentileMicros(double percentile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return Math.min(upperBound(i), maxMicros());
+        }
+        return maxMicros();
+    }
+
+    /** Nombre d'enregistrements <= limitMicros (pour les exports cumulatifs type Prometheus). */
+    public long countAtOrBelow(long limitMicros) {
+        if (limitMicros < 0) return 0;
+        int last = indexOf(Math.min(limitMicros, MAX_VALUE));
+        // Le compartiment de la limite n'est compté que s'il est entièrement sous la limite
+        if (upperBound(last) > limitMicros) last--;
+        long total = 0;
+        for (int i = 0; i <= last; i++) total += counts.get(i);
+        return total;
+    }
+
+    static int indexOf(long v) {
+        if (v < LINEAR_LIMIT) return (int) v;
+        int magnitude = 63 - Long.numberOfLeadingZeros(v);        // >= 5
+        int shift = magnitude - SUB_BITS;
+        int sub = (int) (v >> shift) - SUB_COUNT;                 // 0..15
+        return LINEAR_LIMIT + (magnitude - SUB_BITS - 1) * SUB_COUNT + sub;
+    }
+
+    static long upperBound(int index) {
+        if (index < LINEAR_LIMIT) return index;
+        int offset = index - LINEAR_LIMIT;
+        int shift = offset / SUB_COUNT + 1;
+        int sub = offset % SUB_COUNT;
+        return ((long) (SUB_COUNT + sub + 1) << shift) - 1;
+    }
+
+    public static final class Timing implements AutoCloseable {
+        private final LatencyHistogram histogram;
+        private final long start;
+
+        private Timing(LatencyHistogram histogram, long start) {
+            this.histogram = histogram;
+            this.start = start;
+        }
+
+        @Override
+        public void close() {
+            histogram.recordNanos(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package org.example.util;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Registre de métriques en mémoire, partagé par tout le bot : latences (LatencyHistogram),
+ * compteurs et jauges (valeurs lues à la demande : taille d'un cache, file d'un pool...).
+ *
+ * Une métrique est identifiée par son nom et ses étiquettes, au format Prometheus :
+ *   Metrics.timer("riot_request", "endpoint", "/lol/match/v5/matches/{}") -> riot_request{endpoint="/lol/match/v5/matches/{}"}
+ * Enregistrer ne coûte qu'une lecture de map + quelques incréments atomiques.
+ */
+public final class Metrics {
+
+    private static final Map<String, LatencyHistogram> TIMERS = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+    private static final Map<String, LongSupplier> COUNTER_READERS = new ConcurrentHashMap<>();
+    private static final Map<String, DoubleSupplier> GAUGES = new ConcurrentHashMap<>();
+
+    private static volatile ScheduledExecutorService dumpScheduler;
+
+    private Metrics() {}
+
+    /** @param labels paires clé, valeur */
+    public static LatencyHistogram timer(String name, String... labels) {
+        return TIMERS.computeIfAbsent(key(name, labels), k -> new LatencyHistogram());
+    }
+
+    public static void increment(String name, String... labels) {
+        COUNTERS.computeIfAbsent(key(name, labels), k -> new LongAdder()).increment();
+    }
+
+    /**
+     * Compteur tenu ailleurs (ex: AtomicLong d'un cache), lu à chaque export ; la valeur ne doit que croître.
+     * Exporté en _total comme ceux d'increment(), donc utilisable avec rate().
+     */
+    public static void counter(String name, LongSupplier value, String... labels) {
+        COUNTER_READERS.put(key(name, labels), value);
+    }
+
+    /** Jauge lue à chaque export ; un nouvel enregistrement sous la même clé remplace l'ancien. */
+    public static void gauge(String name, DoubleSupplier value, String... labels) {
+        GAUGES.put(key(name, labels), value);
+    }
+
+    // --- LECTURE (triée par clé) ---
+
+    public static Map<String, LatencyHistogram> timers() {
+        return new TreeMap<>(TIMERS);
+    }
+
+    public static Map<String, Long> counters() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        COUNTERS.forEach((k, v) -> snapshot.put(k, v.sum()));
+        COUNTER_READERS.forEach((k, v) -> {
+            try {
+                snapshot.merge(k, v.getAsLong(), Long::sum);
+            } catch (Exception e) {
+                // Comme pour les jauges : on saute ce compteur plutôt que l'export entier
+            }
+        });
+        return snapshot;
+    }
+
+    public static Map<String, Double> gauges() {
+        Map<String, Double> snapshot = new TreeMap<>();
+        GAUGES.forEach((k, v) -> {
+            try {
+                snapshot.put(k, v.getAsDouble());
+            } catch (Exception e) {
+                // Une jauge défaillante ne doit pas casser l'export
+            }
+        });
+        return snapshot;
+    }
+
+    /** Rapport texte : latences (nombre, p50/p90/p99/max en ms), compteurs, jauges. */
+    public static String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== LATENCES (ms) ===\n");
+        timers().forEach((k, h) -> {
+            if (h.count() == 0) return;
+            sb.append(String.format("%s n=%d p50=%.1f p90=%.1f p99=%.1f max=%.1f%n", k, h.count(),
+                    h.percentileMicros(50) / 1000.0, h.percentileMicros(90) / 1000.0,
+                    h.percentileMicros(99) / 1000.0, h.maxMicros() / 1000.0));
+        });
+        sb.append("=== COMPTEURS ===\n");
+        counters().forEach((k, v) -> sb.append(k).append(' ').append(v).append('\n'));
+        sb.append("=== JAUGES ===\n");
+        gauges().forEach((k, v) -> sb.append(k).append(' ').append(formatGauge(v)).append('\n'));
+        return sb.toString();
+    }
+
+    /**
+     * Format texte Prometheus (exposition 0.0.4) : latences en histogrammes cumulatifs (secondes),
+     * compteurs en _total, jauges telles quelles.
+     */
+    public static String prometheus() {
+        StringBuilder sb = new StringBuilder();
+
+        groupByName(timers()).forEach((name, series) -> {
+            String metric = name + "_seconds";
+            sb.append("# TYPE ").append(metric).append(" histogram\n");
+            series.forEach((labels, h) -> {
+                long count = h.count();
+                for (double le : BUCKETS_SECONDS) {
+                    sb.append(metric).append("_bucket").append(withLabel(labels, "le", formatBound(le)))
+                            .append(' ').append(Math.min(h.countAtOrBelow((long) (le * 1_000_000)), count)).append('\n');
+                }
+                sb.append(metric).append("_bucket").append(withLabel(labels, "le", "+Inf")).append(' ').append(count).append('\n');
+                sb.append(metric).append("_sum").append(withLabel(labels, null, null)).append(' ').append(h.sumMicros() / 1e6).append('\n');
+                sb.append(metric).append("_count").append(withLabel(labels, null, null)).append(' ').append(count).append('\n');
+            });
+        });
+
+        groupByName(counters()).forEach((name, series) -> {
+            sb.append("# TYPE ").append(name).append("_total counter\n");
+            series.forEach((labels, v) -> sb.append(name).append("_total").append(withLabel(labels, null, null)).append(' ').append(v).append('\n'));
+        });
+
+        groupByName(gauges()).forEach((name, series) -> {
+            sb.append("# TYPE ").append(name).append(" gauge\n");
+            series.forEach((labels, v) -> sb.append(name).append(withLabel(labels, null, null)).append(' ').append(formatGauge(v)).append('\n'));
+        });
+        return sb.toString();
+    }
+
+    /** Écrit le rapport dans les logs à intervalle régulier (un seul planificateur, même si appelé deux fois). */
+    public static synchronized void startPeriodicDump(long intervalMinutes) {
+        if (dumpScheduler != null || intervalMinutes <= 0) return;
+        dumpScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        dumpScheduler.scheduleAtFixedRate(() -> {
+            try {
+                System.out.println("[Metrics]\n" + report());
+            } catch (Exception e) {
+                System.err.println("Erreur dump métriques : " + e.getMessage());
+            }
+        }, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    /** name{k1="v1",k2="v2"} ; name seul sans étiquette. */
+    static String key(String name, String... labels) {
+        if (labels.length == 0) return name;
+        StringBuilder sb = new StringBuilder(name).append('{');
+        for (int i = 0; i + 1 < labels.length; i += 2) {
+            if (i > 0) sb.append(',');
+            sb.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+        }
+        return sb.append('}').toString();
+    }
+
+    // Bornes des histogrammes exportés : de la requête Riot en cache (5 ms) à l'analyse IA complète (2 min)
+    private static final double[] BUCKETS_SECONDS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120};
+
+    /** Clés "name{labels}" regroupées par nom (une ligne # TYPE par nom) ; valeur : étiquettes sans accolades -> mesure. */
+    private static <V> Map<String, Map<String, V>> groupByName(Map<String, V> byKey) {
+        Map<String, Map<String, V>> grouped = new TreeMap<>();
+        byKey.forEach((key, value) -> {
+            int brace = key.indexOf('{');
+            String name = brace < 0 ? key : key.substring(0, brace);
+            String labels = brace < 0 ? "" : key.substring(brace + 1, key.length() - 1);
+            grouped.computeIfAbsent(name, n -> new TreeMap<>()).put(labels, value);
+        });
+        return grouped;
+    }
+
+    private static String withLabel(String labels, String extraKey, String extraValue) {
+        String extra = extraKey == null ? "" : extraKey + "=\"" + extraValue + '"';
+        if (labels.isEmpty() && extra.isEmpty()) return "";
+        if (labels.isEmpty()) return "{" + extra + "}";
+        return "{" + labels + (extra.isEmpty() ? "" : "," + extra) + "}";
+    }
+
+    private static String formatBound(double le) {
+        return le == Math.rint(le) ? String.valueOf((long) le) + ".0" : String.valueOf(le);
+    }
+
+    private static String escape(String value) {
+        if (value == null) return "";
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /** Locale.ROOT : en fr_FR, "%.3f" donnerait "0,873", que Prometheus refuse. */
+    private static String formatGauge(double v) {
+        if (Double.isInfinite(v)) return v > 0 ? "+Inf" : "-Inf";
+        return v == Math.rint(v) ? String.valueOf((long) v) : String.format(Locale.ROOT, "%.3f", v);
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.util;
+
+import io.github.cdimascio.dotenv.Dotenv;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Limite le nombre d'appels simultanés vers une ressource externe (Mistral, Tavily...).
+ * Avec les threads virtuels, c'est ce sémaphore (et non plus la taille du pool) qui protège la ressource.
+ */
+public class ResourceLimiter {
+    private final String name;
+    private final int permits;
+    private final Semaphore semaphore;
+
+    public ResourceLimiter(String name, int permits) {
+        this.name = name;
+        this.permits = permits;
+        this.semaphore = new Semaphore(permits, true); // Équitable : premier arrivé, premier servi
+        Metrics.gauge("limiter_in_use", this::inUse, "limiter", name);
+        Metrics.gauge("limiter_waiting", this::waiting, "limiter", name);
+    }
+
+    /** Lit la limite dans le .env (ex: MISTRAL_MAX_CONCURRENCY=4), avec une valeur par défaut. */
+    public static ResourceLimiter fromEnv(String name, String envKey, int defaultPermits) {
+        int permits = defaultPermits;
+        try {
+            String value = Dotenv.load().get(envKey, String.valueOf(defaultPermits));
+            permits = Math.max(1, Integer.parseInt(value.trim()));
+        } catch (Exception ignored) {
+            // Pas de .env ou valeur invalide : on garde la valeur par défaut
+        }
+        return new ResourceLimiter(name, permits);
+    }
+
+    public <T> T call(Callable<T> task) throws Exception {
+        long waitStart = System.nanoTime();
+        semaphore.acquire();
+        long start = recordWait(waitStart);
+        try {
+            return task.call();
+        } finally {
+            semaphore.release();
+            Metrics.timer("limiter_hold", "limiter", name).recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    /** Variante sans exception vérifiée pour les appels qui n'en lèvent pas. */
+    public <T> T supply(Supplier<T> task) {
+        long waitStart = System.nanoTime();
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompu en attente de " + name, e);
+        }
+        long start = recordWait(waitStart);
+        try {
+            return task.get();
+        } finally {
+            semaphore.release();
+            Metrics.timer("limiter_hold", "limiter", name).recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    /** @return l'instant d'obtention du permis */
+    private long recordWait(long waitStart) {
+        long now = System.nanoTime();
+        Metrics.timer("limiter_wait", "limiter", name).recordNanos(now - waitStart);
+        return now;
+    }
+
+    public String getName() { return name; }
+    public int getPermits() { return permits; }
+    public int inUse() { return permits - semaphore.availablePermits(); }
+    public int waiting() { return semaphore.getQueueLength(); }
+}
@@ -0,0 +1,119 @@
+package org.example.util;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool instrumenté : attente en file et durée de chaque tâche, tâches en file / en cours (jauges).
+ *
+ * Les commandes Slash rendent la main après un deferReply et finissent leur travail dans ce pool :
+ * la fin d'une tâche soumise pendant la commande elle-même (voir CommandManager) est enregistrée comme
+ * latence complète de la commande (réception de l'interaction -> fin de la tâche). Les tâches soumises
+ * plus tard (callbacks JDA, sous-tâches) ne sont pas rattachées : une mesure par commande.
+ * Seul le pool des commandes (trackCommands) le fait, pour ne pas compter deux fois une commande
+ * qui soumet aussi du travail aux pools Riot ou Mistral.
+ */
+public final class TimedExecutor extends AbstractExecutorService {
+
+    /** Commande Slash en cours sur ce thread, et instant de réception de l'interaction. */
+    public record CommandScope(String command, long startNanos) {}
+
+    private static final ThreadLocal<CommandScope> CURRENT = new ThreadLocal<>();
+
+    private final String name;
+    private final ExecutorService delegate;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final boolean trackCommands;
+
+    public TimedExecutor(String name, ExecutorService delegate) {
+        this(name, delegate, false);
+    }
+
+    public TimedExecutor(String name, ExecutorService delegate, boolean trackCommands) {
+        this.name = name;
+        this.delegate = delegate;
+        this.trackCommands = trackCommands;
+        Metrics.gauge("executor_queued", queued::get, "pool", name);
+        Metrics.gauge("executor_active", active::get, "pool", name);
+    }
+
+    /** @return la portée précédente, à restaurer avec exit() */
+    public static CommandScope enter(String command, long startNanos) {
+        CommandScope previous = CURRENT.get();
+        CURRENT.set(new CommandScope(command, startNanos));
+        return previous;
+    }
+
+    public static void exit(CommandScope previous) {
+        if (previous == null) CURRENT.remove();
+        else CURRENT.set(previous);
+    }
+
+    public int queuedTasks() {
+        return queued.get();
+    }
+
+    public int activeTasks() {
+        return active.get();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        CommandScope scope = trackCommands ? CURRENT.get() : null;
+        long submittedAt = System.nanoTime();
+        queued.incrementAndGet();
+        try {
+            delegate.execute(() -> run(task, scope, submittedAt));
+        } catch (RuntimeException e) {
+            queued.decrementAndGet(); // Rejetée (pool arrêté)
+            throw e;
+        }
+    }
+
+    private void run(Runnable task, CommandScope scope, long submittedAt) {
+        long start = System.nanoTime();
+        queued.decrementAndGet();
+        active.incrementAndGet();
+        Metrics.timer("executor_queue_wait", "pool", name).recordNanos(start - submittedAt);
+
+        try {
+            task.run();
+        } finally {
+            long end = System.nanoTime();
+            active.decrementAndGet();
+            Metrics.timer("executor_task", "pool", name).recordNanos(end - start);
+            if (scope != null) {
+                Metrics.timer("command_latency", "command", scope.command(), "phase", "complete").recordNanos(end - scope.startNanos());
+            }
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+}
@@ -0,0 +1,18 @@
+package org.example.util;
+
+/**
+ * Estimation grossière du nombre de tokens d'un texte, sans tokenizer : ~4 caractères par token
+ * (ordre de grandeur correct pour du français/anglais avec les tokenizers Mistral).
+ * Sert à borner les contextes, pas à facturer.
+ */
+public final class TokenEstimator {
+
+    private static final double CHARS_PER_TOKEN = 4.0;
+
+    private TokenEstimator() {}
+
+    public static int estimate(String text) {
+        if (text == null || text.isEmpty()) return 0;
+        return (int) Math.ceil(text.length() / CHARS_PER_TOKEN);
+    }
+}
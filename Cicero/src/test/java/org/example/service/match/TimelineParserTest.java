@@ -0,0 +1,149 @@
+package org.example.service.match;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimelineParserTest {
+
+    private static String fixture(String name) throws IOException {
+        try (InputStream in = TimelineParserTest.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) throw new IllegalStateException("Fixture introuvable : " + name);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /** Ce que l'ancien code lisait dans le DOM org.json (optInt / optString), pour les seuls types conservés. */
+    private static List<TimelineEvent> expectedFromDom(JSONObject timeline) {
+        List<TimelineEvent> events = new ArrayList<>();
+        JSONArray frames = timeline.getJSONObject("info").getJSONArray("frames");
+        for (int i = 0; i < frames.length(); i++) {
+            JSONObject frame = frames.getJSONObject(i);
+            JSONArray frameEvents = frame.optJSONArray("events");
+            if (frameEvents == null) continue;
+            for (int j = 0; j < frameEvents.length(); j++) {
+                JSONObject e = frameEvents.getJSONObject(j);
+                TimelineEvent.Type type = typeOf(e.optString("type", null));
+                if (type == null) continue;
+                JSONArray assistsJson = e.optJSONArray("assistingParticipantIds");
+                int[] assists = new int[assistsJson != null ? assistsJson.length() : 0];
+                for (int k = 0; k < assists.length; k++) assists[k] = assistsJson.getInt(k);
+                events.add(new TimelineEvent(type, e.optLong("timestamp"), frame.optLong("timestamp"),
+                        e.optInt("participantId"), e.optInt("killerId"), e.optInt("victimId"),
+                        e.optInt("killerTeamId"), e.optInt("teamId"), assists,
+                        e.optInt("skillSlot"), e.optInt("itemId"),
+                        e.optString("monsterType", null), e.optString("monsterSubType", null),
+                        e.optString("buildingType", null), e.optString("laneType", null)));
+            }
+        }
+        return events;
+    }
+
+    private static TimelineEvent.Type typeOf(String name) {
+        for (TimelineEvent.Type type : TimelineEvent.Type.values()) {
+            if (type.name().equals(name)) return type;
+        }
+        return null;
+    }
+
+    private static void assertSameEvent(TimelineEvent expected, TimelineEvent actual, String where) {
+        assertEquals(expected.type(), actual.type(), where + " type");
+        assertEquals(expected.timestamp(), actual.timestamp(), where + " timestamp");
+        assertEquals(expected.frameTimestamp(), actual.frameTimestamp(), where + " frameTimestamp");
+        assertEquals(expected.participantId(), actual.participantId(), where + " participantId");
+        assertEquals(expected.killerId(), actual.killerId(), where + " killerId");
+        assertEquals(expected.victimId(), actual.victimId(), where + " victimId");
+        assertEquals(expected.killerTeamId(), actual.killerTeamId(), where + " killerTeamId");
+        assertEquals(expected.teamId(), actual.teamId(), where + " teamId");
+        assertArrayEquals(expected.assistingParticipantIds(), actual.assistingParticipantIds(), where + " assists");
+        assertEquals(expected.skillSlot(), actual.skillSlot(), where + " skillSlot");
+        assertEquals(expected.itemId(), actual.itemId(), where + " itemId");
+        assertEquals(expected.monsterType(), actual.monsterType(), where + " monsterType");
+        assertEquals(expected.monsterSubType(), actual.monsterSubType(), where + " monsterSubType");
+        assertEquals(expected.buildingType(), actual.buildingType(), where + " buildingType");
+        assertEquals(expected.laneType(), actual.laneType(), where + " laneType");
+    }
+
+    @Test
+    void matchesOrgJsonOnFixture() throws IOException {
+        String json = fixture("timeline.json");
+        JSONObject dom = new JSONObject(json);
+        TimelineData parsed = TimelineParser.parse(json);
+
+        JSONArray frames = dom.getJSONObject("info").getJSONArray("frames");
+        assertEquals(frames.length(), parsed.frameCount());
+
+        List<TimelineEvent> expected = expectedFromDom(dom);
+        assertTrue(expected.size() > 100, "fixture trop pauvre : " + expected.size() + " événements");
+        assertEquals(expected.size(), parsed.events().size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSameEvent(expected.get(i), parsed.events().get(i), "événement " + i);
+        }
+
+        for (int frame : TimelineParser.SNAPSHOT_FRAMES) {
+            JSONObject participantFrames = frames.getJSONObject(frame).getJSONObject("participantFrames");
+            for (int pid = 1; pid <= 10; pid++) {
+                JSONObject pf = participantFrames.optJSONObject(String.valueOf(pid));
+                int expectedGold = pf != null ? pf.optInt("totalGold", -1) : -1;
+                assertEquals(expectedGold, parsed.totalGoldAt(frame, pid), "or frame " + frame + " joueur " + pid);
+            }
+        }
+        assertEquals(-1, parsed.totalGoldAt(1, 1)); // Frame non conservée
+    }
+
+    @Test
+    void parsesStreamLikeString() throws IOException {
+        String json = fixture("timeline.json");
+        TimelineData fromString = TimelineParser.parse(json);
+        TimelineData fromStream = TimelineParser.parse(new java.io.ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(fromString.frameCount(), fromStream.frameCount());
+        assertEquals(fromString.events().size(), fromStream.events().size());
+        for (int i = 0; i < fromString.events().size(); i++) {
+            assertSameEvent(fromString.events().get(i), fromStream.events().get(i), "événement " + i);
+        }
+    }
+
+    @Test
+    void treatsNullAndMissingFieldsLikeOptInt() throws IOException {
+        String json = "{\"metadata\":{\"matchId\":\"X\"},\"info\":{\"frames\":[{\"events\":["
+                + "{\"type\":\"CHAMPION_KILL\",\"killerId\":null,\"victimId\":3,\"timestamp\":1500,\"position\":{\"x\":1,\"y\":2}},"
+                + "{\"type\":\"WARD_PLACED\",\"creatorId\":4,\"timestamp\":1600},"
+                + "{\"type\":null,\"timestamp\":1700},"
+                + "{\"type\":\"ELITE_MONSTER_KILL\",\"monsterType\":null,\"killerTeamId\":100,\"timestamp\":1800}"
+                + "],\"timestamp\":60000}]}}";
+        TimelineData parsed = TimelineParser.parse(json);
+
+        assertEquals(1, parsed.frameCount());
+        assertEquals(2, parsed.events().size()); // WARD_PLACED et type null ignorés
+        TimelineEvent kill = parsed.events().get(0);
+        assertEquals(TimelineEvent.Type.CHAMPION_KILL, kill.type());
+        assertEquals(0, kill.killerId());
+        assertEquals(3, kill.victimId());
+        assertEquals(60000, kill.frameTimestamp()); // Timestamp de frame placé après ses événements
+        assertEquals(0, kill.assistingParticipantIds().length);
+        TimelineEvent monster = parsed.events().get(1);
+        assertNull(monster.monsterType());
+        assertEquals(100, monster.killerTeamId());
+    }
+
+    @Test
+    void rejectsTruncatedTimeline() throws IOException {
+        String json = fixture("timeline.json");
+        for (int cut : new int[]{1, json.length() / 3, json.length() / 2, json.length() - 2}) {
+            String truncated = json.substring(0, cut);
+            assertThrows(IOException.class, () -> TimelineParser.parse(truncated), "coupé à " + cut);
+        }
+    }
+}
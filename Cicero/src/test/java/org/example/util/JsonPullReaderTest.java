@@ -0,0 +1,252 @@
+package org.example.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonPullReaderTest {
+
+    private static JsonPullReader reader(String json) {
+        return new JsonPullReader(new StringReader(json));
+    }
+
+    /** Un caractère par read() : chaque échappement, nombre ou littéral est coupé par un rechargement du tampon. */
+    private static JsonPullReader oneCharAtATime(String json) {
+        return new JsonPullReader(new Reader() {
+            private int pos = 0;
+
+            @Override
+            public int read(char[] buf, int off, int len) {
+                if (pos >= json.length()) return -1;
+                buf[off] = json.charAt(pos++);
+                return 1;
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+    }
+
+    private static String readSingleString(JsonPullReader r) throws IOException {
+        r.beginArray();
+        String value = r.nextString();
+        r.endArray();
+        assertEquals(JsonPullReader.Token.END_DOCUMENT, r.peek());
+        return value;
+    }
+
+    // --- CHAÎNES ---
+
+    @Test
+    void decodesSimpleEscapes() throws IOException {
+        String json = "[\"q\\\"b\\\\s\\/n\\nt\\tr\\rb\\bf\\f\"]";
+        assertEquals("q\"b\\s/n\nt\tr\rb\bf\f", readSingleString(reader(json)));
+        assertEquals("q\"b\\s/n\nt\tr\rb\bf\f", readSingleString(oneCharAtATime(json)));
+    }
+
+    @Test
+    void decodesUnicodeEscapes() throws IOException {
+        String json = "[\"caf\\u00e9 \\u00C9 \\ud83d\\ude00\"]";
+        assertEquals("café É \uD83D\uDE00", readSingleString(reader(json)));
+        assertEquals("café É \uD83D\uDE00", readSingleString(oneCharAtATime(json)));
+    }
+
+    @Test
+    void keepsRawUtf8Characters() throws IOException {
+        assertEquals("Kai'Sa — Nunu & Willump", readSingleString(reader("[\"Kai'Sa — Nunu & Willump\"]")));
+    }
+
+    @Test
+    void rejectsInvalidUnicodeEscape() {
+        assertThrows(IOException.class, () -> readSingleString(reader("[\"\\u12g4\"]")));
+    }
+
+    @Test
+    void readsStringsLongerThanTheBuffer() throws IOException {
+        String big = "x".repeat(20_000) + "\\n" + "y".repeat(10_000);
+        String value = readSingleString(reader("[\"" + big + "\"]"));
+        assertEquals(30_001, value.length());
+        assertEquals('\n', value.charAt(20_000));
+    }
+
+    // --- NOMBRES ---
+
+    @Test
+    void parsesNumbersAndExponents() throws IOException {
+        JsonPullReader r = reader("[0, -42, 3.25, 1e3, -2.5E-2, 1E+2, 12.0, 9007199254740993]");
+        r.beginArray();
+        assertEquals(0, r.nextLong());
+        assertEquals(-42, r.nextInt());
+        assertEquals(3.25, r.nextDouble(), 0.0);
+        assertEquals(1000, r.nextLong());
+        assertEquals(-0.025, r.nextDouble(), 1e-12);
+        assertEquals(100.0, r.nextDouble(), 0.0);
+        assertEquals(12, r.nextLong()); // Riot renvoie parfois des entiers écrits "12.0"
+        assertEquals(9007199254740993L, r.nextLong()); // Au-delà de la précision d'un double
+        r.endArray();
+    }
+
+    @Test
+    void parsesNumbersSplitAcrossBufferRefills() throws IOException {
+        JsonPullReader r = oneCharAtATime("{\"a\":-1234567,\"b\":6.02e23}");
+        r.beginObject();
+        assertEquals("a", r.nextName());
+        assertEquals(-1234567, r.nextLong());
+        assertEquals("b", r.nextName());
+        assertEquals(6.02e23, r.nextDouble(), 1e10);
+        r.endObject();
+    }
+
+    @Test
+    void nextStringReturnsNumberLiteral() throws IOException {
+        JsonPullReader r = reader("[1.5e3]");
+        r.beginArray();
+        assertEquals("1.5e3", r.nextString());
+        r.endArray();
+    }
+
+    @Test
+    void rejectsMalformedNumber() {
+        JsonPullReader r = reader("[12abc]");
+        assertThrows(IOException.class, () -> {
+            r.beginArray();
+            r.nextLong();
+        });
+    }
+
+    // --- LITTÉRAUX ---
+
+    @Test
+    void readsBooleansAndNull() throws IOException {
+        JsonPullReader r = reader("{\"t\":true,\"f\":false,\"n\":null}");
+        r.beginObject();
+        assertEquals("t", r.nextName());
+        assertTrue(r.nextBoolean());
+        assertEquals("f", r.nextName());
+        assertFalse(r.nextBoolean());
+        assertEquals("n", r.nextName());
+        assertEquals(JsonPullReader.Token.NULL, r.peek());
+        r.nextNull();
+        assertFalse(r.hasNext());
+        r.endObject();
+    }
+
+    @Test
+    void rejectsInvalidLiterals() {
+        assertThrows(IOException.class, () -> {
+            JsonPullReader r = reader("[trux]");
+            r.beginArray();
+            r.nextBoolean();
+        });
+        assertThrows(IOException.class, () -> {
+            JsonPullReader r = reader("[nil]");
+            r.beginArray();
+            r.nextNull();
+        });
+    }
+
+    // --- SKIP ---
+
+    @Test
+    void skipsNestedValues() throws IOException {
+        String json = "{\"skip\":{\"a\":[1,[2,{\"b\":\"}]\\\"{[\"}],{}],\"c\":{\"d\":{\"e\":null,\"f\":[true,false]}},\"g\":\"\\u0041\"},"
+                + "\"empty\":[],"
+                + "\"keep\":7}";
+        for (JsonPullReader r : new JsonPullReader[]{reader(json), oneCharAtATime(json)}) {
+            r.beginObject();
+            assertEquals("skip", r.nextName());
+            r.skipValue();
+            assertEquals("empty", r.nextName());
+            r.skipValue();
+            assertEquals("keep", r.nextName());
+            assertEquals(7, r.nextInt());
+            assertFalse(r.hasNext());
+            r.endObject();
+            assertEquals(JsonPullReader.Token.END_DOCUMENT, r.peek());
+        }
+    }
+
+    @Test
+    void skipsScalarsInArrays() throws IOException {
+        JsonPullReader r = reader("[\"a\", 1.5e2, true, null, {\"x\":1}, 42]");
+        r.beginArray();
+        for (int i = 0; i < 5; i++) r.skipValue();
+        assertEquals(42, r.nextInt());
+        r.endArray();
+    }
+
+    // --- DOCUMENTS TRONQUÉS / INVALIDES ---
+
+    /** Lit tout le document (en sautant les valeurs), comme le ferait le TimelineParser sur un payload coupé. */
+    private static void consume(String json) throws IOException {
+        JsonPullReader r = reader(json);
+        r.skipValue();
+        r.peek();
+    }
+
+    @Test
+    void rejectsTruncatedDocuments() {
+        String[] truncated = {
+                "{",
+                "{\"a\"",
+                "{\"a\":",
+                "{\"a\":\"abc",
+                "{\"a\":[1,2",
+                "{\"a\":1,",
+                "[1,",
+                "[\"\\u00",
+                "[\"abc\\",
+                "{\"a\":{\"b\":[{}",
+        };
+        for (String json : truncated) {
+            assertThrows(IOException.class, () -> consume(json), json);
+        }
+    }
+
+    @Test
+    void rejectsMissingSeparators() {
+        assertThrows(IOException.class, () -> consume("[1 2]"));
+        assertThrows(IOException.class, () -> consume("{\"a\" 1}"));
+        assertThrows(IOException.class, () -> consume("{\"a\":1 \"b\":2}"));
+        assertThrows(IOException.class, () -> consume("{\"a\":1,}"));
+        assertThrows(IOException.class, () -> consume("[1,]"));
+    }
+
+    @Test
+    void rejectsMissingValues() {
+        assertThrows(IOException.class, () -> consume("{\"a\":}"));
+        assertThrows(IOException.class, () -> consume("{\"a\":1,\"b\":}"));
+        assertThrows(IOException.class, () -> consume("[{\"a\":]"));
+        assertThrows(IOException.class, () -> {
+            JsonPullReader r = reader("{\"a\":}");
+            r.beginObject();
+            r.nextName();
+            r.endObject();
+        });
+    }
+
+    @Test
+    void rejectsMismatchedClosers() {
+        assertThrows(IOException.class, () -> consume("[1}"));
+        assertThrows(IOException.class, () -> consume("{\"a\":1]"));
+        assertThrows(IOException.class, () -> reader("}").skipValue());
+    }
+
+    @Test
+    void rejectsUnexpectedToken() {
+        JsonPullReader r = reader("{\"a\":\"texte\"}");
+        assertThrows(IOException.class, () -> {
+            r.beginObject();
+            r.nextName();
+            r.nextLong();
+        });
+    }
+}